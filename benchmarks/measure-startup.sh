@@ -0,0 +1,77 @@
+#!/bin/sh
+# Measures how long the application takes to become ready (/actuator/health/readiness answers UP)
+# and how long its first request takes, started the default way and in fast-start mode
+# (ahead-of-time processed, class data sharing archive, "fast" profile with lazy beans).
+# Each mode is started RUNS times and the medians are printed, in milliseconds.
+# The database is the one the application is configured with, e.g. SPRING_DATASOURCE_URL.
+# Usage: ./benchmarks/measure-startup.sh [runs] (default 5); PORT picks the HTTP port (default 8089),
+# BUILD=0 reuses the jar already in target/fast-start
+set -e
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+PORT=${PORT:-8089}
+DIR=target/fast-start
+JAR=$(ls "$DIR"/*-exec.jar 2>/dev/null || true)
+if [ -z "$JAR" ] || [ "${BUILD:-1}" = 1 ]; then
+    ./mvnw -B -q -Pfast-start package -DskipTests
+    JAR=$(ls "$DIR"/*-exec.jar)
+fi
+# The archive only applies to the class path it was recorded with, which is absolute
+JAR=$PWD/$JAR
+
+# Milliseconds since the epoch. POSIX date has no sub-second field (BSD and macOS date print %N
+# as is), so without GNU date the time is taken from perl, which those systems ship.
+if date +%N | grep -q '^[0-9][0-9]*$'; then
+    now() {
+        echo $(($(date +%s%N) / 1000000))
+    }
+elif command -v perl > /dev/null; then
+    now() {
+        perl -MTime::HiRes=time -e 'printf "%d\n", time * 1000'
+    }
+else
+    echo "Needs GNU date or perl to read the time in milliseconds" >&2
+    exit 1
+fi
+
+# Prints "<ready ms> <first request ms>" for one start of the application with the given java options.
+measure() {
+    started=$(now)
+    java "$@" -jar "$JAR" --server.port="$PORT" > "$DIR/startup.log" 2>&1 &
+    pid=$!
+    until curl -fs -o /dev/null "http://localhost:$PORT/actuator/health/readiness"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "The application stopped, see $DIR/startup.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    ready=$(($(now) - started))
+    first=$(curl -fs -o /dev/null -w '%{time_total}' "http://localhost:$PORT/api/products")
+    kill "$pid"
+    wait "$pid" || true
+    echo "$ready $(echo "$first" | awk '{ printf "%.0f", $1 * 1000 }')"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2 ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+report() {
+    name=$1
+    shift
+    results=""
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        results="$results$(measure "$@")
+"
+        i=$((i + 1))
+    done
+    ready=$(printf '%s' "$results" | awk '{ print $1 }' | median)
+    first=$(printf '%s' "$results" | awk '{ print $2 }' | median)
+    printf '%-10s %10s %16s\n' "$name" "$ready" "$first"
+}
+
+printf '%-10s %10s %16s\n' "mode" "ready ms" "first request ms"
+report default
+report fast -XX:SharedArchiveFile="$DIR/application.jsa" -Dspring.aot.enabled=true -Dspring.profiles.active=fast
@@ -0,0 +1,8 @@
+#!/bin/sh
+# Builds the application and the benchmarks, then runs every benchmark with the GC profiler.
+# Extra arguments go to JMH, e.g. ./benchmarks/run-benchmarks.sh MenuJsonBenchmark -f 2
+set -e
+cd "$(dirname "$0")/.."
+./mvnw -B -q install -DskipTests
+./mvnw -B -q -f benchmarks/pom.xml package
+java -jar benchmarks/target/benchmarks.jar -prof gc -rf json -rff benchmarks/target/jmh-result.json "$@"
@@ -0,0 +1,97 @@
+package benchmark;
+
+import cache.AllergenIndex;
+import cache.MenuCache;
+import cache.MenuSnapshot;
+import model.Ingredient;
+import model.Pasta;
+import model.Pizza;
+import model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the products free of two allergens, the work behind
+ * {@code GET /api/products?without=gluten,nuts}.
+ * <p>
+ * {@code bitsetIndex} asks the {@link AllergenIndex}, which ANDs one row of
+ * words per product with the query mask. {@code scanIngredients} is the
+ * filter it replaced: a walk over every product's ingredients and their
+ * allergen names.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllergenIndexBenchmark {
+    private static final List<String> WITHOUT = List.of("gluten", "nuts");
+
+    @Param({"40", "1000"})
+    private int products;
+
+    private List<Product> menu;
+    private AllergenIndex index;
+
+    @Setup
+    public void setUp() {
+        menu = Fixtures.menu(products / 2, products / 4, products - products / 2 - products / 4);
+        MenuSnapshot snapshot = new MenuSnapshot(List.copyOf(menu),
+                menu.stream().collect(Collectors.toUnmodifiableMap(Product::getId, Function.identity())),
+                new byte[0], new byte[0], "\"\"", "\"\"");
+        index = new AllergenIndex(new MenuCache() {
+            @Override
+            public MenuSnapshot current() {
+                return snapshot;
+            }
+        });
+        // Builds the rows once, as the cache warmer does at startup
+        index.productsFreeOf(WITHOUT);
+    }
+
+    @Benchmark
+    public int[] bitsetIndex() {
+        return index.productsFreeOf(WITHOUT);
+    }
+
+    @Benchmark
+    public List<Product> scanIngredients() {
+        Set<String> without = WITHOUT.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        return menu.stream()
+                .filter(product -> ingredientsOf(product).stream()
+                        .flatMap(ingredient -> ingredient.getAllergens().stream())
+                        .noneMatch(allergen -> without.contains(allergen.trim().toLowerCase(Locale.ROOT))))
+                .toList();
+    }
+
+    private static List<Ingredient> ingredientsOf(Product product) {
+        if (product instanceof Pizza pizza) {
+            return pizza.getIngredients();
+        }
+        if (product instanceof Pasta pasta) {
+            return pasta.getIngredients();
+        }
+        return List.of();
+    }
+}
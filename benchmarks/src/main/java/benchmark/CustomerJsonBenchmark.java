@@ -0,0 +1,97 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dto.CustomerView;
+import dto.OrderSummary;
+import model.Customer;
+import model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps, serializes and parses {@link CustomerView}, the body of the
+ * customer endpoints, with and without the order summaries of
+ * {@code GET /api/customers/{id}?include=orders}.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerJsonBenchmark {
+    @Param({"30"})
+    private int orders;
+
+    private Customer customer;
+    private CustomerView view;
+    private CustomerView viewWithOrders;
+    private byte[] json;
+    private byte[] jsonWithOrders;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        writer = Fixtures.objectMapper().writerFor(CustomerView.class);
+        reader = Fixtures.objectMapper().readerFor(CustomerView.class);
+        customer = Fixtures.customerWithHistory(orders, Fixtures.menu(20, 10, 10));
+        view = CustomerView.of(customer);
+        viewWithOrders = mapWithOrders();
+        json = writer.writeValueAsBytes(view);
+        jsonWithOrders = writer.writeValueAsBytes(viewWithOrders);
+    }
+
+    @Benchmark
+    public CustomerView map() {
+        return CustomerView.of(customer);
+    }
+
+    @Benchmark
+    public CustomerView mapWithOrders() {
+        List<OrderSummary> summaries = new ArrayList<>(customer.getOrderList().size());
+        for (Order order : customer.getOrderList()) {
+            summaries.add(new OrderSummary(order.getId(), order.getOrderDate(), order.getState(),
+                    order.getPaymentMethod(), order.getTotal()));
+        }
+        return CustomerView.of(customer).withOrders(summaries);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(view);
+    }
+
+    @Benchmark
+    public byte[] serializeWithOrders() throws IOException {
+        return writer.writeValueAsBytes(viewWithOrders);
+    }
+
+    @Benchmark
+    public CustomerView deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public CustomerView deserializeWithOrders() throws IOException {
+        return reader.readValue(jsonWithOrders);
+    }
+}
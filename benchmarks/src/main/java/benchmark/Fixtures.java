@@ -0,0 +1,141 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.Customer;
+import model.Drink;
+import model.Ingredient;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.Pasta;
+import model.PayByCard;
+import model.PayByCash;
+import model.PaymentMethod;
+import model.Pizza;
+import model.Product;
+import model.Size;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the data the benchmarks work on.
+ * <p>
+ * The sizes follow a real menu and a regular customer: around forty
+ * products with a handful of ingredients each, and an order history of a
+ * few dozen orders with two to five lines. A fixed seed keeps every run on
+ * the same data.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+final class Fixtures {
+    private static final String[] ALLERGENS = {"gluten", "lactose", "egg", "fish", "nuts", "soy", "celery", "mustard"};
+    private static final String[] INGREDIENTS = {"tomato", "mozzarella", "basil", "ham", "mushroom", "pepperoni",
+            "onion", "olive", "tuna", "anchovy", "pepper", "bacon", "egg", "parmesan", "gorgonzola", "pesto"};
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns an object mapper configured like the one Spring Boot builds for the application.
+     *
+     * @return A new object mapper.
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * Builds a menu of pizzas, pastas and drinks.
+     *
+     * @param pizzas The number of pizzas.
+     * @param pastas The number of pastas.
+     * @param drinks The number of drinks.
+     * @return The products, with ids starting at 1.
+     */
+    static List<Product> menu(int pizzas, int pastas, int drinks) {
+        Random random = new Random(42);
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (int i = 0; i < INGREDIENTS.length; i++) {
+            List<String> allergens = new ArrayList<>();
+            for (int a = 0; a < random.nextInt(3); a++) {
+                allergens.add(ALLERGENS[random.nextInt(ALLERGENS.length)]);
+            }
+            ingredients.add(new Ingredient(i + 1, INGREDIENTS[i], allergens));
+        }
+        List<Product> menu = new ArrayList<>();
+        for (int i = 0; i < pizzas; i++) {
+            Pizza pizza = new Pizza(pick(ingredients, 4 + random.nextInt(4), random));
+            fill(pizza, menu.size() + 1, "Pizza " + i, 8 + random.nextInt(800) / 100.0, Size.values()[i % 3]);
+            menu.add(pizza);
+        }
+        for (int i = 0; i < pastas; i++) {
+            Pasta pasta = new Pasta(pick(ingredients, 3 + random.nextInt(3), random));
+            fill(pasta, menu.size() + 1, "Pasta " + i, 7 + random.nextInt(600) / 100.0, Size.MEDIUM);
+            menu.add(pasta);
+        }
+        for (int i = 0; i < drinks; i++) {
+            Drink drink = new Drink(Size.values()[i % 3]);
+            fill(drink, menu.size() + 1, "Drink " + i, 1.5 + random.nextInt(300) / 100.0, null);
+            menu.add(drink);
+        }
+        return menu;
+    }
+
+    /**
+     * Builds a customer with an order history taken from the given menu.
+     *
+     * @param orders The number of orders.
+     * @param menu   The products the order lines refer to.
+     * @return The customer, with every order and line linked both ways.
+     */
+    static Customer customerWithHistory(int orders, List<Product> menu) {
+        Random random = new Random(7);
+        Customer customer = new Customer(1L, "12345678Z", "Ana Garcia", "Calle Mayor 1, Madrid", "600123456",
+                "ana.garcia@example.com", "secret", new ArrayList<>(), false);
+        int lineId = 1;
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order();
+            order.setId(i + 1);
+            order.setOrderDate(new Date(1_700_000_000_000L + i * 86_400_000L));
+            order.setState(OrderState.values()[random.nextInt(OrderState.values().length)]);
+            boolean card = random.nextBoolean();
+            order.setPaymentMethod(card ? PaymentMethod.CARD : PaymentMethod.CASH);
+            order.setPayable(card ? new PayByCard() : new PayByCash());
+            order.getPayable().setId(i + 1);
+            order.setCustomer(customer);
+            for (int l = 0, lines = 2 + random.nextInt(4); l < lines; l++) {
+                Product product = menu.get(random.nextInt(menu.size()));
+                OrderLine line = new OrderLine(lineId++, 1 + random.nextInt(3), product.getPrice(), product, order);
+                order.getOrderLines().add(line);
+                order.setTotal(order.getTotal() + line.getAmount() * line.getUnitPrice());
+                order.setItemCount(order.getItemCount() + line.getAmount());
+            }
+            customer.getOrderList().add(order);
+        }
+        return customer;
+    }
+
+    private static List<Ingredient> pick(List<Ingredient> ingredients, int count, Random random) {
+        List<Ingredient> picked = new ArrayList<>();
+        while (picked.size() < count) {
+            Ingredient ingredient = ingredients.get(random.nextInt(ingredients.size()));
+            if (!picked.contains(ingredient)) {
+                picked.add(ingredient);
+            }
+        }
+        return picked;
+    }
+
+    private static void fill(Product product, int id, String name, double price, Size size) {
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        product.setSize(size);
+    }
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes and parses the full menu, the body of {@code GET /api/products}.
+ * <p>
+ * The list goes through the polymorphic {@link Product} type, so every
+ * element carries its {@code type} property and its ingredients with their
+ * allergens, just like the menu snapshot built by the application.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MenuJsonBenchmark {
+    @Param({"40"})
+    private int products;
+
+    private List<Product> menu;
+    private byte[] json;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        TypeReference<List<Product>> type = new TypeReference<>() {
+        };
+        writer = Fixtures.objectMapper().writerFor(type);
+        reader = Fixtures.objectMapper().readerFor(type);
+        menu = Fixtures.menu(products / 2, products / 4, products - products / 2 - products / 4);
+        json = writer.writeValueAsBytes(menu);
+    }
+
+    @Benchmark
+    public byte[] serializeMenu() throws IOException {
+        return writer.writeValueAsBytes(menu);
+    }
+
+    @Benchmark
+    public List<Product> deserializeMenu() throws IOException {
+        return reader.readValue(json);
+    }
+}
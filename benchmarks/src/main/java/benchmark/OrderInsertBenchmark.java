@@ -0,0 +1,168 @@
+package benchmark;
+
+import main.MainApplication;
+import model.Customer;
+import model.Drink;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.PaymentMethod;
+import model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import service.CustomerService;
+import service.OrderService;
+import service.ProductService;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves 100 orders of 5 lines each in one transaction, the work of
+ * {@link OrderService#saveOrders(List)} during an import.
+ * <p>
+ * {@code jdbcBatchSize=50} is the configured
+ * {@code hibernate.jdbc.batch_size}, which sends the inserts of each table
+ * 50 rows per JDBC batch. {@code jdbcBatchSize=1} turns batching off, so
+ * every row is its own statement. Both run the whole application on an
+ * in-memory H2 database, where a round trip costs next to nothing, so
+ * {@code statementLatencyMs} delays every statement, and every JDBC batch
+ * once, as a database across the network would.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderInsertBenchmark {
+    private static final int ORDERS = 100;
+    private static final int LINES = 5;
+    private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+            "executeBatch", "executeLargeBatch");
+
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+    @Param({"0", "1"})
+    private int statementLatencyMs;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Customer customer;
+    private final List<Product> menu = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws SQLException {
+        Duration latency = Duration.ofMillis(statementLatencyMs);
+        context = new SpringApplicationBuilder(MainApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(application -> application.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof DataSource dataSource ? delayed(dataSource, DataSource.class, latency) : bean;
+                    }
+                }))
+                .run("--spring.datasource.url=jdbc:h2:mem:order-inserts;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "--logging.level.root=warn");
+        orderService = context.getBean(OrderService.class);
+        Customer created = new Customer();
+        created.setDni("inserts");
+        created.setMail("inserts@example.com");
+        customer = context.getBean(CustomerService.class).save(created);
+        ProductService productService = context.getBean(ProductService.class);
+        for (int i = 0; i < LINES; i++) {
+            Drink drink = new Drink();
+            drink.setName("Drink " + i);
+            drink.setPrice(2 + i);
+            menu.add(productService.saveProduct(drink));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Order> saveOrders() throws SQLException {
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setCustomer(customer);
+            order.setOrderDate(new Date());
+            order.setState(OrderState.PENDING);
+            order.setPaymentMethod(PaymentMethod.CASH);
+            for (Product product : menu) {
+                OrderLine line = new OrderLine();
+                line.setProduct(product);
+                line.setAmount(1);
+                order.getOrderLines().add(line);
+            }
+            orders.add(order);
+        }
+        orderService.saveOrders(orders);
+        return orders;
+    }
+
+    private static <T> T delayed(T target, Class<T> type, Duration latency) {
+        return type.cast(Proxy.newProxyInstance(OrderInsertBenchmark.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!latency.isZero() && target instanceof Statement && EXECUTE.contains(method.getName())) {
+                        Thread.sleep(latency);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof CallableStatement call) {
+                        return delayed(call, CallableStatement.class, latency);
+                    }
+                    if (result instanceof PreparedStatement prepared) {
+                        return delayed(prepared, PreparedStatement.class, latency);
+                    }
+                    if (result instanceof Statement statement) {
+                        return delayed(statement, Statement.class, latency);
+                    }
+                    if (result instanceof Connection connection) {
+                        return delayed(connection, Connection.class, latency);
+                    }
+                    return result;
+                }));
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dto.OrderView;
+import model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps, serializes and parses an order history, the body of
+ * {@code GET /api/orders?customer=}.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderJsonBenchmark {
+    @Param({"30"})
+    private int orders;
+
+    private List<Order> history;
+    private List<OrderView> views;
+    private byte[] json;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        TypeReference<List<OrderView>> type = new TypeReference<>() {
+        };
+        writer = Fixtures.objectMapper().writerFor(type);
+        reader = Fixtures.objectMapper().readerFor(type);
+        history = Fixtures.customerWithHistory(orders, Fixtures.menu(20, 10, 10)).getOrderList();
+        views = map();
+        json = writer.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public List<OrderView> map() {
+        return history.stream().map(OrderView::of).toList();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public List<OrderView> deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws IOException {
+        return writer.writeValueAsBytes(map());
+    }
+}
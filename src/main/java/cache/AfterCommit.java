@@ -0,0 +1,102 @@
+package cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Defers in-memory updates until the database change they mirror is committed.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs the action once the current transaction commits, or right away when
+     * there is no transaction. Nothing runs if the transaction rolls back.
+     *
+     * @param action The in-memory update to run.
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs the action once the current transaction commits, or the undo when
+     * it rolls back, so something held for the transaction is given back if
+     * its change never happens. Without a transaction the action runs right
+     * away.
+     *
+     * @param action The in-memory update to run after commit.
+     * @param undo   Releases what was held for the action when the transaction does not commit.
+     */
+    public static void runOrUndo(Runnable action, Runnable undo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        action.run();
+                    } else {
+                        undo.run();
+                    }
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Collects the changes an owner makes during the current transaction and
+     * applies them together once it commits, or applies a change right away
+     * when there is no transaction. An in-memory structure that publishes a
+     * new copy on every update is then republished once per transaction
+     * instead of once per change.
+     *
+     * @param owner  The structure the change belongs to. Its changes of one transaction are collected together.
+     * @param change The in-memory change.
+     * @param apply  Applies a batch, given as one action running its changes in order.
+     */
+    public static void runBatched(Object owner, Runnable change, Consumer<Runnable> apply) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.accept(change);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Runnable> changes = (List<Runnable>) TransactionSynchronizationManager.getResource(owner);
+        if (changes == null) {
+            List<Runnable> pending = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(owner, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.accept(() -> pending.forEach(Runnable::run));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(owner);
+                }
+            });
+            changes = pending;
+        }
+        changes.add(change);
+    }
+}
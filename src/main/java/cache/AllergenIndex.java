@@ -0,0 +1,271 @@
+package cache;
+
+import model.Ingredient;
+import model.Pasta;
+import model.Pizza;
+import model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bitset index answering "which products are free of these allergens".
+ * <p>
+ * Every allergen name is interned to a small integer id, and each product
+ * keeps a bitset (a row of {@code long} words) with the bits of every
+ * allergen found in its ingredients. A query turns the requested allergens
+ * into a mask and keeps the products whose row shares no bit with it, so
+ * filtering the menu is a single pass over a primitive array.
+ * </p>
+ * <p>
+ * Readers use the published {@link Rows} without locking. Changes made
+ * through the product service update only the ingredients and products
+ * they touch, after commit, and then publish new rows once per
+ * transaction, so a bulk import publishes once per batch; the menu is only
+ * read in full the first time the index is used.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class AllergenIndex {
+    private final MenuCache menuCache;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<String, Integer> allergenIds = new HashMap<>();
+    private final Map<Integer, long[]> ingredientMasks = new HashMap<>();
+    private final Map<Integer, int[]> productIngredients = new LinkedHashMap<>();
+    private int nextAllergenId;
+    private volatile Rows rows;
+
+    public AllergenIndex(MenuCache menuCache) {
+        this.menuCache = menuCache;
+    }
+
+    /**
+     * Packed bitsets of every product, as seen by readers.
+     *
+     * @param allergenIds Interned id of each known allergen name.
+     * @param productIds  Id of the product of each row.
+     * @param masks       Allergen bits, {@code words} longs per row.
+     * @param words       Number of longs in each row.
+     */
+    private record Rows(Map<String, Integer> allergenIds, int[] productIds, long[] masks, int words) {
+    }
+
+    /**
+     * Returns the ids of the products that contain none of the given allergens.
+     *
+     * @param allergens The allergen names to avoid. Unknown names are ignored.
+     * @return The ids of the matching products, in menu order.
+     */
+    public int[] productsFreeOf(Collection<String> allergens) {
+        Rows current = rows();
+        long[] query = new long[current.words()];
+        for (String allergen : allergens) {
+            Integer id = current.allergenIds().get(AllergenNames.normalize(allergen));
+            if (id != null) {
+                query[id >>> 6] |= 1L << id;
+            }
+        }
+        int[] productIds = current.productIds();
+        long[] masks = current.masks();
+        int words = current.words();
+        int[] matches = new int[productIds.length];
+        int count = 0;
+        for (int row = 0, offset = 0; row < productIds.length; row++, offset += words) {
+            long shared = 0;
+            for (int word = 0; word < words; word++) {
+                shared |= masks[offset + word] & query[word];
+            }
+            if (shared == 0) {
+                matches[count++] = productIds[row];
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Records the ingredients of a saved or updated product.
+     *
+     * @param product The product as stored in the database.
+     */
+    public void productChanged(Product product) {
+        List<Ingredient> ingredients = ingredientsOf(product);
+        change(() -> {
+            int[] ids = new int[ingredients.size()];
+            for (int i = 0; i < ids.length; i++) {
+                Ingredient ingredient = ingredients.get(i);
+                ids[i] = ingredient.getId();
+                ingredientMasks.put(ingredient.getId(), maskOf(ingredient.getAllergens()));
+            }
+            productIngredients.put(product.getId(), ids);
+        });
+    }
+
+    /**
+     * Forgets a deleted product.
+     *
+     * @param productId The id of the deleted product.
+     */
+    public void productRemoved(int productId) {
+        change(() -> productIngredients.remove(productId));
+    }
+
+    /**
+     * Records the allergens of a saved or updated ingredient. Every product
+     * using the ingredient picks up the new allergens.
+     *
+     * @param ingredient The ingredient as stored in the database.
+     */
+    public void ingredientChanged(Ingredient ingredient) {
+        List<String> allergens = List.copyOf(ingredient.getAllergens());
+        int id = ingredient.getId();
+        change(() -> ingredientMasks.put(id, maskOf(allergens)));
+    }
+
+    /**
+     * Forgets a deleted ingredient and removes it from every product.
+     *
+     * @param ingredientId The id of the deleted ingredient.
+     */
+    public void ingredientRemoved(int ingredientId) {
+        change(() -> {
+            ingredientMasks.remove(ingredientId);
+            productIngredients.replaceAll((productId, ids) ->
+                    Arrays.stream(ids).filter(id -> id != ingredientId).toArray());
+        });
+    }
+
+    /**
+     * Renames an allergen. The bits do not move unless the new name was
+     * already known; the bit of the old name is then merged into the bit of
+     * the new one in every ingredient, and is not used again.
+     *
+     * @param allergen The current allergen name.
+     * @param newName  The new allergen name.
+     */
+    public void allergenRenamed(String allergen, String newName) {
+        change(() -> {
+            Integer id = allergenIds.remove(AllergenNames.normalize(allergen));
+            if (id == null) {
+                return;
+            }
+            Integer target = allergenIds.putIfAbsent(AllergenNames.normalize(newName), id);
+            if (target != null) {
+                ingredientMasks.replaceAll((ingredientId, mask) -> merge(mask, id, target));
+            }
+        });
+    }
+
+    /**
+     * Builds the index now instead of on first use.
+     */
+    void warmUp() {
+        rows();
+    }
+
+    private Rows rows() {
+        Rows current = rows;
+        return current != null ? current : update(() -> {
+        });
+    }
+
+    /**
+     * Applies a change once the current transaction commits, together with
+     * the other changes of that transaction, or right away without one.
+     */
+    private void change(Runnable change) {
+        AfterCommit.runBatched(this, change, this::update);
+    }
+
+    private Rows update(Runnable change) {
+        writeLock.lock();
+        try {
+            if (rows == null) {
+                load();
+            }
+            change.run();
+            rows = publish();
+            return rows;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void load() {
+        nextAllergenId = 0;
+        allergenIds.clear();
+        ingredientMasks.clear();
+        productIngredients.clear();
+        for (Product product : menuCache.current().products()) {
+            List<Ingredient> ingredients = ingredientsOf(product);
+            int[] ids = new int[ingredients.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = ingredients.get(i).getId();
+                ingredientMasks.put(ids[i], maskOf(ingredients.get(i).getAllergens()));
+            }
+            productIngredients.put(product.getId(), ids);
+        }
+    }
+
+    private Rows publish() {
+        int words = Math.max(1, (nextAllergenId + 63) >>> 6);
+        int[] productIds = new int[productIngredients.size()];
+        long[] masks = new long[productIds.length * words];
+        int row = 0;
+        for (Map.Entry<Integer, int[]> product : productIngredients.entrySet()) {
+            productIds[row] = product.getKey();
+            for (int ingredientId : product.getValue()) {
+                long[] mask = ingredientMasks.getOrDefault(ingredientId, new long[0]);
+                for (int word = 0; word < mask.length; word++) {
+                    masks[row * words + word] |= mask[word];
+                }
+            }
+            row++;
+        }
+        return new Rows(Map.copyOf(allergenIds), productIds, masks, words);
+    }
+
+    private long[] maskOf(List<String> allergens) {
+        long[] mask = new long[0];
+        for (String allergen : allergens) {
+            int id = allergenIds.computeIfAbsent(AllergenNames.normalize(allergen), name -> nextAllergenId++);
+            if (id >>> 6 >= mask.length) {
+                mask = Arrays.copyOf(mask, (id >>> 6) + 1);
+            }
+            mask[id >>> 6] |= 1L << id;
+        }
+        return mask;
+    }
+
+    /**
+     * Moves the bit {@code from} of a mask to the bit {@code to}.
+     */
+    private static long[] merge(long[] mask, int from, int to) {
+        if (from >>> 6 >= mask.length || (mask[from >>> 6] & 1L << from) == 0) {
+            return mask;
+        }
+        long[] merged = Arrays.copyOf(mask, Math.max(mask.length, (to >>> 6) + 1));
+        merged[from >>> 6] &= ~(1L << from);
+        merged[to >>> 6] |= 1L << to;
+        return merged;
+    }
+
+    private static List<Ingredient> ingredientsOf(Product product) {
+        if (product instanceof Pizza pizza) {
+            return new ArrayList<>(pizza.getIngredients());
+        }
+        if (product instanceof Pasta pasta) {
+            return new ArrayList<>(pasta.getIngredients());
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,37 @@
+package cache;
+
+import java.util.Locale;
+
+/**
+ * How the in-memory indexes tell allergens apart: by name, ignoring case
+ * and the spaces around it, so "Gluten" and "gluten " are one allergen in
+ * both the {@link AllergenIndex} and the {@link SearchIndex}.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+final class AllergenNames {
+    private AllergenNames() {
+    }
+
+    /**
+     * The key an allergen name is known by.
+     *
+     * @param allergen The allergen name.
+     * @return The name without surrounding spaces, in lower case.
+     */
+    static String normalize(String allergen) {
+        return allergen.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Whether two names are the same allergen.
+     *
+     * @param allergen One allergen name.
+     * @param other    The other allergen name.
+     * @return True when both names normalize to the same key.
+     */
+    static boolean same(String allergen, String other) {
+        return normalize(allergen).equals(normalize(other));
+    }
+}
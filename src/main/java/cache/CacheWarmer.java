@@ -0,0 +1,51 @@
+package cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the catalog caches before the application takes traffic.
+ * <p>
+ * The {@link MenuCache}, the {@link AllergenIndex} and the
+ * {@link SearchIndex} are otherwise built by the first request that needs
+ * them. Spring Boot only reports the application as ready, at
+ * {@code /actuator/health/readiness}, once the {@link ApplicationReadyEvent}
+ * listeners have returned, so a new instance gets no traffic until its
+ * caches are warm. Loading the menu also fills the second-level cache of
+ * the products, ingredients and allergens.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class CacheWarmer {
+    private final MenuCache menuCache;
+    private final AllergenIndex allergenIndex;
+    private final SearchIndex searchIndex;
+    private final Timer warmUp;
+
+    public CacheWarmer(MenuCache menuCache, AllergenIndex allergenIndex, SearchIndex searchIndex, MeterRegistry meterRegistry) {
+        this.menuCache = menuCache;
+        this.allergenIndex = allergenIndex;
+        this.searchIndex = searchIndex;
+        this.warmUp = Timer.builder("pizzeria.cache.warm-up")
+                .description("Time taken to build the catalog caches at startup")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void warmUp() {
+        warmUp.record(() -> {
+            menuCache.current();
+            allergenIndex.warmUp();
+            searchIndex.warmUp();
+        });
+    }
+}
@@ -0,0 +1,179 @@
+package cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import model.Customer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process read-through cache for {@link Customer} lookups.
+ * <p>
+ * Customers are stored once by id. Lookups by mail and DNI go through small
+ * secondary indexes that resolve to the id, and a hit is only accepted when
+ * the cached customer still carries the requested mail or DNI. Entries expire
+ * after a fixed time to live and the least used ones are evicted once the
+ * configured size is reached.
+ * </p>
+ * <p>
+ * Writers must call {@link #invalidate(long)} after the database change has
+ * been committed. Every invalidation bumps a write stamp, and a value loaded
+ * while a write was in flight is never stored, so a concurrent read can not
+ * put back a customer that has just been updated or deleted.
+ * </p>
+ * <p>
+ * Only the customer's own columns are cached: the returned objects are fresh
+ * copies with an empty order list, so callers can modify them freely.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class CustomerCache {
+    private final Cache<Long, Customer> byId;
+    private final Cache<String, Long> idByMail;
+    private final Cache<String, Long> idByDni;
+    private final AtomicLong writeStamp = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CustomerCache(@Value("${customer.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${customer.cache.time-to-live:10m}") Duration timeToLive) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        this.idByMail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+        this.idByDni = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+    }
+
+    /**
+     * Returns the customer with the given id, loading it with the loader on a miss.
+     *
+     * @param id     The customer id.
+     * @param loader Reads the customer from the database.
+     * @return A copy of the customer, or empty if the loader did not find it.
+     */
+    public Optional<Customer> getById(long id, Supplier<Optional<Customer>> loader) {
+        Customer cached = byId.getIfPresent(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(copyOf(cached));
+        }
+        return load(loader);
+    }
+
+    /**
+     * Returns the customer with the given mail, loading it with the loader on a miss.
+     *
+     * @param mail   The customer mail.
+     * @param loader Reads the customer from the database.
+     * @return A copy of the customer, or empty if the loader did not find it.
+     */
+    public Optional<Customer> getByMail(String mail, Supplier<Optional<Customer>> loader) {
+        return getByKey(idByMail, mail, Customer::getMail, loader);
+    }
+
+    /**
+     * Returns the customer with the given DNI, loading it with the loader on a miss.
+     *
+     * @param dni    The customer DNI.
+     * @param loader Reads the customer from the database.
+     * @return A copy of the customer, or empty if the loader did not find it.
+     */
+    public Optional<Customer> getByDni(String dni, Supplier<Optional<Customer>> loader) {
+        return getByKey(idByDni, dni, Customer::getDni, loader);
+    }
+
+    /**
+     * Drops the customer with the given id and its mail and DNI keys.
+     *
+     * @param id The id of the customer that was updated or deleted.
+     */
+    public void invalidate(long id) {
+        writeStamp.incrementAndGet();
+        Customer cached = byId.asMap().remove(id);
+        if (cached != null) {
+            idByMail.invalidate(cached.getMail());
+            idByDni.invalidate(cached.getDni());
+        }
+    }
+
+    /**
+     * Drops every cached customer.
+     */
+    public void invalidateAll() {
+        writeStamp.incrementAndGet();
+        byId.invalidateAll();
+        idByMail.invalidateAll();
+        idByDni.invalidateAll();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the cache.
+     *
+     * @return The counters by name.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", byId.estimatedSize());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", byId.stats().evictionCount());
+        return stats;
+    }
+
+    private Optional<Customer> getByKey(Cache<String, Long> index, String key, Function<Customer, String> keyOf,
+                                        Supplier<Optional<Customer>> loader) {
+        if (key != null) {
+            Long id = index.getIfPresent(key);
+            Customer cached = id == null ? null : byId.getIfPresent(id);
+            if (cached != null && key.equals(keyOf.apply(cached))) {
+                hits.increment();
+                return Optional.of(copyOf(cached));
+            }
+        }
+        return load(loader);
+    }
+
+    private Optional<Customer> load(Supplier<Optional<Customer>> loader) {
+        misses.increment();
+        long stamp = writeStamp.get();
+        Optional<Customer> loaded = loader.get();
+        loaded.ifPresent(customer -> put(customer, stamp));
+        return loaded.map(CustomerCache::copyOf);
+    }
+
+    private void put(Customer customer, long stamp) {
+        Customer copy = copyOf(customer);
+        // The compute runs under the same lock as invalidate(), so checking the stamp here is atomic with the put.
+        byId.asMap().compute(copy.getId(), (id, current) -> writeStamp.get() == stamp ? copy : current);
+        if (writeStamp.get() == stamp) {
+            idByMail.put(copy.getMail(), copy.getId());
+            idByDni.put(copy.getDni(), copy.getId());
+        }
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(customer.getId(), customer.getDni(), customer.getCustomerName(), customer.getDirection(),
+                customer.getPhone(), customer.getMail(), customer.getPassword(), new ArrayList<>(), customer.isAdmin());
+    }
+}
@@ -0,0 +1,110 @@
+package cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import config.ReplicaRouting;
+import model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import repository.ProductRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds the current {@link MenuSnapshot} and replaces it when the catalog changes.
+ * <p>
+ * Readers take the current snapshot without locking. Writers call
+ * {@link #refresh()} once their change is committed: a new snapshot is
+ * built from the database and swapped in as a whole, so readers see
+ * either the old menu or the new one, never a mix of both.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class MenuCache {
+    private static final TypeReference<List<Product>> PRODUCT_LIST = new TypeReference<>() {
+    };
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile MenuSnapshot snapshot;
+
+    /**
+     * Returns the current menu, building it on first use.
+     *
+     * @return The current snapshot of the menu.
+     */
+    public MenuSnapshot current() {
+        MenuSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        rebuildLock.lock();
+        try {
+            if (snapshot == null) {
+                snapshot = build();
+            }
+            return snapshot;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the menu from the database. When called inside a transaction the
+     * rebuild waits until the transaction has committed, so it sees the change.
+     */
+    public void refresh() {
+        AfterCommit.run(this::rebuild);
+    }
+
+    private void rebuild() {
+        // Rebuilds run one at a time, so the last one to finish is also the last one to read the database.
+        rebuildLock.lock();
+        try {
+            snapshot = build();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private MenuSnapshot build() {
+        // Rebuilt after every catalog change, so it must not read a lagging replica
+        List<Product> entities = ReplicaRouting.onPrimary(productRepository::findAll);
+        try {
+            byte[] json = objectMapper.writerFor(PRODUCT_LIST).writeValueAsBytes(entities);
+            // Read back from the JSON, so readers share plain copies and never an entity of a persistence context
+            List<Product> products = List.copyOf(objectMapper.readValue(json, PRODUCT_LIST));
+            String hash = DigestUtils.md5DigestAsHex(json);
+            Map<Integer, Product> byId = products.stream().collect(Collectors.toUnmodifiableMap(Product::getId, Function.identity()));
+            return new MenuSnapshot(products, byId, json, gzip(json), "\"" + hash + "\"", "\"" + hash + "-gzip\"");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
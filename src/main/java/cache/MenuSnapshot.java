@@ -0,0 +1,27 @@
+package cache;
+
+import model.Product;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of the whole product catalog, as served to the apps.
+ * <p>
+ * The JSON encoding of the menu is produced once when the snapshot is
+ * built, together with its gzip variant and an entity tag for each, so
+ * serving the menu is only a matter of writing bytes. The products are
+ * copies read back from that JSON, detached from every persistence context.
+ * </p>
+ *
+ * @param products The products of the menu. Shared by every reader, must not be modified.
+ * @param byId     The same products by id.
+ * @param json     The menu encoded as a JSON array.
+ * @param gzip     The JSON encoding compressed with gzip.
+ * @param etag     The entity tag of the JSON encoding.
+ * @param gzipEtag The entity tag of the gzip encoding.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record MenuSnapshot(List<Product> products, Map<Integer, Product> byId, byte[] json, byte[] gzip, String etag, String gzipEtag) {
+}
@@ -0,0 +1,426 @@
+package cache;
+
+import dto.SearchMatch;
+import model.Ingredient;
+import model.Pasta;
+import model.Pizza;
+import model.Product;
+import model.Size;
+import model.TYPE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Typeahead index over the names of the products, of their ingredients and
+ * of their allergens.
+ * <p>
+ * Every distinct name is a term, folded to lower case without accents. The
+ * words of every term are kept in a sorted array, so a short query is a
+ * binary search for the words it starts; longer queries intersect the
+ * posting lists of their trigrams and then check the candidates. Matches
+ * are ranked by where the query falls in the term (the whole term, its
+ * start, the start of a word, anywhere), then product names before
+ * ingredients and allergens, then shorter terms first.
+ * </p>
+ * <p>
+ * Like the {@link AllergenIndex}, readers use the published {@link Index}
+ * without locking. Changes made through the product service update only
+ * the products and ingredients they touch, after commit, and then publish a
+ * new index built from memory; the menu is only read the first time the
+ * index is used. The published arrays are rebuilt whole rather than patched:
+ * the catalog holds a few hundred names, its changes are rare admin edits,
+ * and readers would need a fresh copy of the sorted words and of every
+ * touched posting list anyway.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class SearchIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::position)
+            .thenComparing((Hit hit) -> hit.term().field())
+            .thenComparingInt(hit -> hit.term().normalized().length())
+            .thenComparing(hit -> hit.term().normalized());
+
+    @Autowired
+    private MenuCache menuCache;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<Integer, ProductEntry> products = new LinkedHashMap<>();
+    private final Map<Integer, IngredientEntry> ingredients = new HashMap<>();
+    private volatile Index index;
+
+    private record ProductEntry(int id, String name, TYPE type, Size size, int[] ingredientIds) {
+    }
+
+    private record IngredientEntry(String name, List<String> allergens) {
+    }
+
+    /**
+     * A searchable name and the products it leads to.
+     *
+     * @param normalized The name folded for matching.
+     * @param name       The name as stored.
+     * @param field      What the name is.
+     * @param productIds The products with that name, ingredient or allergen.
+     */
+    private record Term(String normalized, String name, SearchMatch.Field field, int[] productIds) {
+    }
+
+    /**
+     * How well a term matches a query. Lower positions rank first.
+     */
+    private record Hit(Term term, int position) {
+    }
+
+    /**
+     * Immutable index, as seen by readers.
+     *
+     * @param terms     Every term.
+     * @param words     Every word of every term, sorted.
+     * @param wordTerms Index in {@code terms} of the term of each word.
+     * @param trigrams  Indexes in {@code terms}, ascending, of the terms containing each trigram.
+     * @param products  The products, by id.
+     */
+    private record Index(Term[] terms, String[] words, int[] wordTerms, Map<String, int[]> trigrams,
+                         Map<Integer, ProductEntry> products) {
+    }
+
+    /**
+     * Returns the products matching a query, best matches first. A product
+     * found through several names is returned once, for its best match.
+     *
+     * @param query The text typed so far.
+     * @param limit The maximum number of matches.
+     * @return The matches, or an empty list for a blank query.
+     */
+    public List<SearchMatch> search(String query, int limit) {
+        String text = normalize(query);
+        Index current = index();
+        if (text.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<Hit> hits = new ArrayList<>();
+        for (int term : text.length() < 3 ? byWordPrefix(current, text) : byTrigrams(current, text)) {
+            int position = position(current.terms()[term].normalized(), text);
+            if (position >= 0) {
+                hits.add(new Hit(current.terms()[term], position));
+            }
+        }
+        hits.sort(RANKING);
+        Map<Integer, SearchMatch> matches = new LinkedHashMap<>();
+        for (Hit hit : hits) {
+            for (int productId : hit.term().productIds()) {
+                if (matches.size() == limit) {
+                    return List.copyOf(matches.values());
+                }
+                ProductEntry product = current.products().get(productId);
+                matches.putIfAbsent(productId, new SearchMatch(product.id(), product.name(), product.type(),
+                        product.size(), hit.term().field(), hit.term().name()));
+            }
+        }
+        return List.copyOf(matches.values());
+    }
+
+    /**
+     * Records the name and ingredients of a saved or updated product.
+     *
+     * @param product The product as stored in the database.
+     */
+    public void productChanged(Product product) {
+        List<Ingredient> productIngredients = ingredientsOf(product);
+        ProductEntry entry = entryOf(product, productIngredients);
+        List<Ingredient> copies = productIngredients.stream()
+                .map(ingredient -> new Ingredient(ingredient.getId(), ingredient.getName(), List.copyOf(ingredient.getAllergens())))
+                .toList();
+        change(() -> {
+            copies.forEach(ingredient -> ingredients.put(ingredient.getId(), entryOf(ingredient)));
+            products.put(entry.id(), entry);
+        });
+    }
+
+    /**
+     * Forgets a deleted product.
+     *
+     * @param productId The id of the deleted product.
+     */
+    public void productRemoved(int productId) {
+        change(() -> products.remove(productId));
+    }
+
+    /**
+     * Records the name and allergens of a saved or updated ingredient.
+     *
+     * @param ingredient The ingredient as stored in the database.
+     */
+    public void ingredientChanged(Ingredient ingredient) {
+        int id = ingredient.getId();
+        IngredientEntry entry = entryOf(ingredient);
+        change(() -> ingredients.put(id, entry));
+    }
+
+    /**
+     * Forgets a deleted ingredient and removes it from every product.
+     *
+     * @param ingredientId The id of the deleted ingredient.
+     */
+    public void ingredientRemoved(int ingredientId) {
+        change(() -> {
+            ingredients.remove(ingredientId);
+            products.replaceAll((productId, product) -> new ProductEntry(product.id(), product.name(), product.type(),
+                    product.size(), Arrays.stream(product.ingredientIds()).filter(id -> id != ingredientId).toArray()));
+        });
+    }
+
+    /**
+     * Renames an allergen in every ingredient. Names are matched as the
+     * {@link AllergenIndex} does, see {@link AllergenNames}, and an
+     * ingredient that already had the new name keeps it once.
+     *
+     * @param allergen The current allergen name.
+     * @param newName  The new allergen name.
+     */
+    public void allergenRenamed(String allergen, String newName) {
+        change(() -> ingredients.replaceAll((id, ingredient) -> new IngredientEntry(ingredient.name(),
+                renamed(ingredient.allergens(), allergen, newName))));
+    }
+
+    private static List<String> renamed(List<String> allergens, String allergen, String newName) {
+        Map<String, String> byKey = new LinkedHashMap<>();
+        for (String name : allergens) {
+            String current = AllergenNames.same(name, allergen) ? newName : name;
+            byKey.putIfAbsent(AllergenNames.normalize(current), current);
+        }
+        return List.copyOf(byKey.values());
+    }
+
+    /**
+     * Applies a change to the products and ingredients once the current
+     * transaction commits, or right away without one. The changes of one
+     * transaction are applied together and publish a single index, so an
+     * import of many ingredients rebuilds it once per batch.
+     */
+    private void change(Runnable change) {
+        AfterCommit.runBatched(this, change, this::update);
+    }
+
+    /**
+     * Builds the index now instead of on first use.
+     */
+    void warmUp() {
+        index();
+    }
+
+    private Index index() {
+        Index current = index;
+        return current != null ? current : update(() -> {
+        });
+    }
+
+    private Index update(Runnable change) {
+        writeLock.lock();
+        try {
+            if (index == null) {
+                load();
+            }
+            change.run();
+            index = publish();
+            return index;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void load() {
+        products.clear();
+        ingredients.clear();
+        for (Product product : menuCache.current().products()) {
+            List<Ingredient> productIngredients = ingredientsOf(product);
+            productIngredients.forEach(ingredient -> ingredients.put(ingredient.getId(), entryOf(ingredient)));
+            products.put(product.getId(), entryOf(product, productIngredients));
+        }
+    }
+
+    private Index publish() {
+        // Terms by field and folded name; a name shared by several ingredients is one term.
+        Map<String, Term> byKey = new LinkedHashMap<>();
+        Map<String, Set<Integer>> productIds = new HashMap<>();
+        for (ProductEntry product : products.values()) {
+            addTerm(byKey, productIds, SearchMatch.Field.NAME, product.name(), product.id());
+            for (int ingredientId : product.ingredientIds()) {
+                IngredientEntry ingredient = ingredients.get(ingredientId);
+                if (ingredient == null) {
+                    continue;
+                }
+                addTerm(byKey, productIds, SearchMatch.Field.INGREDIENT, ingredient.name(), product.id());
+                ingredient.allergens().forEach(allergen ->
+                        addTerm(byKey, productIds, SearchMatch.Field.ALLERGEN, allergen, product.id()));
+            }
+        }
+        Term[] terms = byKey.entrySet().stream()
+                .map(entry -> new Term(entry.getValue().normalized(), entry.getValue().name(), entry.getValue().field(),
+                        productIds.get(entry.getKey()).stream().mapToInt(Integer::intValue).toArray()))
+                .toArray(Term[]::new);
+        TreeMap<String, List<Integer>> words = new TreeMap<>();
+        Map<String, List<Integer>> trigrams = new HashMap<>();
+        for (int i = 0; i < terms.length; i++) {
+            String text = terms[i].normalized();
+            for (String word : text.split(" ")) {
+                if (!word.isEmpty()) {
+                    words.computeIfAbsent(word, key -> new ArrayList<>()).add(i);
+                }
+            }
+            Set<String> seen = new LinkedHashSet<>();
+            for (int start = 0; start + 3 <= text.length(); start++) {
+                String trigram = text.substring(start, start + 3);
+                if (seen.add(trigram)) {
+                    trigrams.computeIfAbsent(trigram, key -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+        List<String> wordList = new ArrayList<>();
+        List<Integer> wordTerms = new ArrayList<>();
+        words.forEach((word, owners) -> owners.forEach(owner -> {
+            wordList.add(word);
+            wordTerms.add(owner);
+        }));
+        Map<String, int[]> postings = new HashMap<>();
+        trigrams.forEach((trigram, owners) -> postings.put(trigram, owners.stream().mapToInt(Integer::intValue).toArray()));
+        return new Index(terms, wordList.toArray(String[]::new), wordTerms.stream().mapToInt(Integer::intValue).toArray(),
+                Map.copyOf(postings), Map.copyOf(products));
+    }
+
+    private static void addTerm(Map<String, Term> byKey, Map<String, Set<Integer>> productIds, SearchMatch.Field field,
+                                String name, int productId) {
+        String normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        String key = field.ordinal() + ":" + normalized;
+        byKey.putIfAbsent(key, new Term(normalized, name, field, null));
+        productIds.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(productId);
+    }
+
+    /**
+     * Finds the terms with a word starting with the query.
+     */
+    private static Set<Integer> byWordPrefix(Index index, String prefix) {
+        String[] words = index.words();
+        int from = Arrays.binarySearch(words, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        while (from > 0 && words[from - 1].startsWith(prefix)) {
+            from--;
+        }
+        Set<Integer> terms = new LinkedHashSet<>();
+        for (int i = from; i < words.length && words[i].startsWith(prefix); i++) {
+            terms.add(index.wordTerms()[i]);
+        }
+        return terms;
+    }
+
+    /**
+     * Finds the terms holding every trigram of the query, intersecting the
+     * shortest posting lists first.
+     */
+    private static Set<Integer> byTrigrams(Index index, String text) {
+        List<int[]> postings = new ArrayList<>();
+        for (int start = 0; start + 3 <= text.length(); start++) {
+            int[] posting = index.trigrams().get(text.substring(start, start + 3));
+            if (posting == null) {
+                return Set.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(posting -> posting.length));
+        int[] candidates = postings.get(0);
+        for (int i = 1; i < postings.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, postings.get(i));
+        }
+        Set<Integer> terms = new LinkedHashSet<>();
+        for (int candidate : candidates) {
+            terms.add(candidate);
+        }
+        return terms;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] both = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                both[count++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(both, count);
+    }
+
+    /**
+     * Returns the rank of the query in a term: 0 for the whole term, 1 for
+     * its start, 2 for the start of another word, 3 anywhere else, and -1
+     * when the term does not contain it.
+     */
+    private static int position(String term, String query) {
+        if (term.equals(query)) {
+            return 0;
+        }
+        if (term.startsWith(query)) {
+            return 1;
+        }
+        if (term.contains(" " + query)) {
+            return 2;
+        }
+        return term.contains(query) ? 3 : -1;
+    }
+
+    private static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return folded.toLowerCase(Locale.ROOT).replaceAll("[^\\p{Alnum}]+", " ").trim();
+    }
+
+    private static ProductEntry entryOf(Product product, List<Ingredient> productIngredients) {
+        return new ProductEntry(product.getId(), product.getName(), TYPE.of(product), product.getSize(),
+                productIngredients.stream().mapToInt(Ingredient::getId).toArray());
+    }
+
+    private static IngredientEntry entryOf(Ingredient ingredient) {
+        return new IngredientEntry(ingredient.getName(), List.copyOf(ingredient.getAllergens()));
+    }
+
+    private static List<Ingredient> ingredientsOf(Product product) {
+        if (product instanceof Pizza pizza) {
+            return new ArrayList<>(pizza.getIngredients());
+        }
+        if (product instanceof Pasta pasta) {
+            return new ArrayList<>(pasta.getIngredients());
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,48 @@
+package cache;
+
+import dto.CacheRegionStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the hit and miss counters of every Hibernate second-level cache
+ * region, the entity and collection regions of the catalog as well as the
+ * query result region. The counters need {@code hibernate.generate_statistics}.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class SecondLevelCacheStats {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Returns the counters of every region, by region name.
+     *
+     * @return The counters, sorted by region name.
+     */
+    public Map<String, CacheRegionStats> stats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, CacheRegionStats> stats = new LinkedHashMap<>();
+        Arrays.stream(statistics.getSecondLevelCacheRegionNames()).sorted().forEach(region -> {
+            CacheRegionStatistics counters = statistics.getCacheRegionStatistics(region);
+            if (counters != null) {
+                long hits = counters.getHitCount();
+                long misses = counters.getMissCount();
+                long size = counters.getElementCountInMemory();
+                stats.put(region, new CacheRegionStats(hits, misses, counters.getPutCount(), size < 0 ? -1 : size,
+                        hits + misses == 0 ? 0 : (double) hits / (hits + misses)));
+            }
+        });
+        return stats;
+    }
+}
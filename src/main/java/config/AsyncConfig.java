@@ -0,0 +1,23 @@
+package config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Async} methods and scheduled jobs.
+ * <p>
+ * Both run on the executors auto-configured by Spring Boot. With the
+ * {@code virtual} profile ({@code spring.threads.virtual.enabled=true})
+ * those executors, like the Tomcat request threads, start a virtual
+ * thread per task instead of borrowing a platform thread from a pool.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+}
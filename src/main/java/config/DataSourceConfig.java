@@ -0,0 +1,77 @@
+package config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only transactions to a replica when
+ * {@code spring.datasource.replica.url} is set. Without it Spring Boot
+ * configures the single pool as usual.
+ * <p>
+ * The primary and the replica get a Hikari pool each, configured under
+ * {@code spring.datasource.hikari} and {@code spring.datasource.replica.hikari}.
+ * The application uses a {@link LazyConnectionDataSourceProxy} over the
+ * primary that only takes a real connection at the first statement, once
+ * the transaction is known to be read-only; read-only transactions, like
+ * the methods marked {@code @Transactional(readOnly = true)} and the reads
+ * of the Spring Data repositories, then take it from
+ * {@link ReplicaRouting#readDataSource()}. Everything else, including plain
+ * JDBC outside a transaction, stays on the primary.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Configuration
+@ConditionalOnProperty("spring.datasource.replica.url")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${spring.datasource.replica.url}") String url,
+                                              @Value("${spring.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${spring.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRouting replicaRouting(@Qualifier("primaryDataSource") DataSource primary,
+                                         @Qualifier("replicaDataSource") DataSource replica,
+                                         @Value("${spring.datasource.replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                         @Value("${spring.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+                                         MeterRegistry meterRegistry) {
+        return new ReplicaRouting(primary, replica, lagQuery, maxLagSeconds, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, ReplicaRouting replicaRouting) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicaRouting.readDataSource());
+        return dataSource;
+    }
+}
@@ -0,0 +1,32 @@
+package config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times the methods of the classes annotated with {@code @Timed}.
+ * <p>
+ * The services are timed under {@link #SERVICE_TIMER}, tagged with their
+ * class, method and the exception they threw, if any. Spring Boot adds the
+ * HTTP request timers, the Hikari pool meters and, with
+ * {@code hibernate.generate_statistics}, the Hibernate statistics. Every
+ * meter is published at {@code /actuator/prometheus}. Which timers publish
+ * a percentiles histogram, and the range its buckets cover, is set in
+ * application.properties; no percentiles are computed in the application,
+ * they are left to {@code histogram_quantile()} in Prometheus.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String SERVICE_TIMER = "pizzeria.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
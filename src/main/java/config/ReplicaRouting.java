@@ -0,0 +1,151 @@
+package config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether a read-only transaction may read from the replica.
+ * <p>
+ * The replica is only used while it is known to be close enough to the
+ * primary: {@link #checkLag()} runs {@code spring.datasource.replica.lag-query}
+ * on it every {@code spring.datasource.replica.lag-check-interval-ms} and
+ * reads the lag in seconds from its {@code Seconds_Behind_Source} column, or
+ * from its first column. When the lag is above
+ * {@code spring.datasource.replica.max-lag-seconds}, unknown, or the query
+ * fails, reads go to the primary until a later check succeeds. A replica
+ * that refuses a connection is taken out in the same way.
+ * </p>
+ * <p>
+ * Reads whose result is kept for a long time, such as the caches loaded
+ * right after a write, must not see a lagging replica and run inside
+ * {@link #onPrimary(Supplier)}.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public class ReplicaRouting {
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final DataSource readDataSource = new ReadDataSource();
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaRouting(DataSource primary, DataSource replica, String lagQuery, long maxLagSeconds,
+                          MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        Gauge.builder("pizzeria.replica.lag", this, routing -> routing.lagSeconds)
+                .description("Seconds the replica is behind the primary, NaN when unknown")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("pizzeria.replica.usable", this, routing -> routing.usable ? 1 : 0)
+                .description("1 while read-only transactions go to the replica, 0 while they fall back to the primary")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs work whose reads must go to the primary, even inside a read-only transaction
+     * that has not used a connection yet.
+     *
+     * @param work The work to run.
+     * @param <T>  The type of its result.
+     * @return The result of the work.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (Boolean.TRUE.equals(PRIMARY_ONLY.get())) {
+            return work.get();
+        }
+        PRIMARY_ONLY.set(true);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    /**
+     * Measures the lag of the replica and decides whether it is used.
+     */
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        Long lag;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            lag = readLag(resultSet);
+        } catch (SQLException e) {
+            lag = null;
+        }
+        lagSeconds = lag == null ? Double.NaN : lag;
+        usable = lag != null && lag <= maxLagSeconds;
+    }
+
+    /**
+     * Returns whether read-only transactions currently go to the replica.
+     *
+     * @return {@code true} if the replica is in use.
+     */
+    public boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * Returns the data source of the read-only transactions: the replica while
+     * it is usable, the primary otherwise.
+     *
+     * @return The data source.
+     */
+    public DataSource readDataSource() {
+        return readDataSource;
+    }
+
+    private static Long readLag(ResultSet resultSet) throws SQLException {
+        if (!resultSet.next()) {
+            return null;
+        }
+        int column;
+        try {
+            column = resultSet.findColumn("Seconds_Behind_Source");
+        } catch (SQLException e) {
+            column = 1;
+        }
+        long lag = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : lag;
+    }
+
+    private final class ReadDataSource extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!usable || Boolean.TRUE.equals(PRIMARY_ONLY.get())) {
+                return primary.getConnection();
+            }
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                usable = false;
+                return primary.getConnection();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package controller;
+
+import dto.SalesAnalytics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import service.AnalyticsService;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    // http://localhost:8080/api/analytics/sales?from=2025-01-01&to=2025-12-31&top=10
+    @GetMapping("sales")
+    public SalesAnalytics analyzeSales(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                       @RequestParam(value = "top", defaultValue = "10") int top) {
+        return analyticsService.analyzeSales(from, to, top);
+    }
+}
@@ -1,43 +1,93 @@
 package controller;
 
+import cache.CustomerCache;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.CustomerView;
 import model.Customer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import service.CustomerService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/customers")
 public class CustomerController {
     @Autowired
     private CustomerService customerService;
+    @Autowired
+    private CustomerCache customerCache;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @PostMapping
-    public ResponseEntity<Customer> save(@RequestBody Customer customer) throws SQLException {
-        return new ResponseEntity<>(customerService.save(customer), HttpStatus.CREATED);
+    public ResponseEntity<CustomerView> save(@RequestBody Customer customer) throws SQLException {
+        return new ResponseEntity<>(CustomerView.of(customerService.save(customer)), HttpStatus.CREATED);
     }
 
+    // http://localhost:8080/api/customers?after=100&size=50
+    // The id to pass as "after" for the next page is returned in the X-Next-Cursor header.
     @GetMapping
-    public List<Customer> findAll(@RequestParam(value = "model", required = false) String model) throws SQLException {
-        if (model != null) {
-            return customerService.findAll();
+    public ResponseEntity<List<CustomerView>> findAll(@RequestParam(value = "after", defaultValue = "0") long after,
+                                                  @RequestParam(value = "size", defaultValue = "50") int size) throws SQLException {
+        List<CustomerView> page = customerService.findPage(after, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!page.isEmpty()) {
+            response.header("X-Next-Cursor", String.valueOf(page.get(page.size() - 1).id()));
         }
-        return customerService.findAll();
+        return response.body(page);
+    }
+
+    // http://localhost:8080/api/customers/stream
+    @GetMapping("stream")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                customerService.streamAll(customer -> {
+                    try {
+                        json.writeObject(customer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     // http://localhost:8080/api/customers/1
+    // http://localhost:8080/api/customers/1?include=orders
     @GetMapping("{id}")
-    public ResponseEntity<Customer> findCustomerById(@PathVariable("id") long customerId) throws SQLException {
-        return new ResponseEntity<>(customerService.findById(customerId), HttpStatus.OK);
+    public ResponseEntity<CustomerView> findCustomerById(@PathVariable("id") long customerId,
+                                                         @RequestParam(value = "include", required = false) String include) throws SQLException {
+        if ("orders".equals(include)) {
+            return new ResponseEntity<>(customerService.findWithOrders(customerId), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(CustomerView.of(customerService.findById(customerId)), HttpStatus.OK);
+    }
+
+    // http://localhost:8080/api/customers/cache/stats
+    @GetMapping("cache/stats")
+    public Map<String, Long> cacheStats() {
+        return customerCache.stats();
     }
 
     @PutMapping
-    public ResponseEntity<Customer> updateCustomer(@RequestBody Customer customer) throws SQLException {
-        return new ResponseEntity<>(customerService.update(customer), HttpStatus.OK);
+    public ResponseEntity<CustomerView> updateCustomer(@RequestBody Customer customer) throws SQLException {
+        return new ResponseEntity<>(CustomerView.of(customerService.update(customer)), HttpStatus.OK);
     }
 
     // http://localhost:8080/api/customer/1
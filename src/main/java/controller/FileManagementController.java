@@ -0,0 +1,97 @@
+package controller;
+
+import dto.ImportProgress;
+import events.OrderEventBus;
+import events.OverflowPolicy;
+import files.RecordFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import service.FileManagementService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/files")
+public class FileManagementController {
+    @Autowired
+    private FileManagementService fileManagementService;
+    @Autowired
+    private OrderEventBus eventBus;
+
+    // curl -X POST -H "Content-Type: text/csv" --data-binary @customers.csv http://localhost:8080/api/files/customers
+    // Answers 202 right away; the Location header points to the progress of the import.
+    @PostMapping("customers")
+    public ResponseEntity<ImportProgress> importCustomers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                          InputStream body) throws IOException {
+        return accepted(fileManagementService.importCustomers(body, RecordFormat.of(contentType)));
+    }
+
+    // curl -X POST -H "Content-Type: application/xml" --data-binary @ingredients.xml http://localhost:8080/api/files/ingredients
+    @PostMapping("ingredients")
+    public ResponseEntity<ImportProgress> importIngredients(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                            InputStream body) throws IOException {
+        return accepted(fileManagementService.importIngredients(body, RecordFormat.of(contentType)));
+    }
+
+    // http://localhost:8080/api/files/imports/1
+    @GetMapping("imports/{id}")
+    public ImportProgress findImport(@PathVariable("id") long id) {
+        return fileManagementService.findImport(id);
+    }
+
+    // http://localhost:8080/api/files/imports/1/events
+    // Starts with a "progress" event and sends another one after every batch, the last one when the import ends.
+    @GetMapping(value = "imports/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter importEvents(@PathVariable("id") long id) {
+        fileManagementService.findImport(id);
+        return eventBus.subscribe(ImportProgress.topic(id), OverflowPolicy.DROP_OLDEST, "progress",
+                () -> fileManagementService.findImport(id));
+    }
+
+    // http://localhost:8080/api/files/customers?format=xml
+    @GetMapping("customers")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(@RequestParam(value = "format", defaultValue = "csv") String format) {
+        RecordFormat recordFormat = formatOf(format);
+        return download("customers", recordFormat, out -> fileManagementService.exportCustomers(out, recordFormat));
+    }
+
+    // http://localhost:8080/api/files/ingredients?format=csv
+    @GetMapping("ingredients")
+    public ResponseEntity<StreamingResponseBody> exportIngredients(@RequestParam(value = "format", defaultValue = "csv") String format) {
+        RecordFormat recordFormat = formatOf(format);
+        return download("ingredients", recordFormat, out -> fileManagementService.exportIngredients(out, recordFormat));
+    }
+
+    private static ResponseEntity<ImportProgress> accepted(ImportProgress progress) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/files/imports/" + progress.id()))
+                .body(progress);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> download(String name, RecordFormat format, StreamingResponseBody body) {
+        String fileName = name + "." + format.name().toLowerCase(Locale.ROOT);
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    private static RecordFormat formatOf(String format) {
+        try {
+            return RecordFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package controller;
+
+import events.OrderEventBus;
+import events.OverflowPolicy;
+import kitchen.KitchenDispatcher;
+import kitchen.Station;
+import kitchen.Ticket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/kitchen")
+public class KitchenController {
+    @Autowired
+    private KitchenDispatcher kitchenDispatcher;
+    @Autowired
+    private OrderEventBus eventBus;
+
+    // http://localhost:8080/api/kitchen/PIZZA_OVEN/tickets
+    @PostMapping("{station}/tickets")
+    public ResponseEntity<Ticket> takeTicket(@PathVariable("station") Station station) {
+        Ticket ticket = kitchenDispatcher.next(station);
+        return ticket == null ? ResponseEntity.noContent().build() : new ResponseEntity<>(ticket, HttpStatus.OK);
+    }
+
+    @PostMapping("tickets/{id}/done")
+    public ResponseEntity<String> completeTicket(@PathVariable("id") long ticketId) {
+        if (!kitchenDispatcher.complete(ticketId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ticket not in preparation Id: " + ticketId);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // http://localhost:8080/api/kitchen/PIZZA_OVEN/events
+    // Starts with a "queue" event listing the waiting tickets, then a "ticket" event for every move.
+    // A screen that falls behind is disconnected and gets a fresh queue when it reconnects.
+    @GetMapping(value = "{station}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stationEvents(@PathVariable("station") Station station) {
+        return eventBus.subscribe(station.topic(), OverflowPolicy.DISCONNECT, "queue",
+                () -> kitchenDispatcher.queued(station));
+    }
+
+    @GetMapping("stats")
+    public Map<String, Map<String, Long>> stats() {
+        return kitchenDispatcher.stats();
+    }
+}
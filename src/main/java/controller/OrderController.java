@@ -1,4 +1,119 @@
 package controller;
 
+import cache.MenuCache;
+import dto.OrderRequest;
+import dto.OrderStatusEvent;
+import dto.OrderView;
+import events.OrderEventBus;
+import events.OverflowPolicy;
+import model.Customer;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import service.CustomerService;
+import service.OrderArchiveService;
+import service.OrderService;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/orders")
 public class OrderController {
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private MenuCache menuCache;
+    @Autowired
+    private OrderEventBus eventBus;
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @PostMapping
+    public ResponseEntity<OrderView> placeOrder(@RequestBody OrderRequest request) throws SQLException {
+        if (request.lines() == null || request.lines().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order without lines");
+        }
+        for (OrderRequest.Line line : request.lines()) {
+            if (line == null || line.amount() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order line without a positive amount");
+            }
+        }
+        // Read through the customer cache; throws 404 for an unknown customer
+        Customer customer = customerService.findById(request.customerId());
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setOrderDate(new Date());
+        order.setState(OrderState.PENDING);
+        order.setPaymentMethod(request.paymentMethod());
+        for (OrderRequest.Line line : request.lines()) {
+            Product product = menuCache.current().byId().get(line.productId());
+            if (product == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Product not found Id: " + line.productId());
+            }
+            OrderLine orderLine = new OrderLine();
+            orderLine.setProduct(product);
+            orderLine.setAmount(line.amount());
+            order.getOrderLines().add(orderLine);
+        }
+        orderService.saveOrder(order);
+        return new ResponseEntity<>(OrderView.of(order), HttpStatus.CREATED);
+    }
+
+    // http://localhost:8080/api/orders?customer=1
+    // http://localhost:8080/api/orders?customer=1&state=PENDING
+    // http://localhost:8080/api/orders?customer=1&archived=true
+    // Orders moved to the archive are only read with archived=true, and are listed first.
+    @GetMapping
+    public List<OrderView> findOrdersByCustomer(@RequestParam("customer") long customerId,
+                                                @RequestParam(value = "state", required = false) OrderState state,
+                                                @RequestParam(value = "archived", defaultValue = "false") boolean archived) throws SQLException {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        List<Order> orders = state == null
+                ? orderService.findOrdersByCustomer(customer)
+                : orderService.findOrdersByState(state, customer);
+        if (!archived) {
+            return orders.stream().map(OrderView::of).toList();
+        }
+        List<OrderView> history = new ArrayList<>(orderArchiveService.findArchivedOrders(customerId, state));
+        orders.forEach(order -> history.add(OrderView.of(order)));
+        return history;
+    }
+
+    @PostMapping("archive")
+    public ResponseEntity<Integer> archiveOrders() {
+        return ResponseEntity.ok(orderArchiveService.archiveOrders());
+    }
+
+    // http://localhost:8080/api/orders/events?customer=1
+    // An "order" event every time one of the customer's orders changes state
+    @GetMapping(value = "events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter orderEvents(@RequestParam("customer") long customerId) {
+        return eventBus.subscribe(OrderStatusEvent.topic(customerId), OverflowPolicy.DROP_OLDEST);
+    }
+
+    // http://localhost:8080/api/orders/1
+    @GetMapping("{id}")
+    public ResponseEntity<OrderView> findOrderById(@PathVariable("id") int orderId) throws SQLException {
+        return new ResponseEntity<>(OrderView.of(orderService.findOrder(orderId)), HttpStatus.OK);
+    }
+
+    @DeleteMapping("{id}")
+    public ResponseEntity<String> deleteOrder(@PathVariable("id") int id) throws SQLException {
+        orderService.deleteOrder(orderService.findOrder(id));
+        return ResponseEntity.noContent().build();
+    }
 }
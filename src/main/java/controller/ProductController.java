@@ -1,4 +1,135 @@
 package controller;
 
+import cache.MenuCache;
+import cache.MenuSnapshot;
+import cache.SecondLevelCacheStats;
+import dto.CacheRegionStats;
+import dto.SearchMatch;
+import model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import service.ProductService;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products")
 public class ProductController {
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private MenuCache menuCache;
+    @Autowired
+    private SecondLevelCacheStats secondLevelCacheStats;
+
+    @PostMapping
+    public ResponseEntity<Product> save(@RequestBody Product product) throws SQLException {
+        return new ResponseEntity<>(productService.saveProduct(product), HttpStatus.CREATED);
+    }
+
+    // http://localhost:8080/api/products
+    // Served from the menu snapshot: a matching If-None-Match gets a 304 without building any JSON.
+    @GetMapping
+    public ResponseEntity<byte[]> findAll(WebRequest request,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MenuSnapshot menu = menuCache.current();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? menu.gzipEtag() : menu.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(menu.gzip());
+        }
+        return response.body(menu.json());
+    }
+
+    /**
+     * Whether an Accept-Encoding header lets the response be compressed with
+     * gzip. A coding with a q-value of 0 is refused, and "*" stands for gzip
+     * only when gzip is not listed on its own.
+     *
+     * @param acceptEncoding The Accept-Encoding header, or null when the request has none.
+     * @return True when gzip, or "*" in its place, has a q-value above 0.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = quality;
+            } else if (name.equals("*")) {
+                any = quality;
+            }
+        }
+        Double quality = gzip != null ? gzip : any;
+        return quality != null && quality > 0;
+    }
+
+    // http://localhost:8080/api/products?without=gluten,milk
+    @GetMapping(params = "without")
+    public List<Product> findWithoutAlergens(@RequestParam("without") List<String> alergens) throws SQLException {
+        return productService.findWithoutAlergens(alergens);
+    }
+
+    // http://localhost:8080/api/products/search?q=marg&limit=10
+    // Typeahead over product, ingredient and allergen names, answered from memory.
+    @GetMapping("search")
+    public List<SearchMatch> search(@RequestParam(value = "q", defaultValue = "") String query,
+                                    @RequestParam(value = "limit", defaultValue = "${product.search.default-limit:10}") int limit) {
+        return productService.search(query, limit);
+    }
+
+    // http://localhost:8080/api/products/1
+    @GetMapping("{id}")
+    public ResponseEntity<Product> findProductById(@PathVariable("id") int productId) throws SQLException {
+        return new ResponseEntity<>(productService.findProductById(productId), HttpStatus.OK);
+    }
+
+    // http://localhost:8080/api/products/cache/stats
+    // Hits, misses and hit ratio of every second-level cache region (products, ingredients, allergens, queries).
+    @GetMapping("cache/stats")
+    public Map<String, CacheRegionStats> cacheStats() {
+        return secondLevelCacheStats.stats();
+    }
+
+    @PutMapping
+    public ResponseEntity<Product> updateProduct(@RequestBody Product product) throws SQLException {
+        productService.updateProduct(product);
+        return new ResponseEntity<>(productService.findProductById(product.getId()), HttpStatus.OK);
+    }
+
+    @DeleteMapping("{id}")
+    public ResponseEntity<String> deleteProduct(@PathVariable("id") int id) throws SQLException {
+        productService.deleteProduct(productService.findProductById(id));
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,36 @@
+package controller;
+
+import model.DailyProductSales;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import service.SalesService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sales")
+public class SalesController {
+    @Autowired
+    private SalesService salesService;
+
+    // http://localhost:8080/api/sales/daily?from=2025-01-01&to=2025-01-31
+    @GetMapping("daily")
+    public List<DailyProductSales> findDailySales(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'to' is before 'from'");
+        }
+        return salesService.findDailySales(from, to);
+    }
+
+    @PostMapping("rebuild")
+    public ResponseEntity<String> rebuild() {
+        salesService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
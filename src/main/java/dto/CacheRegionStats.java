@@ -0,0 +1,15 @@
+package dto;
+
+/**
+ * Counters of one region of the Hibernate second-level cache.
+ *
+ * @param hits     Lookups answered by the cache.
+ * @param misses   Lookups that had to go to the database.
+ * @param puts     Entries stored in the cache.
+ * @param size     Entries currently held, or -1 when the cache does not tell.
+ * @param hitRatio Hits over lookups, from 0 to 1.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record CacheRegionStats(long hits, long misses, long puts, long size, double hitRatio) {
+}
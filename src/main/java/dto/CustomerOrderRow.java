@@ -0,0 +1,37 @@
+package dto;
+
+import model.OrderState;
+import model.PaymentMethod;
+
+import java.util.Date;
+
+/**
+ * One row of the customer left join order query: the customer's columns
+ * followed by the columns of one of its orders, which are null when the
+ * customer has no orders.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record CustomerOrderRow(long id, String dni, String customerName, String direction, String phone, String mail,
+                               boolean admin, Integer orderId, Date orderDate, OrderState state,
+                               PaymentMethod paymentMethod, Double total) {
+
+    /**
+     * Returns the customer part of the row.
+     *
+     * @return The view of the customer, without orders.
+     */
+    public CustomerView customer() {
+        return new CustomerView(id, dni, customerName, direction, phone, mail, admin);
+    }
+
+    /**
+     * Returns the order part of the row.
+     *
+     * @return The summary of the order, or null if the customer has no orders.
+     */
+    public OrderSummary order() {
+        return orderId == null ? null : new OrderSummary(orderId, orderDate, state, paymentMethod, total);
+    }
+}
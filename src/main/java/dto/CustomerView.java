@@ -0,0 +1,59 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import model.Customer;
+
+import java.util.List;
+
+/**
+ * Read model returned by the customer endpoints.
+ * <p>
+ * It carries only the customer's own columns, never the password, and
+ * lists the customer's orders only when they were explicitly requested.
+ * Being a plain record it can be serialized without touching any lazy
+ * association of the {@link Customer} entity.
+ * </p>
+ *
+ * @param id           Unique identifier of the customer.
+ * @param dni          National identification number of the customer.
+ * @param customerName Name of the customer.
+ * @param direction    Address of the customer.
+ * @param phone        Phone number of the customer.
+ * @param mail         Email address of the customer.
+ * @param admin        Whether the customer has admin privileges.
+ * @param orders       Summaries of the customer's orders, or null when they were not requested.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record CustomerView(long id, String dni, String customerName, String direction, String phone, String mail,
+                           boolean admin, @JsonInclude(JsonInclude.Include.NON_NULL) List<OrderSummary> orders) {
+
+    /**
+     * Creates a view without order summaries. Used by the JPQL constructor expressions.
+     */
+    public CustomerView(long id, String dni, String customerName, String direction, String phone, String mail,
+                        boolean admin) {
+        this(id, dni, customerName, direction, phone, mail, admin, null);
+    }
+
+    /**
+     * Builds the view from the customer's own columns, ignoring its order list.
+     *
+     * @param customer The customer entity.
+     * @return The view of the customer.
+     */
+    public static CustomerView of(Customer customer) {
+        return new CustomerView(customer.getId(), customer.getDni(), customer.getCustomerName(),
+                customer.getDirection(), customer.getPhone(), customer.getMail(), customer.isAdmin());
+    }
+
+    /**
+     * Returns a copy of this view carrying the given order summaries.
+     *
+     * @param orders The summaries of the customer's orders.
+     * @return The view with its orders.
+     */
+    public CustomerView withOrders(List<OrderSummary> orders) {
+        return new CustomerView(id, dni, customerName, direction, phone, mail, admin, List.copyOf(orders));
+    }
+}
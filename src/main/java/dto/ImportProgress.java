@@ -0,0 +1,44 @@
+package dto;
+
+import files.RecordFormat;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of a bulk import, returned when it starts and pushed to its event
+ * stream after every batch.
+ *
+ * @param id         The id of the import.
+ * @param entity     What is being imported, "customers" or "ingredients".
+ * @param format     The format of the file.
+ * @param status     Whether the import is still running.
+ * @param bytesRead  Bytes of the file read so far.
+ * @param totalBytes Size of the file.
+ * @param imported   Records written to the database so far.
+ * @param rejected   Records skipped because they were invalid or could not be written.
+ * @param errors     The reason of the first rejections, with their line.
+ * @param failure    Why the import stopped before the end of the file, or null.
+ * @param started    When the import started.
+ * @param finished   When the import ended, or null while it runs.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record ImportProgress(long id, String entity, RecordFormat format, Status status, long bytesRead,
+                             long totalBytes, long imported, long rejected, List<String> errors, String failure,
+                             Instant started, Instant finished) {
+
+    public enum Status {
+        RUNNING, DONE, FAILED
+    }
+
+    /**
+     * Returns the event bus topic of an import.
+     *
+     * @param importId The id of the import.
+     * @return The topic name.
+     */
+    public static String topic(long importId) {
+        return "import/" + importId;
+    }
+}
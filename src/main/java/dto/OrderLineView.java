@@ -0,0 +1,42 @@
+package dto;
+
+import model.ArchivedOrderLine;
+import model.OrderLine;
+import model.Product;
+
+/**
+ * Read model of an order line, as listed inside an {@link OrderView}.
+ *
+ * @param id          Unique identifier of the order line.
+ * @param productId   Identifier of the ordered product.
+ * @param productName Name of the ordered product.
+ * @param price       Unit price the product was ordered at.
+ * @param amount      Number of units ordered.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record OrderLineView(int id, int productId, String productName, double price, int amount) {
+
+    /**
+     * Builds the view of an order line whose product is already loaded.
+     *
+     * @param orderLine The order line entity.
+     * @return The view of the order line.
+     */
+    public static OrderLineView of(OrderLine orderLine) {
+        Product product = orderLine.getProduct();
+        return new OrderLineView(orderLine.getId(), product.getId(), product.getName(), orderLine.getUnitPrice(),
+                orderLine.getAmount());
+    }
+
+    /**
+     * Builds the view of an archived order line, with the product name it was archived with.
+     *
+     * @param orderLine The archived order line.
+     * @return The view of the order line.
+     */
+    public static OrderLineView of(ArchivedOrderLine orderLine) {
+        return new OrderLineView(orderLine.getId(), orderLine.getProductId() == null ? 0 : orderLine.getProductId(),
+                orderLine.getProductName(), orderLine.getUnitPrice(), orderLine.getAmount());
+    }
+}
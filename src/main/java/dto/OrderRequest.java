@@ -0,0 +1,26 @@
+package dto;
+
+import model.PaymentMethod;
+
+import java.util.List;
+
+/**
+ * Body of a request placing a new order.
+ *
+ * @param customerId    Identifier of the customer placing the order.
+ * @param paymentMethod Method the customer will pay with.
+ * @param lines         The products ordered and their amounts.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record OrderRequest(long customerId, PaymentMethod paymentMethod, List<Line> lines) {
+
+    /**
+     * One product of a new order.
+     *
+     * @param productId Identifier of the ordered product.
+     * @param amount    Number of units ordered.
+     */
+    public record Line(int productId, int amount) {
+    }
+}
@@ -0,0 +1,14 @@
+package dto;
+
+import model.OrderState;
+
+/**
+ * The state of an order, read with the order's row locked.
+ *
+ * @param orderId The id of the order.
+ * @param state   The state of the order.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record OrderStateRow(int orderId, OrderState state) {
+}
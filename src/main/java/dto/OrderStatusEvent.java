@@ -0,0 +1,25 @@
+package dto;
+
+import model.OrderState;
+
+/**
+ * Pushed to a customer's event stream every time one of their orders changes state.
+ *
+ * @param orderId    The id of the order.
+ * @param customerId The id of the customer that placed the order.
+ * @param state      The new state of the order.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record OrderStatusEvent(int orderId, long customerId, OrderState state) {
+
+    /**
+     * Returns the event bus topic of a customer's orders.
+     *
+     * @param customerId The id of the customer.
+     * @return The topic name.
+     */
+    public static String topic(long customerId) {
+        return "customer/" + customerId;
+    }
+}
@@ -0,0 +1,21 @@
+package dto;
+
+import model.OrderState;
+import model.PaymentMethod;
+
+import java.util.Date;
+
+/**
+ * Short description of an order, listed inside a {@link CustomerView}
+ * when the customer's orders are requested.
+ *
+ * @param id            Unique identifier of the order.
+ * @param orderDate     Date on which the order was placed.
+ * @param state         Current state of the order.
+ * @param paymentMethod Method used to pay the order.
+ * @param total         Total price of the order.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record OrderSummary(int id, Date orderDate, OrderState state, PaymentMethod paymentMethod, double total) {
+}
@@ -0,0 +1,56 @@
+package dto;
+
+import model.ArchivedOrder;
+import model.ArchivedOrderLine;
+import model.Order;
+import model.OrderState;
+import model.PaymentMethod;
+import model.PaymentStatus;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Read model returned by the order endpoints. It refers to the customer by
+ * id only, so it can be serialized without walking back into the customer.
+ *
+ * @param id            Unique identifier of the order.
+ * @param customerId    Identifier of the customer who placed the order.
+ * @param orderDate     Moment at which the order was placed.
+ * @param state         Current state of the order.
+ * @param paymentMethod Method used to pay the order.
+ * @param paymentStatus Settlement of a card payment, or null for other payment methods.
+ * @param total         Total price of the order.
+ * @param itemCount     Number of units ordered across all lines.
+ * @param lines         The lines of the order.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record OrderView(int id, long customerId, Date orderDate, OrderState state, PaymentMethod paymentMethod,
+                        PaymentStatus paymentStatus, double total, int itemCount, List<OrderLineView> lines) {
+
+    /**
+     * Builds the view of an order whose lines and products are already loaded.
+     *
+     * @param order The order entity.
+     * @return The view of the order.
+     */
+    public static OrderView of(Order order) {
+        return new OrderView(order.getId(), order.getCustomer().getId(), order.getOrderDate(), order.getState(),
+                order.getPaymentMethod(), order.getPaymentStatus(), order.getTotal(), order.getItemCount(),
+                order.getOrderLines().stream().map(OrderLineView::of).toList());
+    }
+
+    /**
+     * Builds the view of an archived order.
+     *
+     * @param order The archived order.
+     * @param lines The archived lines of the order.
+     * @return The view of the order.
+     */
+    public static OrderView of(ArchivedOrder order, List<ArchivedOrderLine> lines) {
+        return new OrderView(order.getId(), order.getCustomerId(), order.getOrderDate(), order.getState(),
+                order.getPaymentMethod(), order.getPaymentStatus(), order.getTotal(), order.getItemCount(),
+                lines.stream().map(OrderLineView::of).toList());
+    }
+}
@@ -0,0 +1,17 @@
+package dto;
+
+import model.PaymentStatus;
+
+/**
+ * Pushed to a customer's event stream, on the topic of {@link OrderStatusEvent#topic(long)},
+ * when the card payment of one of their orders is settled.
+ *
+ * @param orderId    The id of the order.
+ * @param customerId The id of the customer that placed the order.
+ * @param status     The settled payment status.
+ * @param attempts   The number of times the payment was sent to the provider.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record PaymentStatusEvent(int orderId, long customerId, PaymentStatus status, int attempts) {
+}
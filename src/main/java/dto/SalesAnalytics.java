@@ -0,0 +1,39 @@
+package dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sales figures of the finished and delivered orders placed between two days.
+ *
+ * @param from            The first day, inclusive.
+ * @param to              The last day, inclusive.
+ * @param orders          Number of orders sold.
+ * @param items           Units sold across all orders.
+ * @param revenue         Revenue of all orders.
+ * @param topProducts     The best selling products of the menu by units, best first.
+ * @param revenueBySize   Revenue per product size of the menu's products, {@code NONE} for products without size.
+ * @param revenueByType   Revenue per product type of the menu's products.
+ * @param revenueByDay    Revenue per day, including the days without sales.
+ * @param ordersByHour    Orders per hour of the day, from 0 to 23.
+ * @param ordersByWeekday Orders per day of the week, from Monday to Sunday.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record SalesAnalytics(LocalDate from, LocalDate to, long orders, long items, double revenue,
+                             List<ProductSales> topProducts, Map<String, Double> revenueBySize,
+                             Map<String, Double> revenueByType, Map<LocalDate, Double> revenueByDay,
+                             long[] ordersByHour, long[] ordersByWeekday) {
+
+    /**
+     * Sales of one product.
+     *
+     * @param productId   The id of the product.
+     * @param productName The name of the product.
+     * @param units       Units sold.
+     * @param revenue     Revenue of the units sold.
+     */
+    public record ProductSales(int productId, String productName, long units, double revenue) {
+    }
+}
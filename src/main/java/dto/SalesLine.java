@@ -0,0 +1,43 @@
+package dto;
+
+import model.OrderLine;
+import model.OrderState;
+
+import java.util.Date;
+
+/**
+ * An order line with what the sales aggregates need from its order.
+ *
+ * @param orderId   The id of the order.
+ * @param orderDate The date the order was placed.
+ * @param state     The state of the order.
+ * @param productId The id of the ordered product.
+ * @param amount    The number of units ordered.
+ * @param unitPrice The price of the product when it was ordered.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record SalesLine(int orderId, Date orderDate, OrderState state, int productId, int amount, double unitPrice) {
+
+    /**
+     * Builds the sales line of an order line of an order in memory.
+     *
+     * @param orderLine The order line, linked to its order and product.
+     * @return The sales line.
+     */
+    public static SalesLine of(OrderLine orderLine) {
+        return new SalesLine(orderLine.getOrder().getId(), orderLine.getOrder().getOrderDate(),
+                orderLine.getOrder().getState(), orderLine.getProduct().getId(), orderLine.getAmount(),
+                orderLine.getUnitPrice());
+    }
+
+    /**
+     * Returns the same line as it would count in another state.
+     *
+     * @param newState The state of the order.
+     * @return The line in the new state.
+     */
+    public SalesLine withState(OrderState newState) {
+        return new SalesLine(orderId, orderDate, newState, productId, amount, unitPrice);
+    }
+}
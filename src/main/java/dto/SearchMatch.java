@@ -0,0 +1,26 @@
+package dto;
+
+import model.Size;
+import model.TYPE;
+
+/**
+ * A product found by the typeahead search.
+ *
+ * @param productId The id of the product.
+ * @param name      The name of the product.
+ * @param type      Whether the product is a pizza, a pasta or a drink.
+ * @param size      The size of the product.
+ * @param field     What the query matched: the product name, an ingredient or an allergen.
+ * @param matched   The name that matched, as stored.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record SearchMatch(int productId, String name, TYPE type, Size size, Field field, String matched) {
+
+    /**
+     * The names the search looks in, in the order they rank.
+     */
+    public enum Field {
+        NAME, INGREDIENT, ALLERGEN
+    }
+}
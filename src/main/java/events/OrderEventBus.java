@@ -0,0 +1,162 @@
+package events;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-process bus that pushes order events to Server-Sent Event streams.
+ * <p>
+ * Clients subscribe to a topic, such as the orders of one customer or the
+ * tickets of one kitchen station, and receive every event published to it.
+ * Each subscriber has a bounded buffer and an {@link OverflowPolicy} that
+ * decides what happens when a client can not keep up.
+ * </p>
+ * <p>
+ * Open streams are held by the servlet container's async support and do not
+ * use a thread while idle. Events are written by virtual threads, one at a
+ * time per subscriber and only while it has something to send, so thousands
+ * of connections stay cheap. A heartbeat comment detects the clients that
+ * disconnected without closing the stream.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class OrderEventBus {
+    private final Map<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    public OrderEventBus(@Value("${events.buffer-size:64}") int bufferSize,
+                         @Value("${events.timeout:30m}") Duration timeout) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Opens an event stream on a topic.
+     *
+     * @param topic  The topic to listen to.
+     * @param policy What to do when the client falls behind.
+     * @return The stream to return from the controller.
+     */
+    public SseEmitter subscribe(String topic, OverflowPolicy policy) {
+        return subscribe(topic, policy, null, null);
+    }
+
+    /**
+     * Opens an event stream on a topic that starts with a snapshot of the current state.
+     * <p>
+     * The snapshot is taken after the stream is registered and goes through
+     * the same buffer as the events, so no change is missed and nothing is
+     * written to the stream concurrently.
+     * </p>
+     *
+     * @param topic        The topic to listen to.
+     * @param policy       What to do when the client falls behind.
+     * @param snapshotName The SSE event name of the snapshot.
+     * @param snapshot     Reads the current state.
+     * @return The stream to return from the controller.
+     */
+    public SseEmitter subscribe(String topic, OverflowPolicy policy, String snapshotName, Supplier<?> snapshot) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(topic, emitter, policy, bufferSize, sender, this::remove);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        topics.compute(topic, (key, subscribers) -> {
+            Set<Subscriber> current = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            current.add(subscriber);
+            return current;
+        });
+        if (snapshot != null) {
+            offer(subscriber, SseEmitter.event().name(snapshotName).data(snapshot.get()));
+        }
+        return emitter;
+    }
+
+    /**
+     * Sends an event to every subscriber of a topic. Never blocks.
+     *
+     * @param topic The topic of the event.
+     * @param name  The SSE event name.
+     * @param data  The event payload, written as JSON.
+     */
+    public void publish(String topic, String name, Object data) {
+        Set<Subscriber> subscribers = topics.get(topic);
+        published.increment();
+        if (subscribers == null) {
+            return;
+        }
+        String id = Long.toString(eventIds.incrementAndGet());
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, SseEmitter.event().id(id).name(name).data(data));
+        }
+    }
+
+    /**
+     * Sends a comment to every stream, so broken connections are found and released.
+     */
+    @Scheduled(fixedDelayString = "${events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        topics.values().forEach(subscribers -> subscribers.forEach(
+                subscriber -> offer(subscriber, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    /**
+     * Returns the number of open streams and the event counters.
+     *
+     * @return The counters by name.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("subscribers", topics.values().stream().mapToLong(Set::size).sum());
+        stats.put("topics", (long) topics.size());
+        stats.put("published", published.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("disconnected", disconnected.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        topics.values().forEach(subscribers -> subscribers.forEach(Subscriber::close));
+        sender.shutdown();
+    }
+
+    private void offer(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        int lost = subscriber.offer(event);
+        if (lost < 0) {
+            disconnected.increment();
+        } else {
+            dropped.add(lost);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        topics.computeIfPresent(subscriber.topic(), (topic, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package events;
+
+/**
+ * What a subscriber does when its buffer is full and another event arrives.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public enum OverflowPolicy {
+    /** The oldest buffered event is dropped to make room. Fine when only the latest state matters. */
+    DROP_OLDEST,
+
+    /** The connection is closed. The client reconnects and starts again from a fresh snapshot. */
+    DISCONNECT;
+}
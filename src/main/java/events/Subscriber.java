@@ -0,0 +1,112 @@
+package events;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One open event stream with its own bounded buffer.
+ * <p>
+ * Publishing only appends to the buffer, so a slow client never holds up
+ * the publisher or the other subscribers. While the buffer has events a
+ * single task sends them, one after the other; an idle subscriber uses no
+ * thread at all.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+final class Subscriber {
+    private final String topic;
+    private final SseEmitter emitter;
+    private final OverflowPolicy policy;
+    private final int capacity;
+    private final Executor sender;
+    private final Consumer<Subscriber> onClose;
+    private final Queue<SseEmitter.SseEventBuilder> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    Subscriber(String topic, SseEmitter emitter, OverflowPolicy policy, int capacity, Executor sender,
+               Consumer<Subscriber> onClose) {
+        this.topic = topic;
+        this.emitter = emitter;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.sender = sender;
+        this.onClose = onClose;
+    }
+
+    String topic() {
+        return topic;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    /**
+     * Buffers an event and makes sure a task is sending.
+     *
+     * @param event The event to send.
+     * @return The number of events dropped to make room, or -1 if the subscriber was disconnected.
+     */
+    int offer(SseEmitter.SseEventBuilder event) {
+        if (closed.get()) {
+            return 0;
+        }
+        int dropped = 0;
+        if (buffered.incrementAndGet() > capacity) {
+            if (policy == OverflowPolicy.DISCONNECT) {
+                buffered.decrementAndGet();
+                close();
+                return -1;
+            }
+            if (buffer.poll() != null) {
+                buffered.decrementAndGet();
+                dropped++;
+            }
+        }
+        buffer.add(event);
+        if (sending.compareAndSet(false, true)) {
+            sender.execute(this::send);
+        }
+        return dropped;
+    }
+
+    /**
+     * Completes the stream and unregisters it. Safe to call more than once.
+     */
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            buffer.clear();
+            onClose.accept(this);
+            emitter.complete();
+        }
+    }
+
+    private void send() {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = buffer.poll()) != null) {
+                buffered.decrementAndGet();
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away.
+                    close();
+                    return;
+                }
+            }
+            sending.set(false);
+            // An event added after the last poll but before the flag was cleared found the flag set and did not start a task.
+        } while (!buffer.isEmpty() && !closed.get() && sending.compareAndSet(false, true));
+    }
+}
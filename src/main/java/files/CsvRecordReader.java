@@ -0,0 +1,141 @@
+package files;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a CSV file whose first row holds the field names.
+ * <p>
+ * The delimiter is the one of {@code ; , | tab} that appears most in the
+ * header, as the files exported by different franchise tools use any of
+ * them. Fields may be quoted with double quotes, and quoted fields may hold
+ * delimiters, doubled quotes and line breaks. Empty fields are read as null.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+class CsvRecordReader implements RecordReader {
+    private static final char[] DELIMITERS = {';', ',', '|', '\t'};
+
+    private final BufferedReader in;
+    private final String[] header;
+    private final char delimiter;
+    private long line = 1;
+    private long recordLine;
+
+    CsvRecordReader(InputStream stream) throws IOException {
+        this.in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), 64 * 1024);
+        String first = in.readLine();
+        if (first == null) {
+            throw new IOException("The file is empty");
+        }
+        if (!first.isEmpty() && first.charAt(0) == '\uFEFF') {
+            first = first.substring(1);
+        }
+        this.delimiter = delimiterOf(first);
+        String[] names = readRow(new BufferedReader(new StringReader(first)));
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].trim();
+        }
+        this.header = names;
+        line = 2;
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        String[] row;
+        do {
+            recordLine = line;
+            row = readRow(in);
+            if (row == null) {
+                return null;
+            }
+        } while (row.length == 1 && row[0].isEmpty());
+        Map<String, String> record = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            record.put(header[i], i < row.length && !row[i].isEmpty() ? row[i] : null);
+        }
+        return record;
+    }
+
+    @Override
+    public long line() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String[] readRow(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field in the record at line " + recordLine);
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields.toArray(String[]::new);
+    }
+
+    private static char delimiterOf(String header) {
+        char best = DELIMITERS[0];
+        long bestCount = -1;
+        for (char candidate : DELIMITERS) {
+            long count = header.chars().filter(c -> c == candidate).count();
+            if (count > bestCount) {
+                best = candidate;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+}
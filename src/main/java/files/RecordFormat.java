@@ -0,0 +1,83 @@
+package files;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * File formats accepted by the bulk import and export endpoints.
+ * <p>
+ * Both formats carry flat records of named text fields: a CSV file has a
+ * header row with the field names, and an XML file has one element per
+ * record with a child element per field. Readers and writers work on a
+ * stream, so files of any size are handled in constant memory.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public enum RecordFormat {
+    CSV(new MediaType("text", "csv")),
+    XML(MediaType.APPLICATION_XML);
+
+    private final MediaType mediaType;
+
+    RecordFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Finds the format of a request body from its content type.
+     *
+     * @param contentType The Content-Type header of the request.
+     * @return The matching format.
+     * @throws ResponseStatusException If the content type is neither CSV nor XML.
+     */
+    public static RecordFormat of(String contentType) {
+        if (contentType != null) {
+            MediaType type = MediaType.parseMediaType(contentType);
+            if (type.isCompatibleWith(CSV.mediaType)) {
+                return CSV;
+            }
+            if (type.isCompatibleWith(XML.mediaType) || type.isCompatibleWith(MediaType.TEXT_XML)) {
+                return XML;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Expected text/csv or application/xml, got: " + contentType);
+    }
+
+    /**
+     * Opens a reader over a file in this format.
+     *
+     * @param in         The file contents, in UTF-8.
+     * @param recordName The element name of each record, used by XML files.
+     * @return The reader, which closes the stream when closed.
+     * @throws IOException If the file can not be read.
+     */
+    public RecordReader reader(InputStream in, String recordName) throws IOException {
+        return this == CSV ? new CsvRecordReader(in) : new XmlRecordReader(in, recordName);
+    }
+
+    /**
+     * Opens a writer that writes the header or root element right away.
+     *
+     * @param out        Where the file is written, in UTF-8.
+     * @param rootName   The element name of the whole file, used by XML files.
+     * @param recordName The element name of each record, used by XML files.
+     * @param fields     The names of the fields of every record, in order.
+     * @return The writer, which closes the file but not the stream when closed.
+     * @throws IOException If the file can not be written.
+     */
+    public RecordWriter writer(OutputStream out, String rootName, String recordName, List<String> fields) throws IOException {
+        return this == CSV ? new CsvRecordWriter(out, fields) : new XmlRecordWriter(out, rootName, recordName, fields);
+    }
+}
@@ -0,0 +1,29 @@
+package files;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads the records of a file one at a time.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface RecordReader extends Closeable {
+
+    /**
+     * Reads the next record.
+     *
+     * @return The fields of the record by name, or null at the end of the file.
+     * @throws IOException If the file can not be read or is malformed.
+     */
+    Map<String, String> next() throws IOException;
+
+    /**
+     * Returns the line where the last record read starts, for error messages.
+     *
+     * @return The line number, starting at 1.
+     */
+    long line();
+}
@@ -0,0 +1,21 @@
+package files;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes the records of a file one at a time.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface RecordWriter extends Closeable {
+
+    /**
+     * Writes a record.
+     *
+     * @param values The values of the fields, in the order given when the writer was opened. Nulls are written empty.
+     * @throws IOException If the file can not be written.
+     */
+    void write(String... values) throws IOException;
+}
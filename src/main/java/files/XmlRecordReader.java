@@ -0,0 +1,82 @@
+package files;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the records of an XML file with StAX, one element at a time.
+ * <p>
+ * Every element named like the record is read as a record, wherever it
+ * is, and its child elements are read as its fields. Only the current
+ * record is kept in memory. DTDs and external entities are refused.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+class XmlRecordReader implements RecordReader {
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final InputStream stream;
+    private final XMLStreamReader xml;
+    private final String recordName;
+    private long recordLine;
+
+    XmlRecordReader(InputStream stream, String recordName) throws IOException {
+        this.stream = stream;
+        this.recordName = recordName;
+        try {
+            this.xml = FACTORY.createXMLStreamReader(stream);
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals(recordName)) {
+                    recordLine = xml.getLocation().getLineNumber();
+                    Map<String, String> record = new HashMap<>();
+                    while (xml.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        String field = xml.getLocalName();
+                        String value = xml.getElementText();
+                        record.put(field, value.isEmpty() ? null : value);
+                    }
+                    return record;
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long line() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package files;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes records as XML elements with StAX, one child element per field.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+class XmlRecordWriter implements RecordWriter {
+    private static final XMLOutputFactory FACTORY = XMLOutputFactory.newFactory();
+
+    private final XMLStreamWriter xml;
+    private final String recordName;
+    private final List<String> fields;
+
+    XmlRecordWriter(OutputStream stream, String rootName, String recordName, List<String> fields) throws IOException {
+        this.recordName = recordName;
+        this.fields = fields;
+        try {
+            this.xml = FACTORY.createXMLStreamWriter(stream, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeCharacters("\n");
+            xml.writeStartElement(rootName);
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void write(String... values) throws IOException {
+        try {
+            xml.writeCharacters("\n  ");
+            xml.writeStartElement(recordName);
+            for (int i = 0; i < fields.size(); i++) {
+                xml.writeStartElement(fields.get(i));
+                xml.writeCharacters(values[i] == null ? "" : values[i]);
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.writeCharacters("\n");
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
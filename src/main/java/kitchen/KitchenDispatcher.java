@@ -0,0 +1,292 @@
+package kitchen;
+
+import events.OrderEventBus;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves placed orders through the kitchen.
+ * <p>
+ * Every order is split into one {@link Ticket} per station it needs, based
+ * on the type of its products. Orders are admitted in arrival order once
+ * every station they need has room in its queue, otherwise they wait; at
+ * most {@code kitchen.waiting-capacity} orders wait. A new order holds its
+ * place with {@link #reserve()} before it is committed, so it is refused
+ * before anything is written rather than left pending once placed. Cooks
+ * take tickets from their station with {@link #next(Station)} and hand them
+ * back with {@link #complete(long)}; when the last ticket of an order is
+ * done the order becomes {@link OrderState#FINISHED}.
+ * </p>
+ * <p>
+ * All the structures are lock-free, so stations never block each other.
+ * State changes are not written here but handed to the
+ * {@link OrderStateWriter}, which stores them in batches. Every move of a
+ * ticket is published to its station's topic on the {@link OrderEventBus}.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class KitchenDispatcher {
+    private final OrderStateWriter stateWriter;
+    private final OrderEventBus eventBus;
+    private final Map<Station, StationQueue> stations = new EnumMap<>(Station.class);
+    private final Queue<Admission> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final int waitingCapacity;
+    private final AtomicLong rejected = new AtomicLong();
+    private final Map<Integer, AtomicInteger> remaining = new ConcurrentHashMap<>();
+    private final Map<Long, Ticket> cooking = new ConcurrentHashMap<>();
+    private final AtomicLong ticketIds = new AtomicLong();
+    private final AtomicBoolean admitting = new AtomicBoolean();
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * An order waiting to enter the station queues.
+     *
+     * @param tickets The tickets of the order, by station.
+     */
+    private record Admission(Map<Station, Ticket> tickets) {
+    }
+
+    public KitchenDispatcher(OrderStateWriter stateWriter, OrderEventBus eventBus,
+                             @Value("${kitchen.pizza-oven.slots:8}") int pizzaOvenSlots,
+                             @Value("${kitchen.pasta.slots:4}") int pastaSlots,
+                             @Value("${kitchen.drinks.slots:4}") int drinksSlots,
+                             @Value("${kitchen.queue-capacity:200}") int queueCapacity,
+                             @Value("${kitchen.waiting-capacity:1000}") int waitingCapacity) {
+        this.stateWriter = stateWriter;
+        this.eventBus = eventBus;
+        this.waitingCapacity = waitingCapacity;
+        stations.put(Station.PIZZA_OVEN, new StationQueue(pizzaOvenSlots, queueCapacity));
+        stations.put(Station.PASTA, new StationQueue(pastaSlots, queueCapacity));
+        stations.put(Station.DRINKS, new StationQueue(drinksSlots, queueCapacity));
+    }
+
+    /**
+     * Holds a place among the waiting orders for an order about to be
+     * placed, so the kitchen can not refuse it once it is committed. Every
+     * place held is used by {@link #submitReserved(Order)} or given back with
+     * {@link #unreserve()}.
+     *
+     * @return Whether there was room, false when {@code kitchen.waiting-capacity} orders are waiting or about to.
+     */
+    public boolean reserve() {
+        if (waitingCount.incrementAndGet() > waitingCapacity) {
+            waitingCount.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gives back a place held by {@link #reserve()} for an order that was not placed.
+     */
+    public void unreserve() {
+        waitingCount.decrementAndGet();
+    }
+
+    /**
+     * Sends an order that was already accepted to the kitchen, such as the
+     * ones still pending when the application restarted. It is never
+     * refused, even when more than {@code kitchen.waiting-capacity} orders
+     * are waiting.
+     *
+     * @param order A persisted order with its lines and products.
+     */
+    public void submit(Order order) {
+        waitingCount.incrementAndGet();
+        submitReserved(order);
+    }
+
+    /**
+     * Sends a placed order to the kitchen, in the place held for it by
+     * {@link #reserve()}. Orders without lines are finished right away, and
+     * orders already in the kitchen are ignored.
+     *
+     * @param order A persisted order with its lines and products.
+     */
+    public void submitReserved(Order order) {
+        long now = System.nanoTime();
+        long customerId = order.getCustomer().getId();
+        Map<Station, List<Ticket.Item>> items = new EnumMap<>(Station.class);
+        for (OrderLine line : order.getOrderLines()) {
+            items.computeIfAbsent(Station.of(line.getProduct()), station -> new ArrayList<>())
+                    .add(new Ticket.Item(line.getProduct().getId(), line.getProduct().getName(), line.getAmount()));
+        }
+        if (items.isEmpty()) {
+            unreserve();
+            stateWriter.record(order.getId(), customerId, OrderState.FINISHED);
+            return;
+        }
+        if (remaining.putIfAbsent(order.getId(), new AtomicInteger(items.size())) != null) {
+            unreserve();
+            return;
+        }
+        Map<Station, Ticket> tickets = new LinkedHashMap<>();
+        items.forEach((station, stationItems) -> tickets.put(station,
+                new Ticket(ticketIds.incrementAndGet(), order.getId(), customerId, station, List.copyOf(stationItems), now)));
+        waiting.add(new Admission(tickets));
+        changes.incrementAndGet();
+        admitWaiting();
+    }
+
+    /**
+     * Takes the oldest ticket of a station, if one of its slots is free.
+     *
+     * @param station The station asking for work.
+     * @return The ticket to prepare, or null if there is nothing to do or no free slot.
+     */
+    public Ticket next(Station station) {
+        StationQueue queue = stations.get(station);
+        Ticket ticket;
+        while ((ticket = queue.take()) != null) {
+            changes.incrementAndGet();
+            if (remaining.containsKey(ticket.orderId())) {
+                cooking.put(ticket.id(), ticket);
+                eventBus.publish(station.topic(), "ticket", new TicketEvent(TicketEvent.Status.COOKING, ticket));
+                break;
+            }
+            // The order was canceled while it was waiting.
+            queue.release(false);
+        }
+        admitWaiting();
+        return ticket;
+    }
+
+    /**
+     * Returns the tickets waiting at a station, oldest first.
+     *
+     * @param station The station.
+     * @return The queued tickets of orders that were not canceled.
+     */
+    public List<Ticket> queued(Station station) {
+        return stations.get(station).tickets().stream()
+                .filter(ticket -> remaining.containsKey(ticket.orderId()))
+                .toList();
+    }
+
+    /**
+     * Marks a ticket as prepared. The order is finished when it was its last ticket.
+     *
+     * @param ticketId The id of the ticket.
+     * @return Whether the ticket was being prepared.
+     */
+    public boolean complete(long ticketId) {
+        Ticket ticket = cooking.remove(ticketId);
+        if (ticket == null) {
+            return false;
+        }
+        stations.get(ticket.station()).release(true);
+        eventBus.publish(ticket.station().topic(), "ticket", new TicketEvent(TicketEvent.Status.DONE, ticket));
+        AtomicInteger left = remaining.get(ticket.orderId());
+        if (left != null && left.decrementAndGet() == 0 && remaining.remove(ticket.orderId(), left)) {
+            stateWriter.record(ticket.orderId(), ticket.customerId(), OrderState.FINISHED);
+        }
+        return true;
+    }
+
+    /**
+     * Drops an order from the kitchen. Its queued tickets are skipped and the
+     * ones being prepared no longer finish it.
+     *
+     * @param orderId The id of the canceled order.
+     */
+    public void cancel(int orderId) {
+        remaining.remove(orderId);
+    }
+
+    /**
+     * Returns the queue counters and waiting times of every station, plus
+     * the orders that are waiting to enter the kitchen or were refused.
+     *
+     * @return The counters by name, for every station and for the whole kitchen.
+     */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stations.forEach((station, queue) -> {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            counters.put("slots", (long) queue.slots());
+            counters.put("capacity", (long) queue.capacity());
+            counters.put("queued", queue.queued());
+            counters.put("cooking", queue.cooking());
+            counters.put("completed", queue.completed());
+            long taken = queue.taken();
+            counters.put("avgWaitMs", taken == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(queue.waitNanos() / taken));
+            counters.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(queue.maxWaitNanos()));
+            stats.put(station.name(), counters);
+        });
+        Map<String, Long> kitchen = new LinkedHashMap<>();
+        // Includes the places held for orders being placed
+        kitchen.put("waitingOrders", (long) waitingCount.get());
+        kitchen.put("waitingCapacity", (long) waitingCapacity);
+        kitchen.put("rejectedOrders", rejected.get());
+        kitchen.put("openOrders", (long) remaining.size());
+        stats.put("KITCHEN", kitchen);
+        return stats;
+    }
+
+    /**
+     * Moves waiting orders into the station queues, oldest first, until one
+     * does not fit. Only one thread admits at a time; a thread that frees room
+     * or adds an order while another one is admitting makes it try again.
+     */
+    private void admitWaiting() {
+        while (!waiting.isEmpty() && admitting.compareAndSet(false, true)) {
+            long seen = changes.get();
+            try {
+                Admission next;
+                while ((next = waiting.peek()) != null) {
+                    if (!remaining.containsKey(next.tickets().values().iterator().next().orderId())) {
+                        waiting.poll();
+                        waitingCount.decrementAndGet();
+                    } else if (reserve(next)) {
+                        waiting.poll();
+                        waitingCount.decrementAndGet();
+                        next.tickets().forEach((station, ticket) -> {
+                            stations.get(station).add(ticket);
+                            eventBus.publish(station.topic(), "ticket", new TicketEvent(TicketEvent.Status.QUEUED, ticket));
+                        });
+                    } else {
+                        break;
+                    }
+                }
+            } finally {
+                admitting.set(false);
+            }
+            if (changes.get() == seen) {
+                return;
+            }
+        }
+    }
+
+    private boolean reserve(Admission admission) {
+        List<Station> reserved = new ArrayList<>();
+        for (Station station : admission.tickets().keySet()) {
+            if (!stations.get(station).reserve()) {
+                reserved.forEach(done -> stations.get(done).unreserve());
+                return false;
+            }
+            reserved.add(station);
+        }
+        return true;
+    }
+}
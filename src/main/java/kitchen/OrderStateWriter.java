@@ -0,0 +1,201 @@
+package kitchen;
+
+import dto.OrderStatusEvent;
+import dto.SalesLine;
+import events.OrderEventBus;
+import model.OrderState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.OrderRepository;
+import service.SalesService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers order state transitions and writes them to the database in batches.
+ * <p>
+ * Transitions are queued without blocking the caller and flushed on a fixed
+ * delay. Every flush issues one {@code UPDATE ... WHERE id IN (...)} per
+ * target state instead of one statement per order. When an order changes
+ * state twice before a flush only its last state is written. The daily
+ * sales aggregates are updated in the same transaction, with the orders
+ * locked, and a transition never reopens a delivered or canceled order.
+ * Once a batch is committed each change is pushed to the customer's event
+ * stream.
+ * </p>
+ * <p>
+ * A batch that keeps failing is finally written one transition at a time,
+ * and the transitions that still fail are logged and dropped, so one bad
+ * transition never holds back the ones queued after it.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class OrderStateWriter {
+    private static final Logger log = LoggerFactory.getLogger(OrderStateWriter.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private OrderEventBus eventBus;
+    @Autowired
+    private SalesService salesService;
+    @Value("${kitchen.flush.batch-size:500}")
+    private int batchSize = 500;
+    @Value("${kitchen.flush.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    private final Queue<Transition> pending = new ConcurrentLinkedQueue<>();
+    // Not a monitor: a virtual thread waiting for a connection inside one would pin its carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private List<Transition> failed = List.of();
+    private int attempts;
+
+    /**
+     * A state an order has to be moved to.
+     *
+     * @param orderId    The id of the order.
+     * @param customerId The customer that placed the order.
+     * @param state      The new state of the order.
+     */
+    record Transition(int orderId, long customerId, OrderState state) {
+    }
+
+    /**
+     * Queues a state transition for the next flush.
+     *
+     * @param orderId    The id of the order.
+     * @param customerId The customer that placed the order.
+     * @param state      The new state of the order.
+     */
+    public void record(int orderId, long customerId, OrderState state) {
+        pending.add(new Transition(orderId, customerId, state));
+    }
+
+    /**
+     * Writes every queued transition, one batch at a time.
+     * <p>
+     * If a batch can not be written the error is rethrown and the batch is
+     * written first on the next flush, ahead of any newer transition. After
+     * {@code kitchen.flush.max-attempts} failures it is written transition by
+     * transition instead, dropping the ones that still fail.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${kitchen.flush.interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Transition> batch = failed.isEmpty() ? drain(batchSize) : failed;
+            while (!batch.isEmpty()) {
+                Collection<Transition> last = lastOfEachOrder(batch);
+                List<Transition> written;
+                try {
+                    written = transactionTemplate.execute(status -> write(last));
+                } catch (RuntimeException e) {
+                    if (++attempts < maxAttempts) {
+                        failed = batch;
+                        throw e;
+                    }
+                    written = writeOneByOne(last);
+                }
+                failed = List.of();
+                attempts = 0;
+                written.forEach(transition -> eventBus.publish(OrderStatusEvent.topic(transition.customerId()), "order",
+                        new OrderStatusEvent(transition.orderId(), transition.customerId(), transition.state())));
+                batch = drain(batchSize);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Removes up to {@code max} queued transitions, oldest first.
+     *
+     * @param max The maximum number of transitions to remove.
+     * @return The removed transitions.
+     */
+    List<Transition> drain(int max) {
+        List<Transition> batch = new ArrayList<>();
+        Transition transition;
+        while (batch.size() < max && (transition = pending.poll()) != null) {
+            batch.add(transition);
+        }
+        return batch;
+    }
+
+    /**
+     * Locks the orders, then writes the transitions that still apply. An
+     * order deleted, delivered or canceled since its transition was queued
+     * keeps its state, and only the written transitions count in the sales
+     * aggregates.
+     *
+     * @param transitions The last transition of each order.
+     * @return The transitions written.
+     */
+    private List<Transition> write(Collection<Transition> transitions) {
+        Map<Integer, OrderState> current = new HashMap<>();
+        orderRepository.lockAll(transitions.stream().map(Transition::orderId).toList())
+                .forEach(row -> current.put(row.orderId(), row.state()));
+        List<Transition> written = transitions.stream().filter(transition -> {
+            OrderState state = current.get(transition.orderId());
+            return state != null && !state.isFinal() && state != transition.state();
+        }).toList();
+        Map<Integer, OrderState> newStates = new HashMap<>();
+        written.forEach(transition -> newStates.put(transition.orderId(), transition.state()));
+        List<SalesLine> before = salesService.findSalesLines(newStates.keySet());
+        List<SalesLine> after = before.stream().map(line -> line.withState(newStates.get(line.orderId()))).toList();
+        salesService.recordChange(before, after);
+        byState(written).forEach((state, ids) -> orderRepository.updateState(state, ids));
+        return written;
+    }
+
+    /**
+     * Writes every transition in its own transaction, so a failing one does
+     * not roll back the others. The failing ones are logged and dropped.
+     *
+     * @param transitions The last transition of each order.
+     * @return The transitions written.
+     */
+    private List<Transition> writeOneByOne(Collection<Transition> transitions) {
+        List<Transition> written = new ArrayList<>();
+        for (Transition transition : transitions) {
+            try {
+                written.addAll(transactionTemplate.execute(status -> write(List.of(transition))));
+            } catch (RuntimeException e) {
+                log.error("Dropped the state transition {} after {} failed batch writes", transition, maxAttempts, e);
+            }
+        }
+        return written;
+    }
+
+    private static Collection<Transition> lastOfEachOrder(List<Transition> batch) {
+        Map<Integer, Transition> last = new LinkedHashMap<>();
+        batch.forEach(transition -> last.put(transition.orderId(), transition));
+        return last.values();
+    }
+
+    private static Map<OrderState, List<Integer>> byState(Collection<Transition> transitions) {
+        Map<OrderState, List<Integer>> byState = new LinkedHashMap<>();
+        transitions.forEach(transition -> byState.computeIfAbsent(transition.state(), key -> new ArrayList<>())
+                .add(transition.orderId()));
+        return byState;
+    }
+}
@@ -0,0 +1,44 @@
+package kitchen;
+
+import model.Product;
+import model.TYPE;
+
+/**
+ * The stations of the kitchen, each one working its own queue of tickets.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public enum Station {
+    /** Bakes the pizzas. */
+    PIZZA_OVEN,
+
+    /** Cooks the pastas. */
+    PASTA,
+
+    /** Serves the drinks. */
+    DRINKS;
+
+    /**
+     * Returns the station that prepares the given product.
+     *
+     * @param product The ordered product, possibly an uninitialized proxy.
+     * @return The station for the product's type.
+     */
+    public static Station of(Product product) {
+        return switch (TYPE.of(product)) {
+            case PIZZA -> PIZZA_OVEN;
+            case PASTA -> PASTA;
+            case DRINK -> DRINKS;
+        };
+    }
+
+    /**
+     * Returns the event bus topic of the station's tickets.
+     *
+     * @return The topic name.
+     */
+    public String topic() {
+        return "station/" + name();
+    }
+}
@@ -0,0 +1,144 @@
+package kitchen;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free work queue of one station.
+ * <p>
+ * At most {@code capacity} tickets wait in the queue and at most
+ * {@code slots} are being prepared at the same time. Room in the queue is
+ * reserved before a ticket is added, so an order is only admitted once
+ * every station it needs has room for it.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+final class StationQueue {
+    private final Queue<Ticket> tickets = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger cooking = new AtomicInteger();
+    private final LongAdder taken = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final int slots;
+    private final int capacity;
+
+    StationQueue(int slots, int capacity) {
+        this.slots = slots;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Reserves room for one ticket.
+     *
+     * @return Whether the queue had room.
+     */
+    boolean reserve() {
+        int current;
+        do {
+            current = queued.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!queued.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Gives back a reservation that will not be used.
+     */
+    void unreserve() {
+        queued.decrementAndGet();
+    }
+
+    /**
+     * Adds a ticket whose room was reserved.
+     *
+     * @param ticket The ticket to queue.
+     */
+    void add(Ticket ticket) {
+        tickets.add(ticket);
+    }
+
+    /**
+     * Takes the oldest ticket if a slot is free.
+     *
+     * @return The ticket, or null if the queue is empty or every slot is busy.
+     */
+    Ticket take() {
+        int current;
+        do {
+            current = cooking.get();
+            if (current >= slots) {
+                return null;
+            }
+        } while (!cooking.compareAndSet(current, current + 1));
+        Ticket ticket = tickets.poll();
+        if (ticket == null) {
+            cooking.decrementAndGet();
+            return null;
+        }
+        queued.decrementAndGet();
+        taken.increment();
+        long waited = System.nanoTime() - ticket.queuedAt();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+        return ticket;
+    }
+
+    /**
+     * Frees the slot of a ticket that was taken.
+     *
+     * @param done Whether the ticket was prepared, as opposed to dropped.
+     */
+    void release(boolean done) {
+        cooking.decrementAndGet();
+        if (done) {
+            completed.increment();
+        }
+    }
+
+    Collection<Ticket> tickets() {
+        return Collections.unmodifiableCollection(tickets);
+    }
+
+    long queued() {
+        return queued.get();
+    }
+
+    long cooking() {
+        return cooking.get();
+    }
+
+    long taken() {
+        return taken.sum();
+    }
+
+    long completed() {
+        return completed.sum();
+    }
+
+    long waitNanos() {
+        return waitNanos.sum();
+    }
+
+    long maxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    int slots() {
+        return slots;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
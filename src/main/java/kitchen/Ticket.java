@@ -0,0 +1,30 @@
+package kitchen;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * The part of an order that a single station has to prepare.
+ *
+ * @param id         Unique identifier of the ticket, used to mark it done.
+ * @param orderId    The order the ticket belongs to.
+ * @param customerId The customer that placed the order.
+ * @param station    The station that prepares the ticket.
+ * @param items      The products to prepare.
+ * @param queuedAt   {@link System#nanoTime()} when the order reached the kitchen.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record Ticket(long id, int orderId, long customerId, Station station, List<Item> items, @JsonIgnore long queuedAt) {
+
+    /**
+     * A product of the ticket.
+     *
+     * @param productId   The id of the product.
+     * @param productName The name of the product.
+     * @param amount      How many units to prepare.
+     */
+    public record Item(int productId, String productName, int amount) {
+    }
+}
@@ -0,0 +1,26 @@
+package kitchen;
+
+/**
+ * Pushed to a station's event stream every time one of its tickets moves.
+ *
+ * @param status What happened to the ticket.
+ * @param ticket The ticket.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record TicketEvent(Status status, Ticket ticket) {
+
+    /**
+     * The steps of a ticket at its station.
+     */
+    public enum Status {
+        /** The ticket entered the station queue. */
+        QUEUED,
+
+        /** A cook took the ticket. */
+        COOKING,
+
+        /** The ticket was prepared. */
+        DONE;
+    }
+}
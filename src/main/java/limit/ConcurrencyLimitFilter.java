@@ -0,0 +1,103 @@
+package limit;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Applies the {@link ConcurrencyLimiter} to every request of an
+ * {@link EndpointGroup}. A rejected request gets a 503 with a
+ * {@code Retry-After} header straight away, before it reaches a controller
+ * or asks for a connection.
+ * <p>
+ * Streamed responses, the customer listing and the file exports, keep their
+ * permit until the stream completes, times out or fails. Their duration
+ * depends on how much they send, not on how loaded the database is, so it
+ * is not fed to the limit of their group; server errors, timeouts and
+ * stream errors still count as failures and shrink it.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+@ConditionalOnProperty(name = "limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    @Autowired
+    private ConcurrencyLimiter limiter;
+    @Value("${limit.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointGroup group = EndpointGroup.of(request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()));
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire(group);
+        if (permit == null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many " + group.tag() + " requests, try again later");
+            return;
+        }
+        boolean async = false;
+        boolean streamed = false;
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+            streamed = request.isAsyncStarted();
+            if (streamed) {
+                try {
+                    request.getAsyncContext().addListener(releaseOnEnd(permit, response));
+                    // The stream may have completed on another thread before the listener was added
+                    async = request.isAsyncStarted();
+                } catch (IllegalStateException e) {
+                    // It completed before its context could be read, so the permit is released below
+                }
+            }
+        } finally {
+            if (!async) {
+                permit.release(failed, !streamed);
+            }
+        }
+    }
+
+    private static AsyncListener releaseOnEnd(ConcurrencyLimiter.Permit permit, HttpServletResponse response) {
+        return new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                permit.release(response.getStatus() >= 500, false);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                permit.release(true, false);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                permit.release(true, false);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        };
+    }
+}
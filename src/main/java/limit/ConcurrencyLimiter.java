@@ -0,0 +1,156 @@
+package limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits or rejects requests by {@link EndpointGroup}, so that when the
+ * database slows down the excess requests are turned away at once instead
+ * of holding a request thread while they wait for a connection.
+ * <p>
+ * Each group has its own {@link GradientLimit}, fed with the latency of its
+ * requests. Order placement comes first: while half or more of its limit is
+ * in use, customer reads and admin requests are only admitted up to
+ * {@code limit.yield-share} of their own limits, and admin requests yield in
+ * the same way to customer reads.
+ * </p>
+ * <p>
+ * The limit, the requests running and the rejected requests of every group
+ * are published as {@code pizzeria.limit}, {@code pizzeria.limit.inflight}
+ * and {@code pizzeria.limit.rejected}.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class ConcurrencyLimiter {
+    private final Map<EndpointGroup, Partition> partitions = new EnumMap<>(EndpointGroup.class);
+    private final double yieldShare;
+
+    /**
+     * The limit and the running requests of one group.
+     */
+    private record Partition(GradientLimit limit, AtomicInteger inflight, Counter rejected) {
+        boolean busy() {
+            return inflight.get() * 2 >= limit.current();
+        }
+    }
+
+    /**
+     * A request that was admitted, to be released when it completes.
+     */
+    public final class Permit {
+        private final Partition partition;
+        private final int inflight;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Partition partition, int inflight) {
+            this.partition = partition;
+            this.inflight = inflight;
+        }
+
+        /**
+         * Releases the permit and feeds its latency to the limit of its group.
+         * Only the first call counts, so every way a request can end may call it.
+         *
+         * @param failed Whether the request failed on the server.
+         */
+        public void release(boolean failed) {
+            release(failed, true);
+        }
+
+        /**
+         * Releases the permit, feeding its latency to the limit of its group
+         * only when asked to. A failure always cuts the limit. Only the first
+         * call counts, so every way a request can end may call it.
+         *
+         * @param failed Whether the request failed on the server.
+         * @param sample Whether its latency says how loaded the group is. Bulk streams take as long as their data.
+         */
+        public void release(boolean failed, boolean sample) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            partition.inflight().decrementAndGet();
+            if (failed || sample) {
+                partition.limit().onSample(System.nanoTime() - startNanos, inflight, failed);
+            }
+        }
+    }
+
+    public ConcurrencyLimiter(MeterRegistry meterRegistry,
+                              @Value("${limit.min-limit:2}") int minLimit,
+                              @Value("${limit.tolerance:1.5}") double tolerance,
+                              @Value("${limit.smoothing:0.2}") double smoothing,
+                              @Value("${limit.yield-share:0.5}") double yieldShare,
+                              @Value("${limit.order-placement.max-limit:100}") int orderPlacementMax,
+                              @Value("${limit.customer-reads.max-limit:100}") int customerReadsMax,
+                              @Value("${limit.admin.max-limit:10}") int adminMax) {
+        this.yieldShare = yieldShare;
+        Map<EndpointGroup, Integer> maxLimits = Map.of(EndpointGroup.ORDER_PLACEMENT, orderPlacementMax,
+                EndpointGroup.CUSTOMER_READS, customerReadsMax, EndpointGroup.ADMIN, adminMax);
+        for (EndpointGroup group : EndpointGroup.values()) {
+            Partition partition = new Partition(new GradientLimit(minLimit, maxLimits.get(group), tolerance, smoothing),
+                    new AtomicInteger(), Counter.builder("pizzeria.limit.rejected")
+                    .description("Requests rejected because their endpoint group was at its concurrency limit")
+                    .tag("group", group.tag())
+                    .register(meterRegistry));
+            Gauge.builder("pizzeria.limit", partition.limit(), GradientLimit::current)
+                    .description("Requests of the endpoint group allowed to run at once")
+                    .tag("group", group.tag())
+                    .register(meterRegistry);
+            Gauge.builder("pizzeria.limit.inflight", partition.inflight(), AtomicInteger::get)
+                    .description("Requests of the endpoint group running")
+                    .tag("group", group.tag())
+                    .register(meterRegistry);
+            partitions.put(group, partition);
+        }
+    }
+
+    /**
+     * Admits a request if its group is under its limit.
+     *
+     * @param group The group of the request.
+     * @return The permit to release when the request completes, or {@code null} if it is rejected.
+     */
+    public Permit tryAcquire(EndpointGroup group) {
+        Partition partition = partitions.get(group);
+        int limit = partition.limit().current();
+        for (EndpointGroup before : EndpointGroup.values()) {
+            if (before.ordinal() < group.ordinal() && partitions.get(before).busy()) {
+                limit = Math.max(1, (int) (limit * yieldShare));
+                break;
+            }
+        }
+        while (true) {
+            int inflight = partition.inflight().get();
+            if (inflight >= limit) {
+                partition.rejected().increment();
+                return null;
+            }
+            if (partition.inflight().compareAndSet(inflight, inflight + 1)) {
+                return new Permit(partition, inflight + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the current limit of a group.
+     *
+     * @param group The group.
+     * @return The requests of the group allowed to run at once.
+     */
+    public int limit(EndpointGroup group) {
+        return partitions.get(group).limit().current();
+    }
+}
@@ -0,0 +1,66 @@
+package limit;
+
+/**
+ * The groups of endpoints that share a concurrency limit, in order of
+ * priority: while a group is busy, the groups after it get a smaller share
+ * of their limits.
+ * <p>
+ * Only endpoints that wait on the database are limited. The menu, the
+ * product search and the kitchen are answered from memory, and the event
+ * streams hold no connection while they are open.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public enum EndpointGroup {
+    ORDER_PLACEMENT("order-placement"),
+    CUSTOMER_READS("customer-reads"),
+    ADMIN("admin");
+
+    private final String tag;
+
+    EndpointGroup(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Returns the name of the group in the metrics and properties.
+     *
+     * @return The name, in kebab case.
+     */
+    public String tag() {
+        return tag;
+    }
+
+    /**
+     * Returns the group of a request.
+     *
+     * @param method The HTTP method.
+     * @param path   The path, without the context path.
+     * @return The group, or {@code null} if the request is not limited.
+     */
+    public static EndpointGroup of(String method, String path) {
+        boolean read = method.equals("GET");
+        // Event streams, of orders, kitchen stations or imports, stay open without holding a connection
+        if (path.endsWith("/events")) {
+            return null;
+        }
+        if (path.equals("/api/orders") && method.equals("POST")) {
+            return ORDER_PLACEMENT;
+        }
+        if (path.startsWith("/api/orders")) {
+            return read ? CUSTOMER_READS : ADMIN;
+        }
+        if (path.startsWith("/api/customers")) {
+            return read ? CUSTOMER_READS : ADMIN;
+        }
+        if (path.startsWith("/api/products")) {
+            return read ? null : ADMIN;
+        }
+        if (path.startsWith("/api/files") || path.startsWith("/api/sales") || path.startsWith("/api/analytics")) {
+            return ADMIN;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,98 @@
+package limit;
+
+/**
+ * Concurrency limit that follows the latency of the requests it admits.
+ * <p>
+ * Every completed request is a sample. A short average of the latency is
+ * compared with a long one: while they agree the limit grows by about its
+ * square root, and when the short one rises above {@code tolerance} times
+ * the long one the limit shrinks in proportion, never by more than half.
+ * Each new value is smoothed into the current one. A failed request cuts
+ * the limit by a fixed factor instead, as in AIMD.
+ * </p>
+ * <p>
+ * Samples taken while less than half the limit is in use say nothing about
+ * the limit and only update the averages.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public class GradientLimit {
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private double limit;
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+    private volatile int current;
+
+    /**
+     * Creates a limit, starting at its maximum.
+     *
+     * @param minLimit  The lowest limit.
+     * @param maxLimit  The highest limit, and the first one.
+     * @param tolerance How much the short latency may exceed the long one before the limit shrinks.
+     * @param smoothing The weight of each new value of the limit, between 0 and 1.
+     */
+    public GradientLimit(int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = maxLimit;
+        this.current = maxLimit;
+    }
+
+    /**
+     * Returns the number of requests that may run at once.
+     *
+     * @return The current limit.
+     */
+    public int current() {
+        return current;
+    }
+
+    /**
+     * Updates the limit with a completed request.
+     *
+     * @param rttNanos The time the request took.
+     * @param inflight The requests running when it started, itself included.
+     * @param failed   Whether the request failed.
+     */
+    public synchronized void onSample(long rttNanos, int inflight, boolean failed) {
+        if (failed) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            current = (int) limit;
+            return;
+        }
+        samples++;
+        if (samples == 1) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        } else {
+            shortRtt += (rttNanos - shortRtt) / Math.min(samples, SHORT_WINDOW);
+            longRtt += (rttNanos - longRtt) / Math.min(samples, LONG_WINDOW);
+        }
+        // After a long slow period the long average would keep the limit down; let it catch up
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        if (inflight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        update(limit * gradient + Math.sqrt(limit));
+    }
+
+    private void update(double next) {
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + next * smoothing));
+        current = (int) limit;
+    }
+}
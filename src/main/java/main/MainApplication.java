@@ -2,6 +2,8 @@ package main;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 /**
  * The Main class serves as the entry point for the Pizzeria application.
@@ -13,7 +15,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @author DaniAndries
  * @version 0.1
  */
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = {"main", "config", "controller", "service", "repository", "cache", "kitchen", "events", "payment", "limit"})
+@EnableJpaRepositories(basePackages = "repository")
+@EntityScan(basePackages = "model")
 public class MainApplication {
     /**
      * The main method that executes the application.
@@ -0,0 +1,56 @@
+package model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.util.Date;
+
+/**
+ * A delivered or canceled order moved out of {@code customer_order} once it
+ * is older than the retention window.
+ * <p>
+ * Rows are written by the archival job with plain SQL and never change. The
+ * archive has no foreign keys, so the customer and the payable are kept by
+ * id only.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Entity
+@Immutable
+@Data
+@AllArgsConstructor
+//Genera constructor con parámetros
+@NoArgsConstructor
+//Genera constructor sin parámetros
+@Table(name = "customer_order_archive", indexes = {
+        @Index(name = "idx_order_archive_customer", columnList = "customer_id, id"),
+        @Index(name = "idx_order_archive_state_date", columnList = "state, order_date")})
+public class ArchivedOrder {
+    @Id
+    private int id;
+    @Column(name = "order_date")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date orderDate;
+    @Enumerated(EnumType.STRING)
+    private OrderState state;
+    @Column(name = "payable_id")
+    private Integer payableId;
+    @Column(name = "payment_method")
+    private PaymentMethod paymentMethod;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status")
+    private PaymentStatus paymentStatus;
+    private double total;
+    @Column(name = "item_count")
+    private int itemCount;
+    @Column(name = "customer_id", nullable = false)
+    private long customerId;
+    @Column(name = "archived_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date archivedAt; // When the archival job moved the order
+}
@@ -0,0 +1,37 @@
+package model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * A line of an {@link ArchivedOrder}. The product name is copied when the
+ * line is archived, so the history still reads well after the product
+ * leaves the menu.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Entity
+@Immutable
+@Data
+@AllArgsConstructor
+//Genera constructor con parámetros
+@NoArgsConstructor
+//Genera constructor sin parámetros
+@Table(name = "order_line_archive", indexes = @Index(name = "idx_order_line_archive_order", columnList = "order_id"))
+public class ArchivedOrderLine {
+    @Id
+    private int id;
+    @Column(name = "order_id", nullable = false)
+    private int orderId;
+    @Column(name = "product_id")
+    private Integer productId;
+    @Column(name = "product_name")
+    private String productName;
+    private int amount;
+    @Column(name = "unit_price")
+    private double unitPrice;
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +38,8 @@ public class Customer {
     private String mail; // Email address of the customer
     private String password; // Password for the customer's account
     @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Order> orderList = new ArrayList<>(); // List of orders made by the customer
     private boolean admin = false; // Flag indicating if the customer has admin privileges
 }
@@ -0,0 +1,37 @@
+package model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Precomputed sales of one product on one day.
+ * <p>
+ * The row is updated every time an order with the product changes state,
+ * instead of being aggregated from the orders when it is read. Units and
+ * revenue of finished and delivered orders count as sold; those of
+ * canceled orders are kept apart. Pending orders do not count yet.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Entity
+@Data
+@AllArgsConstructor
+//Genera constructor con parámetros
+@NoArgsConstructor
+//Genera constructor sin parámetros
+@Table(name = "daily_product_sales")
+public class DailyProductSales {
+    @EmbeddedId
+    private DailyProductSalesId id;
+    @Column(name = "units_sold")
+    private int unitsSold; // Units in finished and delivered orders
+    private double revenue; // Revenue of the units sold
+    @Column(name = "units_canceled")
+    private int unitsCanceled; // Units in canceled orders
+    @Column(name = "canceled_revenue")
+    private double canceledRevenue; // Revenue lost to canceled orders
+}
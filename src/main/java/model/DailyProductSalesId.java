@@ -0,0 +1,27 @@
+package model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Key of a {@link DailyProductSales} row: one product on one day.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyProductSalesId implements Serializable {
+    @Column(name = "sales_day")
+    private LocalDate day; // Day the orders were placed
+    @Column(name = "product_id")
+    private int productId; // Product that was ordered
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -12,8 +13,9 @@ import java.util.List;
 
 /**
  * Represents an order in the system, containing details about the customer,
- * order lines, payment method, and order state. This class manages the
- * details of an order and allows for the calculation of the total order price.
+ * order lines, payment method, and order state. The total price and the
+ * number of items are stored with the order when it is saved, so they can
+ * be read without loading the order lines.
  *
  * @author DaniAndries
  * @version 0.1
@@ -25,22 +27,41 @@ import java.util.List;
 @NoArgsConstructor
 //Genera constructor sin parámetros
 @EqualsAndHashCode
-@Table(name = "customer_order")
+@Table(name = "customer_order", indexes = {
+        @Index(name = "idx_customer_order_customer_state", columnList = "customer_id, state"),
+        @Index(name = "idx_customer_order_state_date", columnList = "state, order_date"),
+        @Index(name = "idx_customer_order_payment_status", columnList = "payment_status")})
+@NamedEntityGraph(name = "Order.history",
+        attributeNodes = {
+                @NamedAttributeNode("customer"),
+                @NamedAttributeNode("payable"),
+                @NamedAttributeNode(value = "orderLines", subgraph = "Order.history.lines")
+        },
+        subgraphs = @NamedSubgraph(name = "Order.history.lines", attributeNodes = @NamedAttributeNode("product")))
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_order_seq")
+    @SequenceGenerator(name = "customer_order_seq", sequenceName = "customer_order_seq", allocationSize = 50)
     private int id;
     @Column(name = "order_date")
-    @Temporal(TemporalType.DATE)
-    private Date orderDate;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date orderDate; // Moment the order was placed
     @Enumerated(EnumType.STRING)
     private OrderState state;
     @OneToOne
     private Payable payable;
     private PaymentMethod paymentMethod;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", updatable = false) // Only changed by the bulk updates of OrderRepository
+    private PaymentStatus paymentStatus; // Settlement of a card payment, null for other payment methods
+    private double total; // Sum of the order lines at the prices they were ordered at
+    @Column(name = "item_count")
+    private int itemCount; // Units ordered across all the order lines
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<OrderLine> orderLines = new ArrayList<>();
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
 }
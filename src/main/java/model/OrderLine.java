@@ -6,8 +6,6 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
-import javax.lang.model.element.Name;
-
 /**
  * Represents a line item in an order, including the product and its quantity.
  * This class calculates the total price for the product line based on the quantity ordered.
@@ -22,15 +20,26 @@ import javax.lang.model.element.Name;
 @NoArgsConstructor
 //Genera constructor sin parámetros
 @EqualsAndHashCode
-@Table(name = "order_line")
+@Table(name = "order_line", indexes = @Index(name = "idx_order_line_order", columnList = "order_id"))
+@NamedEntityGraph(name = "OrderLine.detail",
+        attributeNodes = {
+                @NamedAttributeNode("product"),
+                @NamedAttributeNode(value = "order", subgraph = "OrderLine.detail.order")
+        },
+        subgraphs = @NamedSubgraph(name = "OrderLine.detail.order",
+                attributeNodes = {@NamedAttributeNode("customer"), @NamedAttributeNode("payable")}))
 public class OrderLine {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_line_seq")
+    @SequenceGenerator(name = "order_line_seq", sequenceName = "order_line_seq", allocationSize = 50)
     private int id;
     private int amount;
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
-    private Product product;
-    @ManyToOne(cascade = CascadeType.ALL)
+    @Column(name = "unit_price")
+    private double unitPrice; // Price of the product when it was ordered
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id")
+    private Product product; // Menu product ordered, shared by every line that orders it
+    @ManyToOne
     @JoinColumn(name = "order_id", nullable = false) // Explicit join column
     private Order order;
 }
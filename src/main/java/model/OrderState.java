@@ -30,4 +30,14 @@ public enum OrderState {
 
     /** The order has been canceled and will not be processed. */
     CANCELED;
+
+    /**
+     * Tells whether the order has left the kitchen for good, so no later
+     * kitchen or payment transition applies to it any more.
+     *
+     * @return True for delivered and canceled orders.
+     */
+    public boolean isFinal() {
+        return this == DELIVERED || this == CANCELED;
+    }
 }
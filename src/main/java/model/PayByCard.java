@@ -9,8 +9,8 @@ import lombok.NoArgsConstructor;
 /**
  * Represents a payment method where the payment is made using a card.
  * <p>
- * This class implements the {@link Payable} interface, providing the
- * functionality to handle card payments.
+ * This class implements the {@link Payable} interface for card payments,
+ * which are charged in the background by the {@link payment.PaymentPipeline}.
  * </p>
  *
  * @author DaniAndries
@@ -22,16 +22,6 @@ import lombok.NoArgsConstructor;
 //Genera constructor sin parámetros
 @EqualsAndHashCode
 public class PayByCard extends Payable {
-    /**
-     * Processes a card payment for the specified amount.
-     *
-     * @param amount The amount of money to be paid.
-     */
-    @Override
-    public void pay(double amount) {
-        System.out.println("You have paid: " + amount + "€ by card");
-    }
-
     @Override
     public int paymentMethod() {
         return 0;
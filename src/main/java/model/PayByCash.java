@@ -9,8 +9,8 @@ import lombok.NoArgsConstructor;
 /**
  * Represents a payment method where the payment is made using cash.
  * <p>
- * This class implements the {@link Payable} interface, providing the
- * functionality to handle cash payments.
+ * This class implements the {@link Payable} interface for cash payments,
+ * which are collected when the order is handed over.
  * </p>
  *
  * @author DaniAndries
@@ -22,16 +22,6 @@ import lombok.NoArgsConstructor;
 //Genera constructor sin parámetros
 @EqualsAndHashCode
 public class PayByCash extends Payable {
-    /**
-     * Processes a cash payment for the specified amount.
-     *
-     * @param amount The amount of money to be paid.
-     */
-    @Override
-    public void pay(double amount) {
-        System.out.println("You have paid: " + amount + "€ in cash");
-    }
-
     @Override
     public int paymentMethod() {
         return 1;
@@ -11,10 +11,9 @@ import lombok.NoArgsConstructor;
 /**
  * Represents a general payment method.
  * <p>
- * This interface defines a contract for any class that implements it to provide
- * a mechanism for processing payments. Classes implementing this interface
- * should define the logic for how payments are handled, whether by cash, card,
- * or any other payment method.
+ * Each subclass records how an order is paid, whether by cash, card, or any
+ * other payment method. The payments themselves are not processed here: card
+ * payments are charged in the background by the {@link payment.PaymentPipeline}.
  * </p>
  *
  * @author DaniAndries
@@ -35,16 +34,10 @@ import lombok.NoArgsConstructor;
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 public abstract class Payable {
     @Id
-    @GeneratedValue(strategy=GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payable_seq")
+    @SequenceGenerator(name = "payable_seq", sequenceName = "payable_seq", allocationSize = 50)
     private int id;
 
-    /**
-     * Processes a payment for the specified amount.
-     *
-     * @param amount The amount of money to be paid.
-     */
-    public abstract  void pay(double amount);
-
     public abstract int paymentMethod();
 
     public int getId() {
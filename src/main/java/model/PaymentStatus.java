@@ -0,0 +1,38 @@
+package model;
+
+/**
+ * Represents the settlement of an order paid by card.
+ * <p>
+ * Card payments are charged after the order is placed, so an order starts
+ * {@link #PENDING} and moves to one of the other states once the payment
+ * provider has answered. Orders paid otherwise have no payment status.
+ * </p>
+ *
+ * <p>Payment States:</p>
+ * <ul>
+ *   <li><strong>PENDING:</strong> The payment has not been settled yet.</li>
+ *   <li><strong>PAID:</strong> The payment was approved.</li>
+ *   <li><strong>DECLINED:</strong> The payment was refused and the order canceled.</li>
+ *   <li><strong>FAILED:</strong> The provider could not be reached after every retry and the order was canceled.</li>
+ *   <li><strong>VOIDED:</strong> The order was canceled before the payment was settled, so it is not charged.</li>
+ * </ul>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public enum PaymentStatus {
+    /** The payment has not been settled yet. */
+    PENDING,
+
+    /** The payment was approved. */
+    PAID,
+
+    /** The payment was refused and the order canceled. */
+    DECLINED,
+
+    /** The provider could not be reached after every retry and the order was canceled. */
+    FAILED,
+
+    /** The order was canceled before the payment was settled, so it is not charged. */
+    VOIDED;
+}
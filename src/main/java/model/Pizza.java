@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,10 +28,10 @@ import java.util.List;
 @NoArgsConstructor
 //Genera constructor sin parámetros
 @EqualsAndHashCode
-@SequenceGenerator(name="customer_seq", sequenceName="hibernate_sequence", allocationSize=1)
 public class Pizza extends Product {
 
     @ManyToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(
             name = "Product_Ingredient",
             joinColumns = @JoinColumn(name = "product_id"),
@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 
 /**
@@ -34,9 +36,13 @@ import org.hibernate.annotations.Type;
         @JsonSubTypes.Type(value = Drink.class, name = "drink")
 })
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
+// Cached in the second-level cache for the whole hierarchy, Pizza, Pasta and Drink included
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public abstract class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private int id;
     @Column(unique = true, nullable = false)
     private String name;
@@ -1,7 +1,26 @@
 package model;
 
+import org.hibernate.Hibernate;
+
 public enum TYPE {
     PIZZA,
     PASTA,
     DRINK;
+
+    /**
+     * Returns the type of a product from its class.
+     *
+     * @param product The product, possibly an uninitialized proxy.
+     * @return The type of the product.
+     */
+    public static TYPE of(Product product) {
+        Object unproxied = Hibernate.unproxy(product);
+        if (unproxied instanceof Pizza) {
+            return PIZZA;
+        }
+        if (unproxied instanceof Pasta) {
+            return PASTA;
+        }
+        return DRINK;
+    }
 }
@@ -0,0 +1,68 @@
+package payment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for a payment provider, used unless another gateway is
+ * configured ({@code payment.gateway=fake}).
+ * <p>
+ * Every batch takes {@code payment.fake.latency} to answer. Each payment
+ * fails with probability {@code payment.fake.failure-rate}, so it is
+ * retried, and is declined with probability {@code payment.fake.decline-rate};
+ * the rest are approved. Both rates are 0 unless set, so a real order is
+ * never canceled by a made-up decline. Refunds always succeed.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "fake", matchIfMissing = true)
+public class FakePaymentGateway implements PaymentGateway {
+    private final Duration latency;
+    private final double failureRate;
+    private final double declineRate;
+
+    public FakePaymentGateway(@Value("${payment.fake.latency:150ms}") Duration latency,
+                              @Value("${payment.fake.failure-rate:0}") double failureRate,
+                              @Value("${payment.fake.decline-rate:0}") double declineRate) {
+        this.latency = latency;
+        this.failureRate = failureRate;
+        this.declineRate = declineRate;
+    }
+
+    @Override
+    public List<Outcome> charge(List<Payment> payments) {
+        await("charging");
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Outcome> outcomes = new ArrayList<>(payments.size());
+        for (int i = 0; i < payments.size(); i++) {
+            double draw = random.nextDouble();
+            outcomes.add(draw < failureRate ? Outcome.FAILED
+                    : draw < failureRate + declineRate ? Outcome.DECLINED
+                    : Outcome.APPROVED);
+        }
+        return outcomes;
+    }
+
+    @Override
+    public void refund(List<Payment> payments) {
+        await("refunding");
+    }
+
+    private void await(String action) {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while " + action, e);
+        }
+    }
+}
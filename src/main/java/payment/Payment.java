@@ -0,0 +1,13 @@
+package payment;
+
+/**
+ * A card payment to be charged for an order.
+ *
+ * @param orderId    The id of the order.
+ * @param customerId The customer that placed the order.
+ * @param amount     The amount to charge.
+ * @author DaniAndries
+ * @version 0.1
+ */
+public record Payment(int orderId, long customerId, double amount) {
+}
@@ -0,0 +1,49 @@
+package payment;
+
+import java.util.List;
+
+/**
+ * Payment provider that card payments are charged through.
+ * <p>
+ * The {@link PaymentPipeline} calls it from its own thread, one batch at a
+ * time, so implementations may block while they wait for the provider.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface PaymentGateway {
+
+    /**
+     * Answer of the provider for one payment.
+     */
+    enum Outcome {
+        /** The payment was charged. */
+        APPROVED,
+
+        /** The payment was refused and must not be tried again. */
+        DECLINED,
+
+        /** The payment could not be processed this time and may be tried again. */
+        FAILED
+    }
+
+    /**
+     * Charges a batch of payments.
+     *
+     * @param payments The payments to charge.
+     * @return The outcome of every payment, in the same order as the payments.
+     * @throws RuntimeException If the provider could not be reached. Every payment of the batch is then tried again.
+     */
+    List<Outcome> charge(List<Payment> payments);
+
+    /**
+     * Gives back payments that were charged for orders canceled or deleted
+     * while they were being charged. The order id is the idempotency key, so
+     * a refund sent twice is only made once.
+     *
+     * @param payments The payments to refund.
+     * @throws RuntimeException If the provider could not be reached. The refunds are then sent again.
+     */
+    void refund(List<Payment> payments);
+}
@@ -0,0 +1,326 @@
+package payment;
+
+import config.ReplicaRouting;
+import dto.OrderStatusEvent;
+import dto.PaymentStatusEvent;
+import events.OrderEventBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kitchen.KitchenDispatcher;
+import kitchen.OrderStateWriter;
+import model.OrderState;
+import model.PaymentStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.OrderRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settles card payments in the background, so placing an order never waits
+ * for the payment provider.
+ * <p>
+ * Orders hand their payment over with {@link #submit(Payment)} once they are
+ * committed. A dedicated thread takes the queued payments on a fixed delay
+ * and charges them through the {@link PaymentGateway} in batches. Payments
+ * that fail are tried again after an exponential backoff with jitter, up to
+ * {@code payment.retry.max-attempts} times.
+ * </p>
+ * <p>
+ * The outcomes of a batch are stored with one {@code UPDATE} per payment
+ * status. Paid orders carry on in the kitchen; declined orders, and those
+ * whose payment kept failing, are canceled through the
+ * {@link OrderStateWriter}. Every settled payment is pushed to the
+ * customer's event stream as a "payment" event.
+ * </p>
+ * <p>
+ * Canceling or deleting an order voids its pending payment. Payments whose
+ * order is no longer pending are dropped before they are charged, and those
+ * charged while their order was being canceled are refunded instead of
+ * stored as paid.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Component
+public class PaymentPipeline {
+    private final PaymentGateway gateway;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderStateWriter stateWriter;
+    private final KitchenDispatcher kitchenDispatcher;
+    private final OrderEventBus eventBus;
+    private final long intervalMs;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final Queue<Attempt> submitted = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<PaymentStatus, Counter> settled = new EnumMap<>(PaymentStatus.class);
+    private final ScheduledExecutorService settler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("payments").daemon().factory());
+
+    // Only used by the settling thread
+    private final PriorityQueue<Attempt> retries = new PriorityQueue<>(Comparator.comparingLong(Attempt::dueNanos));
+    private List<Settlement> unwritten = List.of();
+    private List<Payment> unrefunded = List.of();
+
+    /**
+     * A payment waiting to be charged.
+     *
+     * @param payment  The payment.
+     * @param attempts The number of times it was already sent to the provider.
+     * @param dueNanos When it may be sent again, on the {@link System#nanoTime()} scale.
+     */
+    private record Attempt(Payment payment, int attempts, long dueNanos) {
+    }
+
+    /**
+     * The final status of a payment.
+     *
+     * @param payment  The payment.
+     * @param status   Its status, anything but pending. Voided when the order was canceled before it was charged.
+     * @param attempts The number of times it was sent to the provider.
+     */
+    private record Settlement(Payment payment, PaymentStatus status, int attempts) {
+    }
+
+    public PaymentPipeline(PaymentGateway gateway, OrderRepository orderRepository, TransactionTemplate transactionTemplate,
+                           OrderStateWriter stateWriter, KitchenDispatcher kitchenDispatcher, OrderEventBus eventBus,
+                           MeterRegistry meterRegistry,
+                           @Value("${payment.settle.interval-ms:100}") long intervalMs,
+                           @Value("${payment.settle.batch-size:100}") int batchSize,
+                           @Value("${payment.retry.max-attempts:5}") int maxAttempts,
+                           @Value("${payment.retry.initial-backoff:500ms}") Duration initialBackoff,
+                           @Value("${payment.retry.max-backoff:30s}") Duration maxBackoff) {
+        this.gateway = gateway;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.stateWriter = stateWriter;
+        this.kitchenDispatcher = kitchenDispatcher;
+        this.eventBus = eventBus;
+        this.intervalMs = intervalMs;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        for (PaymentStatus status : PaymentStatus.values()) {
+            if (status != PaymentStatus.PENDING) {
+                settled.put(status, Counter.builder("pizzeria.payments")
+                        .description("Card payments settled, by status")
+                        .tag("status", status.name())
+                        .register(meterRegistry));
+            }
+        }
+        Gauge.builder("pizzeria.payments.pending", queued, AtomicInteger::get)
+                .description("Card payments waiting to be charged, retries included")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        settler.scheduleWithFixedDelay(this::settle, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        settler.shutdownNow();
+    }
+
+    /**
+     * Sends the card payments that were still pending when the application
+     * stopped back to the provider. Providers are expected to use the order
+     * id as idempotency key, so a payment charged just before the stop is
+     * not charged twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void submitPendingPayments() {
+        ReplicaRouting.onPrimary(() -> orderRepository.findPaymentsByPaymentStatus(PaymentStatus.PENDING)).forEach(this::submit);
+    }
+
+    /**
+     * Queues a card payment to be charged. It never blocks.
+     *
+     * @param payment The payment of a committed order.
+     */
+    public void submit(Payment payment) {
+        queued.incrementAndGet();
+        submitted.add(new Attempt(payment, 0, 0));
+    }
+
+    /**
+     * Charges every due payment, one batch at a time, and stores the
+     * outcomes. Settlements that could not be stored, and refunds that
+     * could not be sent, are handled first on the next run; a batch whose
+     * orders could not be read is retried after a backoff.
+     */
+    void settle() {
+        try {
+            refund();
+            if (!unwritten.isEmpty()) {
+                unrefunded = write(unwritten);
+                unwritten = List.of();
+                refund();
+            }
+            List<Attempt> batch;
+            while (!(batch = nextBatch()).isEmpty()) {
+                unwritten = charge(batch);
+                unrefunded = write(unwritten);
+                unwritten = List.of();
+                refund();
+            }
+        } catch (RuntimeException e) {
+            // Keep the settling thread scheduled: report the error and try again on the next run.
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    private void refund() {
+        if (!unrefunded.isEmpty()) {
+            gateway.refund(unrefunded);
+            unrefunded = List.of();
+        }
+    }
+
+    private List<Attempt> nextBatch() {
+        List<Attempt> batch = new ArrayList<>();
+        long now = System.nanoTime();
+        while (batch.size() < batchSize && !retries.isEmpty() && retries.peek().dueNanos() - now <= 0) {
+            batch.add(retries.poll());
+        }
+        Attempt attempt;
+        while (batch.size() < batchSize && (attempt = submitted.poll()) != null) {
+            batch.add(attempt);
+        }
+        return batch;
+    }
+
+    private List<Settlement> charge(List<Attempt> due) {
+        List<Settlement> settlements = new ArrayList<>();
+        Set<Integer> pending;
+        try {
+            pending = new HashSet<>(ReplicaRouting.onPrimary(() -> orderRepository.findPendingPaymentIds(
+                    due.stream().map(attempt -> attempt.payment().orderId()).toList())));
+        } catch (RuntimeException e) {
+            // Nothing was charged yet: try the whole batch again after a backoff, then report the error
+            long now = System.nanoTime();
+            due.forEach(attempt -> retries.add(new Attempt(attempt.payment(), attempt.attempts(),
+                    now + backoff(attempt.attempts() + 1))));
+            throw e;
+        }
+        List<Attempt> batch = due.stream().filter(attempt -> {
+            if (pending.contains(attempt.payment().orderId())) {
+                return true;
+            }
+            settlements.add(new Settlement(attempt.payment(), PaymentStatus.VOIDED, attempt.attempts()));
+            return false;
+        }).toList();
+        if (batch.isEmpty()) {
+            return settlements;
+        }
+        List<PaymentGateway.Outcome> outcomes;
+        try {
+            outcomes = gateway.charge(batch.stream().map(Attempt::payment).toList());
+            if (outcomes.size() != batch.size()) {
+                throw new IllegalStateException("The gateway answered " + outcomes.size() + " of " + batch.size() + " payments");
+            }
+        } catch (RuntimeException e) {
+            outcomes = Collections.nCopies(batch.size(), PaymentGateway.Outcome.FAILED);
+        }
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            Payment payment = batch.get(i).payment();
+            int attempts = batch.get(i).attempts() + 1;
+            switch (outcomes.get(i)) {
+                case APPROVED -> settlements.add(new Settlement(payment, PaymentStatus.PAID, attempts));
+                case DECLINED -> settlements.add(new Settlement(payment, PaymentStatus.DECLINED, attempts));
+                case FAILED -> {
+                    if (attempts >= maxAttempts) {
+                        settlements.add(new Settlement(payment, PaymentStatus.FAILED, attempts));
+                    } else {
+                        retries.add(new Attempt(payment, attempts, now + backoff(attempts)));
+                    }
+                }
+            }
+        }
+        return settlements;
+    }
+
+    /**
+     * Returns the delay before the next attempt: the initial backoff doubled
+     * after every attempt, capped, and drawn between half and all of it so
+     * payments that failed together are not retried together.
+     */
+    private long backoff(int attempts) {
+        long backoff = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempts - 1, 20));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Stores the outcomes of the payments whose order is still pending, with
+     * the orders locked so a cancellation waits for them or they see it. The
+     * others are voided.
+     *
+     * @return The payments charged for orders that are no longer pending, to be refunded.
+     */
+    private List<Payment> write(List<Settlement> settlements) {
+        if (settlements.isEmpty()) {
+            return List.of();
+        }
+        Set<Integer> pending = transactionTemplate.execute(status -> {
+            Set<Integer> locked = new HashSet<>(orderRepository.lockPendingPayments(
+                    settlements.stream().map(settlement -> settlement.payment().orderId()).toList()));
+            Map<PaymentStatus, List<Integer>> byStatus = new LinkedHashMap<>();
+            settlements.stream().filter(settlement -> locked.contains(settlement.payment().orderId()))
+                    .forEach(settlement -> byStatus.computeIfAbsent(settlement.status(), key -> new ArrayList<>())
+                            .add(settlement.payment().orderId()));
+            byStatus.forEach((paymentStatus, ids) -> orderRepository.updatePaymentStatus(paymentStatus, ids));
+            return locked;
+        });
+        List<Payment> refunds = new ArrayList<>();
+        for (Settlement settlement : settlements) {
+            Payment payment = settlement.payment();
+            queued.decrementAndGet();
+            if (!pending.contains(payment.orderId())) {
+                if (settlement.status() == PaymentStatus.PAID) {
+                    refunds.add(payment);
+                }
+                settlement = new Settlement(payment, PaymentStatus.VOIDED, settlement.attempts());
+            }
+            settled.get(settlement.status()).increment();
+            if (settlement.status() == PaymentStatus.DECLINED || settlement.status() == PaymentStatus.FAILED) {
+                kitchenDispatcher.cancel(payment.orderId());
+                stateWriter.record(payment.orderId(), payment.customerId(), OrderState.CANCELED);
+            }
+            eventBus.publish(OrderStatusEvent.topic(payment.customerId()), "payment",
+                    new PaymentStatusEvent(payment.orderId(), payment.customerId(), settlement.status(), settlement.attempts()));
+        }
+        return refunds;
+    }
+}
@@ -0,0 +1,18 @@
+package repository;
+
+import dto.SalesLine;
+import model.ArchivedOrderLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ArchivedOrderLineRepository extends JpaRepository<ArchivedOrderLine, Integer> {
+    List<ArchivedOrderLine> findByOrderIdInOrderByIdAsc(Collection<Integer> orderIds);
+
+    @Query("select new dto.SalesLine(o.id, o.orderDate, o.state, l.productId, l.amount, l.unitPrice) "
+            + "from ArchivedOrderLine l join ArchivedOrder o on o.id = l.orderId where l.productId is not null")
+    Stream<SalesLine> streamSalesLines();
+}
@@ -0,0 +1,13 @@
+package repository;
+
+import model.ArchivedOrder;
+import model.OrderState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Integer> {
+    List<ArchivedOrder> findByCustomerIdOrderByIdAsc(long customerId);
+
+    List<ArchivedOrder> findByStateAndCustomerIdOrderByIdAsc(OrderState state, long customerId);
+}
@@ -1,14 +1,27 @@
 package repository;
 
+import dto.CustomerOrderRow;
+import dto.CustomerView;
 import model.Customer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, CustomerRepositoryCustom {
     boolean existsByDni(String dni);
     Optional<Customer> findByDni(String dni);
     Optional<Customer> findByMail(String mail);
-    List<Customer> findByName(String nombre);
+    List<Customer> findByCustomerName(String nombre);
+
+    @Query("select new dto.CustomerView(c.id, c.dni, c.customerName, c.direction, c.phone, c.mail, c.admin) "
+            + "from Customer c where c.id > :id order by c.id")
+    List<CustomerView> findViewsAfter(long id, Limit limit);
+
+    @Query("select new dto.CustomerOrderRow(c.id, c.dni, c.customerName, c.direction, c.phone, c.mail, c.admin, "
+            + "o.id, o.orderDate, o.state, o.paymentMethod, o.total) "
+            + "from Customer c left join c.orderList o where c.id = :id order by o.id")
+    List<CustomerOrderRow> findWithOrderSummaries(long id);
 }
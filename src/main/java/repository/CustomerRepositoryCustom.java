@@ -0,0 +1,33 @@
+package repository;
+
+import dto.CustomerView;
+import model.Customer;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Customer queries that are written by hand instead of being derived by Spring Data.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface CustomerRepositoryCustom {
+
+    /**
+     * Reads every customer ordered by id through a forward-only cursor and hands
+     * them to the consumer one at a time, so the table is never held in memory.
+     *
+     * @param consumer Receives the view of each customer as soon as its row is read.
+     */
+    void streamAll(Consumer<CustomerView> consumer);
+
+    /**
+     * Inserts the customers in one JDBC batch. A customer whose DNI or mail is
+     * already stored updates that row instead, keeping its password when none
+     * is given and never changing its admin flag.
+     *
+     * @param customers The customers to write. Their ids are ignored.
+     */
+    void upsertAll(List<Customer> customers);
+}
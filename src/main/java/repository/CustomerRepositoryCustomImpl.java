@@ -0,0 +1,48 @@
+package repository;
+
+import dto.CustomerView;
+import model.Customer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class CustomerRepositoryCustomImpl implements CustomerRepositoryCustom {
+    private static final String STREAM_ALL = "SELECT id, dni, customer_name, direction, phone, mail, admin FROM customer ORDER BY id";
+    private static final String UPSERT = "INSERT INTO customer (dni, customer_name, direction, phone, mail, password, admin) "
+            + "VALUES (?, ?, ?, ?, ?, ?, FALSE) ON DUPLICATE KEY UPDATE dni = VALUES(dni), customer_name = VALUES(customer_name), "
+            + "direction = VALUES(direction), phone = VALUES(phone), mail = VALUES(mail), "
+            + "password = COALESCE(VALUES(password), password)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Value("${customer.stream.fetch-size:500}")
+    private int fetchSize;
+
+    @Override
+    public void streamAll(Consumer<CustomerView> consumer) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(STREAM_ALL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (ResultSet rs) -> {
+            consumer.accept(new CustomerView(rs.getLong("id"), rs.getString("dni"), rs.getString("customer_name"),
+                    rs.getString("direction"), rs.getString("phone"), rs.getString("mail"), rs.getBoolean("admin")));
+        });
+    }
+
+    @Override
+    public void upsertAll(List<Customer> customers) {
+        jdbcTemplate.batchUpdate(UPSERT, customers, customers.size(), (statement, customer) -> {
+            statement.setString(1, customer.getDni());
+            statement.setString(2, customer.getCustomerName());
+            statement.setString(3, customer.getDirection());
+            statement.setString(4, customer.getPhone());
+            statement.setString(5, customer.getMail());
+            statement.setString(6, customer.getPassword());
+        });
+    }
+}
@@ -0,0 +1,19 @@
+package repository;
+
+import model.DailyProductSales;
+import model.DailyProductSalesId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyProductSalesRepository extends JpaRepository<DailyProductSales, DailyProductSalesId>, DailyProductSalesRepositoryCustom {
+    @Query("select s from DailyProductSales s where s.id.day between :from and :to order by s.id.day, s.id.productId")
+    List<DailyProductSales> findByDayBetween(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("delete from DailyProductSales")
+    int deleteAllRows();
+}
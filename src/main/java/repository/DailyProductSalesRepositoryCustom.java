@@ -0,0 +1,25 @@
+package repository;
+
+import model.DailyProductSales;
+
+import java.util.List;
+
+/**
+ * Daily sales writes that are written by hand instead of being derived by Spring Data.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface DailyProductSalesRepositoryCustom {
+
+    /**
+     * Adds the deltas to the rows of their day and product in one JDBC batch,
+     * creating the rows that do not exist yet. Each row is changed by a single
+     * atomic statement, so transactions adding to the same row at once, even
+     * to one that is not stored yet, never lose an increment or fail on a
+     * duplicate key.
+     *
+     * @param deltas The units and revenue to add, by day and product.
+     */
+    void addAll(List<DailyProductSales> deltas);
+}
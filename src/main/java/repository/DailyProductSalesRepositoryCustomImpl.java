@@ -0,0 +1,29 @@
+package repository;
+
+import model.DailyProductSales;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class DailyProductSalesRepositoryCustomImpl implements DailyProductSalesRepositoryCustom {
+    private static final String ADD = "INSERT INTO daily_product_sales (sales_day, product_id, units_sold, revenue, units_canceled, canceled_revenue) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE units_sold = COALESCE(units_sold, 0) + VALUES(units_sold), "
+            + "revenue = revenue + VALUES(revenue), units_canceled = COALESCE(units_canceled, 0) + VALUES(units_canceled), "
+            + "canceled_revenue = COALESCE(canceled_revenue, 0) + VALUES(canceled_revenue)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addAll(List<DailyProductSales> deltas) {
+        jdbcTemplate.batchUpdate(ADD, deltas, deltas.size(), (statement, delta) -> {
+            statement.setObject(1, delta.getId().getDay());
+            statement.setInt(2, delta.getId().getProductId());
+            statement.setInt(3, delta.getUnitsSold());
+            statement.setDouble(4, delta.getRevenue());
+            statement.setInt(5, delta.getUnitsCanceled());
+            statement.setDouble(6, delta.getCanceledRevenue());
+        });
+    }
+}
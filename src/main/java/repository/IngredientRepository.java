@@ -0,0 +1,22 @@
+package repository;
+
+import jakarta.persistence.QueryHint;
+import model.Ingredient;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Optional;
+
+public interface IngredientRepository extends JpaRepository<Ingredient, Integer>, IngredientRepositoryCustom {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Optional<Ingredient> findByName(String name);
+
+    // The spaces keep Hibernate from clearing the whole second-level cache; call evictAllergens() after it
+    @Modifying
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_NATIVE_SPACES, value = "ingredient_allergen"))
+    @Query(value = "UPDATE ingredient_allergen SET allergens = :newName WHERE allergens = :alergen", nativeQuery = true)
+    int renameAlergen(String alergen, String newName);
+}
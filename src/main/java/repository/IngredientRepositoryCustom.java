@@ -0,0 +1,47 @@
+package repository;
+
+import model.Ingredient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Ingredient queries and bulk writes that are written by hand instead of being derived by Spring Data.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface IngredientRepositoryCustom {
+
+    /**
+     * Reads every ingredient with its allergens ordered by id through a
+     * forward-only cursor, so the table is never held in memory.
+     *
+     * @param consumer Receives each ingredient once all its allergens have been read.
+     */
+    void streamAll(Consumer<Ingredient> consumer);
+
+    /**
+     * Finds the ids of the ingredients with the given names in one query.
+     *
+     * @param names The ingredient names.
+     * @return The id of each stored ingredient by its stored name.
+     */
+    Map<String, Integer> findIdsByName(Collection<String> names);
+
+    /**
+     * Replaces the allergens of stored ingredients with two JDBC batches.
+     *
+     * @param allergens The new allergens by ingredient id.
+     */
+    void replaceAllergens(Map<Integer, List<String>> allergens);
+
+    /**
+     * Drops the allergens of every ingredient from the second-level cache once
+     * the current transaction commits. Needed after native updates of the
+     * allergen table, which Hibernate does not track.
+     */
+    void evictAllergens();
+}
@@ -0,0 +1,91 @@
+package repository;
+
+import cache.AfterCommit;
+import jakarta.persistence.EntityManagerFactory;
+import model.Ingredient;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class IngredientRepositoryCustomImpl implements IngredientRepositoryCustom {
+    private static final String STREAM_ALL = "SELECT i.id, i.name, a.allergens FROM ingredient i "
+            + "LEFT JOIN ingredient_allergen a ON a.ingredient_id = i.id ORDER BY i.id";
+    private static final String FIND_IDS = "SELECT id, name FROM ingredient WHERE name IN (:names)";
+    private static final String DELETE_ALLERGENS = "DELETE FROM ingredient_allergen WHERE ingredient_id = ?";
+    private static final String ALLERGENS_ROLE = Ingredient.class.getName() + ".allergens";
+    private static final String INSERT_ALLERGEN = "INSERT INTO ingredient_allergen (ingredient_id, allergens) VALUES (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Value("${ingredient.stream.fetch-size:500}")
+    private int fetchSize;
+
+    @Override
+    public void streamAll(Consumer<Ingredient> consumer) {
+        Ingredient[] current = new Ingredient[1];
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(STREAM_ALL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (ResultSet rs) -> {
+            int id = rs.getInt(1);
+            if (current[0] == null || current[0].getId() != id) {
+                if (current[0] != null) {
+                    consumer.accept(current[0]);
+                }
+                current[0] = new Ingredient(id, rs.getString(2), new ArrayList<>());
+            }
+            String allergen = rs.getString(3);
+            if (allergen != null) {
+                current[0].getAllergens().add(allergen);
+            }
+        });
+        if (current[0] != null) {
+            consumer.accept(current[0]);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> findIdsByName(Collection<String> names) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (!names.isEmpty()) {
+            namedJdbcTemplate.query(FIND_IDS, Map.of("names", names), (ResultSet rs) -> {
+                ids.put(rs.getString(2), rs.getInt(1));
+            });
+        }
+        return ids;
+    }
+
+    @Override
+    public void replaceAllergens(Map<Integer, List<String>> allergens) {
+        List<Integer> ids = new ArrayList<>(allergens.keySet());
+        jdbcTemplate.batchUpdate(DELETE_ALLERGENS, ids, ids.size(), (statement, id) -> statement.setInt(1, id));
+        List<Object[]> rows = new ArrayList<>();
+        allergens.forEach((id, names) -> names.forEach(name -> rows.add(new Object[]{id, name})));
+        jdbcTemplate.batchUpdate(INSERT_ALLERGEN, rows);
+        // Hibernate does not see these writes, so the cached allergen lists are dropped once they are committed.
+        AfterCommit.run(() -> {
+            Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+            ids.forEach(id -> cache.evictCollectionData(ALLERGENS_ROLE, id));
+        });
+    }
+
+    @Override
+    public void evictAllergens() {
+        AfterCommit.run(() -> entityManagerFactory.getCache().unwrap(Cache.class).evictCollectionData(ALLERGENS_ROLE));
+    }
+}
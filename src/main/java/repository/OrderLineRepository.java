@@ -0,0 +1,31 @@
+package repository;
+
+import dto.SalesLine;
+import model.Order;
+import model.OrderLine;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface OrderLineRepository extends JpaRepository<OrderLine, Integer> {
+    @EntityGraph(value = "OrderLine.detail", type = EntityGraph.EntityGraphType.LOAD)
+    List<OrderLine> findByOrderOrderByIdAsc(Order order);
+
+    @Query("select new dto.SalesLine(o.id, o.orderDate, o.state, l.product.id, l.amount, l.unitPrice) "
+            + "from OrderLine l join l.order o where o.id in :orderIds")
+    List<SalesLine> findSalesLines(Collection<Integer> orderIds);
+
+    @Query("select new dto.SalesLine(o.id, o.orderDate, o.state, l.product.id, l.amount, l.unitPrice) "
+            + "from OrderLine l join l.order o where o.state <> model.OrderState.PENDING")
+    Stream<SalesLine> streamCountedSalesLines();
+
+    @Modifying
+    @Query("update OrderLine l set l.unitPrice = (select p.price from Product p where p = l.product) "
+            + "where l.unitPrice = 0")
+    int fillMissingUnitPrices();
+}
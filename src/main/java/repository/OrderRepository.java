@@ -1,4 +1,73 @@
 package repository;
 
-public interface OrderRepository {
+import dto.OrderStateRow;
+import jakarta.persistence.LockModeType;
+import model.Customer;
+import model.Order;
+import model.OrderState;
+import model.PaymentStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import payment.Payment;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderRepository extends JpaRepository<Order, Integer>, OrderRepositoryCustom {
+    @EntityGraph(value = "Order.history", type = EntityGraph.EntityGraphType.LOAD)
+    Optional<Order> findWithLinesById(int id);
+
+    @EntityGraph(value = "Order.history", type = EntityGraph.EntityGraphType.LOAD)
+    List<Order> findByCustomerOrderByIdAsc(Customer customer);
+
+    @EntityGraph(value = "Order.history", type = EntityGraph.EntityGraphType.LOAD)
+    List<Order> findByStateAndCustomerOrderByIdAsc(OrderState state, Customer customer);
+
+    @EntityGraph(value = "Order.history", type = EntityGraph.EntityGraphType.LOAD)
+    List<Order> findByStateOrderByIdAsc(OrderState state);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new dto.OrderStateRow(o.id, o.state) FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<OrderStateRow> lockAll(Collection<Integer> ids);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.state = :state WHERE o.id IN :ids")
+    int updateState(OrderState state, Collection<Integer> ids);
+
+    // Only payments still pending: a payment voided meanwhile stays voided
+    @Modifying
+    @Query("UPDATE Order o SET o.paymentStatus = :status WHERE o.id IN :ids AND o.paymentStatus = model.PaymentStatus.PENDING")
+    int updatePaymentStatus(PaymentStatus status, Collection<Integer> ids);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.paymentStatus = model.PaymentStatus.VOIDED WHERE o.id IN :ids AND o.paymentStatus = model.PaymentStatus.PENDING")
+    int voidPendingPayments(Collection<Integer> ids);
+
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.paymentStatus = model.PaymentStatus.PENDING")
+    List<Integer> findPendingPaymentIds(Collection<Integer> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.paymentStatus = model.PaymentStatus.PENDING ORDER BY o.id")
+    List<Integer> lockPendingPayments(Collection<Integer> ids);
+
+    @Query("SELECT new payment.Payment(o.id, o.customer.id, o.total) FROM Order o WHERE o.paymentStatus = :status ORDER BY o.id")
+    List<Payment> findPaymentsByPaymentStatus(PaymentStatus status);
+
+    @Modifying
+    @Query("UPDATE Order o SET "
+            + "o.total = (SELECT COALESCE(SUM(l.amount * l.unitPrice), 0) FROM OrderLine l WHERE l.order = o), "
+            + "o.itemCount = (SELECT COALESCE(SUM(l.amount), 0) FROM OrderLine l WHERE l.order = o) "
+            + "WHERE o.itemCount = 0")
+    int fillMissingTotals();
+
+    @Modifying
+    @Query("UPDATE Order o SET "
+            + "o.total = (SELECT COALESCE(SUM(l.amount * l.unitPrice), 0) FROM OrderLine l WHERE l.order = o), "
+            + "o.itemCount = (SELECT COALESCE(SUM(l.amount), 0) FROM OrderLine l WHERE l.order = o) "
+            + "WHERE o.id IN :ids")
+    int updateTotals(Collection<Integer> ids);
 }
@@ -0,0 +1,84 @@
+package repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Order queries that are written by hand instead of being derived by Spring Data.
+ * <p>
+ * The streaming methods read through a forward-only cursor and hand every
+ * row's columns straight to a callback, so a long range of history can be
+ * aggregated without mapping entities or holding the rows in memory. Only
+ * finished and delivered orders are read, and the archive tables only when
+ * asked to.
+ * </p>
+ * <p>
+ * The archival methods move old orders and their lines to
+ * {@code customer_order_archive} and {@code order_line_archive} with
+ * {@code INSERT ... SELECT} and {@code DELETE} statements, a chunk of ids at
+ * a time.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Receives one order.
+     */
+    @FunctionalInterface
+    interface OrderRowHandler {
+        void row(LocalDateTime orderDate, double total, int itemCount);
+    }
+
+    /**
+     * Receives one order line.
+     */
+    @FunctionalInterface
+    interface LineRowHandler {
+        void row(int productId, int amount, double unitPrice);
+    }
+
+    /**
+     * Streams the sold orders placed between two days.
+     *
+     * @param from     The first day, inclusive.
+     * @param to       The last day, exclusive.
+     * @param archived Whether archived orders are read too.
+     * @param handler  Receives every order as soon as its row is read.
+     */
+    void streamSoldOrders(LocalDate from, LocalDate to, boolean archived, OrderRowHandler handler);
+
+    /**
+     * Streams the lines of the sold orders placed between two days.
+     *
+     * @param from     The first day, inclusive.
+     * @param to       The last day, exclusive.
+     * @param archived Whether the lines of archived orders are read too.
+     * @param handler  Receives every order line as soon as its row is read.
+     */
+    void streamSoldOrderLines(LocalDate from, LocalDate to, boolean archived, LineRowHandler handler);
+
+    /**
+     * Finds delivered and canceled orders placed before a moment, oldest ids first.
+     *
+     * @param before The moment the orders were placed before.
+     * @param limit  The maximum number of ids.
+     * @return The ids of the orders.
+     */
+    List<Integer> findArchivableIds(Date before, int limit);
+
+    /**
+     * Moves orders and their lines to the archive tables. The product name of
+     * every line is copied with it.
+     *
+     * @param ids        The ids of the orders.
+     * @param archivedAt The moment recorded as the archival time.
+     * @return The number of orders moved.
+     */
+    int archive(Collection<Integer> ids, Date archivedAt);
+}
@@ -0,0 +1,88 @@
+package repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+    private static final String SOLD = "o.state IN ('FINISHED', 'DELIVERED') AND o.order_date >= ? AND o.order_date < ?";
+    private static final String SOLD_ORDERS = "SELECT o.order_date, o.total, o.item_count FROM customer_order o WHERE " + SOLD;
+    private static final String SOLD_LINES = "SELECT l.product_id, l.amount, l.unit_price FROM order_line l "
+            + "JOIN customer_order o ON o.id = l.order_id WHERE " + SOLD;
+    private static final String ARCHIVED_SOLD_ORDERS = SOLD_ORDERS + " UNION ALL "
+            + "SELECT o.order_date, o.total, o.item_count FROM customer_order_archive o WHERE " + SOLD;
+    private static final String ARCHIVED_SOLD_LINES = SOLD_LINES + " UNION ALL "
+            + "SELECT l.product_id, l.amount, l.unit_price FROM order_line_archive l "
+            + "JOIN customer_order_archive o ON o.id = l.order_id WHERE " + SOLD;
+    private static final String FIND_ARCHIVABLE = "SELECT id FROM customer_order "
+            + "WHERE state IN ('DELIVERED', 'CANCELED') AND order_date < ? ORDER BY id LIMIT ?";
+    private static final String ARCHIVE_ORDERS = "INSERT INTO customer_order_archive (id, order_date, state, payable_id, "
+            + "payment_method, payment_status, total, item_count, customer_id, archived_at) "
+            + "SELECT id, order_date, state, payable_id, payment_method, payment_status, total, item_count, customer_id, :archivedAt "
+            + "FROM customer_order WHERE id IN (:ids)";
+    private static final String ARCHIVE_LINES = "INSERT INTO order_line_archive (id, order_id, product_id, product_name, amount, unit_price) "
+            + "SELECT l.id, l.order_id, l.product_id, p.name, l.amount, l.unit_price "
+            + "FROM order_line l LEFT JOIN product p ON p.id = l.product_id WHERE l.order_id IN (:ids)";
+    private static final String DELETE_LINES = "DELETE FROM order_line WHERE order_id IN (:ids)";
+    private static final String DELETE_ORDERS = "DELETE FROM customer_order WHERE id IN (:ids)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Value("${analytics.fetch-size:1000}")
+    private int fetchSize;
+
+    @Override
+    public void streamSoldOrders(LocalDate from, LocalDate to, boolean archived, OrderRowHandler handler) {
+        stream(archived ? ARCHIVED_SOLD_ORDERS : SOLD_ORDERS, from, to, archived,
+                rs -> handler.row(rs.getTimestamp(1).toLocalDateTime(), rs.getDouble(2), rs.getInt(3)));
+    }
+
+    @Override
+    public void streamSoldOrderLines(LocalDate from, LocalDate to, boolean archived, LineRowHandler handler) {
+        stream(archived ? ARCHIVED_SOLD_LINES : SOLD_LINES, from, to, archived,
+                rs -> handler.row(rs.getInt(1), rs.getInt(2), rs.getDouble(3)));
+    }
+
+    @Override
+    public List<Integer> findArchivableIds(Date before, int limit) {
+        return jdbcTemplate.queryForList(FIND_ARCHIVABLE, Integer.class, before, limit);
+    }
+
+    @Override
+    public int archive(Collection<Integer> ids, Date archivedAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> params = Map.of("ids", ids, "archivedAt", archivedAt);
+        int moved = namedJdbcTemplate.update(ARCHIVE_ORDERS, params);
+        namedJdbcTemplate.update(ARCHIVE_LINES, params);
+        namedJdbcTemplate.update(DELETE_LINES, params);
+        namedJdbcTemplate.update(DELETE_ORDERS, params);
+        return moved;
+    }
+
+    private void stream(String sql, LocalDate from, LocalDate to, boolean archived, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setObject(1, from);
+            statement.setObject(2, to);
+            if (archived) {
+                statement.setObject(3, from);
+                statement.setObject(4, to);
+            }
+            return statement;
+        }, handler);
+    }
+}
@@ -0,0 +1,7 @@
+package repository;
+
+import model.Payable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PayableRepository extends JpaRepository<Payable, Integer> {
+}
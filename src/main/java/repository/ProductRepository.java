@@ -1,4 +1,27 @@
 package repository;
 
-public interface ProductRepository {
+import jakarta.persistence.QueryHint;
+import model.Pasta;
+import model.Pizza;
+import model.Product;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+
+public interface ProductRepository extends JpaRepository<Product, Integer> {
+    // Catalog lookups keep their result ids in the query cache; the products come from the entity cache
+    @Override
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    List<Product> findAll();
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select p from Pizza p join p.ingredients i where i.id = :ingredientId")
+    List<Pizza> findPizzasByIngredient(int ingredientId);
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    @Query("select p from Pasta p join p.ingredients i where i.id = :ingredientId")
+    List<Pasta> findPastasByIngredient(int ingredientId);
 }
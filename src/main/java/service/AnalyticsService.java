@@ -0,0 +1,24 @@
+package service;
+
+import dto.SalesAnalytics;
+
+import java.time.LocalDate;
+
+/**
+ * The AnalyticsService interface computes sales figures over the order history.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface AnalyticsService {
+
+    /**
+     * Aggregates the finished and delivered orders placed between two days.
+     *
+     * @param from The first day, inclusive.
+     * @param to   The last day, inclusive.
+     * @param top  How many best selling products to return.
+     * @return The sales figures of the range.
+     */
+    SalesAnalytics analyzeSales(LocalDate from, LocalDate to, int top);
+}
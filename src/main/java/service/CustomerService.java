@@ -1,9 +1,11 @@
 package service;
 
+import dto.CustomerView;
 import model.Customer;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The CustomerDao interface defines methods for interacting with the database
@@ -57,6 +59,15 @@ public interface CustomerService {
      */
     Customer findByMail(String mail) throws SQLException;
 
+    /**
+     * Finds a Customer by their national identification number (DNI).
+     *
+     * @param dni The DNI of the Customer to be retrieved.
+     * @return The Customer object associated with the given DNI.
+     * @throws SQLException If there is an error accessing the database.
+     */
+    Customer findByDni(String dni) throws SQLException;
+
     /**
      * Retrieves a list of all Customers from the database.
      *
@@ -64,4 +75,33 @@ public interface CustomerService {
      * @throws SQLException If there is an error accessing the database.
      */
     List<Customer> findAll() throws SQLException;
+
+    /**
+     * Retrieves a page of Customers ordered by ID, starting after the given cursor.
+     *
+     * @param afterId The ID of the last Customer of the previous page, or 0 for the first page.
+     * @param size    The number of Customers wanted, capped at the configured maximum page size.
+     * @return A list of at most size Customer views with an ID greater than afterId.
+     * @throws SQLException If there is an error accessing the database.
+     */
+    List<CustomerView> findPage(long afterId, int size) throws SQLException;
+
+    /**
+     * Finds a Customer by ID together with the summaries of all their orders,
+     * reading both in a single query.
+     *
+     * @param id The ID of the Customer to be retrieved.
+     * @return The view of the Customer including their orders.
+     * @throws SQLException If there is an error accessing the database.
+     */
+    CustomerView findWithOrders(long id) throws SQLException;
+
+    /**
+     * Reads all Customers ordered by ID and hands them to the consumer one at a time,
+     * without loading the whole table into memory.
+     *
+     * @param consumer Receives the view of each Customer as soon as it is read.
+     * @throws SQLException If there is an error accessing the database.
+     */
+    void streamAll(Consumer<CustomerView> consumer) throws SQLException;
 }
@@ -0,0 +1,74 @@
+package service;
+
+import dto.ImportProgress;
+import files.RecordFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The FileManagementService interface imports and exports customers and
+ * ingredients in bulk, as CSV or XML files.
+ * <p>
+ * Imports are read incrementally and written in JDBC batches, each batch in
+ * its own transaction, so neither the file nor the rows are ever held in
+ * memory as a whole. They run in the background; their progress can be
+ * polled or followed on the event stream of {@link ImportProgress#topic(long)}.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface FileManagementService {
+
+    /**
+     * Starts importing customers. Rows are matched to stored customers by DNI
+     * or mail and update them, the others are inserted.
+     * Fields: dni, customerName, direction, phone, mail and, optionally, password.
+     *
+     * @param body   The file. It is copied to a temporary file before this method returns.
+     * @param format The format of the file.
+     * @return The progress of the new import.
+     * @throws IOException If the file can not be copied.
+     */
+    ImportProgress importCustomers(InputStream body, RecordFormat format) throws IOException;
+
+    /**
+     * Starts importing ingredients. Rows are matched to stored ingredients by
+     * name and replace their allergens, the others are inserted.
+     * Fields: name and allergens, separated by "|".
+     *
+     * @param body   The file. It is copied to a temporary file before this method returns.
+     * @param format The format of the file.
+     * @return The progress of the new import.
+     * @throws IOException If the file can not be copied.
+     */
+    ImportProgress importIngredients(InputStream body, RecordFormat format) throws IOException;
+
+    /**
+     * Returns the progress of a recent import.
+     *
+     * @param id The id of the import.
+     * @return Its current progress.
+     */
+    ImportProgress findImport(long id);
+
+    /**
+     * Writes every customer, without passwords, in the fields read by {@link #importCustomers}.
+     *
+     * @param out    Where the file is written.
+     * @param format The format of the file.
+     * @throws IOException If the file can not be written.
+     */
+    void exportCustomers(OutputStream out, RecordFormat format) throws IOException;
+
+    /**
+     * Writes every ingredient in the fields read by {@link #importIngredients}.
+     *
+     * @param out    Where the file is written.
+     * @param format The format of the file.
+     * @throws IOException If the file can not be written.
+     */
+    void exportIngredients(OutputStream out, RecordFormat format) throws IOException;
+}
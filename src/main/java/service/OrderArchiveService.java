@@ -0,0 +1,35 @@
+package service;
+
+import dto.OrderView;
+import model.OrderState;
+
+import java.util.List;
+
+/**
+ * The OrderArchiveService interface keeps the order tables small by moving
+ * old delivered and canceled orders to the archive tables, and reads them
+ * back when the history is asked for.
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface OrderArchiveService {
+
+    /**
+     * Moves the delivered and canceled orders placed before the retention
+     * window to the archive, a chunk of orders per transaction. Does nothing
+     * if an archival is already running.
+     *
+     * @return The number of orders moved.
+     */
+    int archiveOrders();
+
+    /**
+     * Finds the archived orders of a customer.
+     *
+     * @param customerId The id of the customer.
+     * @param state      The state of the orders, or {@code null} for every state.
+     * @return The archived orders with their lines, oldest first.
+     */
+    List<OrderView> findArchivedOrders(long customerId, OrderState state);
+}
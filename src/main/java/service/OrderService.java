@@ -20,7 +20,9 @@ import java.util.List;
 public interface OrderService {
 
     /**
-     * Saves a new order to the database.
+     * Saves a new order to the database. Once committed, a pending order is
+     * sent to the kitchen and, when paid by card, its payment is queued to be
+     * charged in the background.
      *
      * @param order The Order object to be saved.
      * @throws SQLException If there is a database access error.
@@ -28,10 +30,20 @@ public interface OrderService {
     void saveOrder(Order order) throws SQLException;
 
     /**
-     * Saves a new order line associated with an order to the database.
+     * Saves several new orders, with all their order lines, in one transaction.
+     * The inserts are grouped by table and sent to the database in JDBC batches.
      *
-     * @param orderLine The OrderLine object to be saved.
-     * @param order The Order object associated with the order line.
+     * @param orders The Order objects to be saved.
+     * @throws SQLException If there is a database access error.
+     */
+    void saveOrders(List<Order> orders) throws SQLException;
+
+    /**
+     * Saves the order lines of an order to the database in one JDBC batch,
+     * then refreshes the order's total and the daily sales it counts towards.
+     *
+     * @param orderLine The OrderLine objects to be saved.
+     * @param order The Order object associated with the order lines.
      * @throws SQLException If there is a database access error.
      */
     void saveOrderLine(List<OrderLine> orderLine, Order order) throws SQLException;
@@ -56,7 +68,8 @@ public interface OrderService {
     void deleteOrderLine(OrderLine orderLine) throws SQLException;
 
     /**
-     * Updates an existing order in the database.
+     * Updates an existing order in the database. A canceled order is dropped
+     * from the kitchen.
      *
      * @param order The Order object with updated information.
      * @throws SQLException If there is a database access error.
@@ -1,9 +1,9 @@
 package service;
 
+import dto.SearchMatch;
 import model.Ingredient;
 import model.Product;
 
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -26,44 +26,31 @@ public interface ProductService {
     Product saveProduct(Product product) throws SQLException;
 
     /**
-     * Saves an ingredient associated with a product to the database.
+     * Adds an existing ingredient to a product.
      *
-     * @param ingredientId The ID of the ingredient to be saved.
+     * @param ingredientId The ID of the ingredient to be added.
      * @param productId The ID of the product to which the ingredient is associated.
-     * @param conn The database connection.
      * @throws SQLException If there is a database access error.
      */
-    Product saveProductIngredient(int ingredientId, int productId, Connection conn) throws SQLException;
+    Product saveProductIngredient(int ingredientId, int productId) throws SQLException;
 
     /**
      * Saves an ingredient for a specific product to the database.
      *
      * @param ingredient The Ingredient object to be saved.
      * @param productId The ID of the product associated with the ingredient.
-     * @param conn The database connection.
      * @throws SQLException If there is a database access error.
      */
-    Product saveIngredient(Ingredient ingredient, int productId, Connection conn) throws SQLException;
+    Product saveIngredient(Ingredient ingredient, int productId) throws SQLException;
 
     /**
-     * Saves an allergen associated with an ingredient to the database.
-     *
-     * @param ingredientId The ID of the ingredient associated with the allergen.
-     * @param alergen The allergen to be saved.
-     * @param conn The database connection.
-     * @throws SQLException If there is a database access error.
-     */
-    Product saveIngredientAlergen(int ingredientId, int alergen, Connection conn) throws SQLException;
-
-    /**
-     * Saves a new allergen to the database.
+     * Adds an allergen to an ingredient.
      *
      * @param alergen The allergen to be saved.
      * @param ingredientId The ID of the ingredient associated with the allergen.
-     * @param conn The database connection.
      * @throws SQLException If there is a database access error.
      */
-    void saveAlergen(String alergen, int ingredientId, Connection conn) throws SQLException;
+    void saveAlergen(String alergen, int ingredientId) throws SQLException;
 
     /**
      * Deletes a product from the database.
@@ -74,7 +61,7 @@ public interface ProductService {
     void deleteProduct(Product product) throws SQLException;
 
     /**
-     * Deletes an ingredient from the database.
+     * Deletes an ingredient from the database, removing it from every product first.
      *
      * @param ingredient The Ingredient object to be deleted.
      * @throws SQLException If there is a database access error.
@@ -82,12 +69,13 @@ public interface ProductService {
     void deleteIngredient(Ingredient ingredient) throws SQLException;
 
     /**
-     * Deletes an allergen from the database by its ID.
+     * Removes an allergen from an ingredient.
      *
-     * @param id The ID of the allergen to be deleted.
+     * @param alergen The allergen to be removed.
+     * @param ingredientId The ID of the ingredient associated with the allergen.
      * @throws SQLException If there is a database access error.
      */
-    void deleteAlergen(int id) throws SQLException;
+    void deleteAlergen(String alergen, int ingredientId) throws SQLException;
 
     /**
      * Updates an existing product in the database.
@@ -106,13 +94,13 @@ public interface ProductService {
     void updateIngredient(Ingredient ingredient) throws SQLException;
 
     /**
-     * Updates an allergen in the database.
+     * Renames an allergen in every ingredient that lists it.
      *
-     * @param alergen The new allergen name.
-     * @param id The ID of the allergen to be updated.
+     * @param alergen The current allergen name.
+     * @param newName The new allergen name.
      * @throws SQLException If there is a database access error.
      */
-    void updateAlergen(String alergen, int id) throws SQLException;
+    void updateAlergen(String alergen, String newName) throws SQLException;
 
     /**
      * Finds a product by its ID.
@@ -136,21 +124,19 @@ public interface ProductService {
      * Finds an ingredient by its name.
      *
      * @param name The name of the ingredient to be found.
-     * @param conn The database connection.
      * @return The Ingredient object with the specified name, or null if not found.
      * @throws SQLException If there is a database access error.
      */
-    Ingredient findIngredientsByName(String name, Connection conn) throws SQLException;
+    Ingredient findIngredientsByName(String name) throws SQLException;
 
     /**
      * Finds allergens associated with an ingredient by its name.
      *
      * @param name The name of the ingredient.
-     * @param conn The database connection.
      * @return A string representation of allergens associated with the ingredient.
      * @throws SQLException If there is a database access error.
      */
-    String findAlergensByName(String name, Connection conn) throws SQLException;
+    String findAlergensByName(String name) throws SQLException;
 
     /**
      * Finds all ingredients associated with a specific product.
@@ -172,9 +158,35 @@ public interface ProductService {
 
     /**
      * Finds all products in the database.
+     * <p>
+     * The list comes from the in-memory menu snapshot and is shared between
+     * callers, so neither the list nor its products may be modified.
+     * </p>
      *
      * @return A list of all Product objects.
      * @throws SQLException If there is a database access error.
      */
     List<Product> findAll() throws SQLException;
+
+    /**
+     * Finds the products whose ingredients contain none of the given allergens.
+     * <p>
+     * Like {@link #findAll()}, the products are shared and must not be modified.
+     * </p>
+     *
+     * @param alergens The allergen names to avoid.
+     * @return The products free of every given allergen, in menu order.
+     * @throws SQLException If there is a database access error.
+     */
+    List<Product> findWithoutAlergens(List<String> alergens) throws SQLException;
+
+    /**
+     * Finds the products whose name, ingredients or allergens match the text
+     * typed so far, from memory and without querying the database.
+     *
+     * @param query The text to look for, ignoring case and accents.
+     * @param limit The maximum number of matches, capped by {@code product.search.max-limit}.
+     * @return The matching products, best matches first.
+     */
+    List<SearchMatch> search(String query, int limit);
 }
@@ -0,0 +1,54 @@
+package service;
+
+import dto.SalesLine;
+import model.DailyProductSales;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The SalesService interface maintains the daily sales of every product.
+ * <p>
+ * The aggregates are updated incrementally: whoever changes an order reads
+ * its sales lines before the change, and hands both the old and the new
+ * lines to {@link #recordChange(List, List)} in the same transaction.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+public interface SalesService {
+
+    /**
+     * Reads the sales lines of some orders, as they are in the database.
+     *
+     * @param orderIds The ids of the orders.
+     * @return One sales line per order line.
+     */
+    List<SalesLine> findSalesLines(Collection<Integer> orderIds);
+
+    /**
+     * Moves the daily aggregates from the old lines of some orders to their new ones.
+     * Lines of pending orders do not count.
+     *
+     * @param before The sales lines before the change, empty for new orders.
+     * @param after  The sales lines after the change, empty for deleted orders.
+     */
+    void recordChange(List<SalesLine> before, List<SalesLine> after);
+
+    /**
+     * Recomputes every aggregate from the order history, archived orders included. Order lines and
+     * orders saved before prices and totals were stored get them filled in.
+     */
+    void rebuild();
+
+    /**
+     * Retrieves the precomputed sales of every product between two days.
+     *
+     * @param from The first day, inclusive.
+     * @param to   The last day, inclusive.
+     * @return The sales rows, by day and product.
+     */
+    List<DailyProductSales> findDailySales(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,238 @@
+package service.impl;
+
+import cache.MenuCache;
+import dto.SalesAnalytics;
+import jakarta.annotation.PreDestroy;
+import model.Product;
+import model.Size;
+import model.TYPE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import repository.OrderRepository;
+import service.AnalyticsService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the sales figures by streaming the order history in parallel.
+ * <p>
+ * The requested range is split into partitions of a few days that are read
+ * by a dedicated fork-join pool, each partition through its own JDBC cursor
+ * and into its own {@link Accumulator}. The accumulators only hold primitive
+ * arrays indexed by product and by day, so the memory used depends on the
+ * size of the menu and the length of the range, never on the number of
+ * orders. Partial results are merged as the tasks join.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Service
+public class AnalyticsServiceImpl implements AnalyticsService {
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private MenuCache menuCache;
+    @Value("${analytics.partition-days:31}")
+    private int partitionDays;
+    @Value("${analytics.max-days:366}")
+    private int maxDays;
+    @Value("${order.archive.retention-days:365}")
+    private int retentionDays;
+
+    private final ForkJoinPool pool;
+
+    public AnalyticsServiceImpl(@Value("${analytics.parallelism:4}") int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+
+    @Override
+    public SalesAnalytics analyzeSales(LocalDate from, LocalDate to, int top) {
+        int days = (int) (to.toEpochDay() - from.toEpochDay()) + 1;
+        if (days < 1 || days > maxDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The range must cover from 1 to " + maxDays + " days");
+        }
+        if (top < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid top: " + top);
+        }
+        Products products = new Products(menuCache.current().products());
+        Accumulator total = pool.invoke(new Partition(products, from, days, 0, days));
+        return total.toAnalytics(products, from, to, top);
+    }
+
+    /**
+     * Dense index of the menu, so rows can be counted in arrays by product.
+     * Products no longer on the menu share the last index.
+     */
+    private static final class Products {
+        private final int[] indexById;
+        private final List<Product> products;
+
+        Products(List<Product> menu) {
+            products = menu;
+            int maxId = menu.stream().mapToInt(Product::getId).max().orElse(0);
+            indexById = new int[maxId + 1];
+            Arrays.fill(indexById, menu.size());
+            for (int i = 0; i < menu.size(); i++) {
+                indexById[menu.get(i).getId()] = i;
+            }
+        }
+
+        int indexOf(int productId) {
+            return productId >= 0 && productId < indexById.length ? indexById[productId] : products.size();
+        }
+
+        int count() {
+            return products.size() + 1;
+        }
+
+        Product get(int index) {
+            return index < products.size() ? products.get(index) : null;
+        }
+    }
+
+    /**
+     * Reads the days {@code [offset, offset + days)} of the range, splitting
+     * them in two while they span more than one partition.
+     */
+    private final class Partition extends RecursiveTask<Accumulator> {
+        private final Products products;
+        private final LocalDate from;
+        private final int rangeDays;
+        private final int offset;
+        private final int days;
+
+        Partition(Products products, LocalDate from, int rangeDays, int offset, int days) {
+            this.products = products;
+            this.from = from;
+            this.rangeDays = rangeDays;
+            this.offset = offset;
+            this.days = days;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (days > partitionDays) {
+                int half = days / 2;
+                Partition right = new Partition(products, from, rangeDays, offset + half, days - half);
+                right.fork();
+                Accumulator left = new Partition(products, from, rangeDays, offset, half).compute();
+                return left.merge(right.join());
+            }
+            Accumulator accumulator = new Accumulator(products.count(), from, rangeDays);
+            LocalDate start = from.plusDays(offset);
+            LocalDate end = start.plusDays(days);
+            // Orders are archived once older than the retention window; newer partitions skip the archive
+            boolean archived = !start.isAfter(LocalDate.now().minusDays(retentionDays));
+            orderRepository.streamSoldOrders(start, end, archived, accumulator::addOrder);
+            orderRepository.streamSoldOrderLines(start, end, archived,
+                    (productId, amount, unitPrice) -> accumulator.addLine(products.indexOf(productId), amount, unitPrice));
+            return accumulator;
+        }
+    }
+
+    /**
+     * Running totals of one partition.
+     */
+    private static final class Accumulator {
+        private final long firstDay;
+        private final long[] units;
+        private final double[] productRevenue;
+        private final double[] dayRevenue;
+        private final long[] hourOrders = new long[24];
+        private final long[] weekdayOrders = new long[7];
+        private long orders;
+        private long items;
+        private double revenue;
+
+        Accumulator(int products, LocalDate from, int days) {
+            this.firstDay = from.toEpochDay();
+            this.units = new long[products];
+            this.productRevenue = new double[products];
+            this.dayRevenue = new double[days];
+        }
+
+        void addOrder(LocalDateTime orderDate, double total, int itemCount) {
+            orders++;
+            items += itemCount;
+            revenue += total;
+            dayRevenue[(int) (orderDate.toLocalDate().toEpochDay() - firstDay)] += total;
+            hourOrders[orderDate.getHour()]++;
+            weekdayOrders[orderDate.getDayOfWeek().ordinal()]++;
+        }
+
+        void addLine(int product, int amount, double unitPrice) {
+            units[product] += amount;
+            productRevenue[product] += amount * unitPrice;
+        }
+
+        Accumulator merge(Accumulator other) {
+            orders += other.orders;
+            items += other.items;
+            revenue += other.revenue;
+            for (int i = 0; i < units.length; i++) {
+                units[i] += other.units[i];
+                productRevenue[i] += other.productRevenue[i];
+            }
+            for (int i = 0; i < dayRevenue.length; i++) {
+                dayRevenue[i] += other.dayRevenue[i];
+            }
+            for (int i = 0; i < 24; i++) {
+                hourOrders[i] += other.hourOrders[i];
+            }
+            for (int i = 0; i < 7; i++) {
+                weekdayOrders[i] += other.weekdayOrders[i];
+            }
+            return this;
+        }
+
+        SalesAnalytics toAnalytics(Products products, LocalDate from, LocalDate to, int top) {
+            Map<String, Double> bySize = new LinkedHashMap<>();
+            Arrays.stream(Size.values()).forEach(size -> bySize.put(size.name(), 0.0));
+            bySize.put("NONE", 0.0);
+            Map<String, Double> byType = new LinkedHashMap<>();
+            Arrays.stream(TYPE.values()).forEach(type -> byType.put(type.name(), 0.0));
+            List<Integer> ranked = new ArrayList<>();
+            for (int i = 0; i < units.length; i++) {
+                Product product = products.get(i);
+                // Products no longer on the menu only count towards the totals
+                if (product != null) {
+                    bySize.merge(product.getSize() == null ? "NONE" : product.getSize().name(), productRevenue[i], Double::sum);
+                    byType.merge(TYPE.of(product).name(), productRevenue[i], Double::sum);
+                    if (units[i] > 0) {
+                        ranked.add(i);
+                    }
+                }
+            }
+            List<SalesAnalytics.ProductSales> topProducts = ranked.stream()
+                    .sorted(Comparator.comparingLong((Integer i) -> units[i]).reversed())
+                    .limit(top)
+                    .map(i -> new SalesAnalytics.ProductSales(products.get(i).getId(), products.get(i).getName(),
+                            units[i], productRevenue[i]))
+                    .toList();
+            Map<LocalDate, Double> byDay = new LinkedHashMap<>();
+            for (int i = 0; i < dayRevenue.length; i++) {
+                byDay.put(from.plusDays(i), dayRevenue[i]);
+            }
+            return new SalesAnalytics(from, to, orders, items, revenue, topProducts, bySize, byType, byDay,
+                    hourOrders, weekdayOrders);
+        }
+    }
+}
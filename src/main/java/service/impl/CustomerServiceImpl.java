@@ -1,22 +1,41 @@
 package service.impl;
 
+import cache.AfterCommit;
+import cache.CustomerCache;
+import config.MetricsConfig;
+import config.ReplicaRouting;
+import dto.CustomerOrderRow;
+import dto.CustomerView;
+import dto.OrderSummary;
+import io.micrometer.core.annotation.Timed;
 import model.Customer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import repository.CustomerRepository;
 import service.CustomerService;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class CustomerServiceImpl implements CustomerService {
     @Autowired
     private CustomerRepository customerRepository;
+    @Autowired
+    private CustomerCache customerCache;
+    @Value("${customer.page.max-size:200}")
+    private int maxPageSize;
 
     @Override
+    @Transactional
     public Customer save(Customer customer) {
         if (customerRepository.existsByDni(customer.getDni())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Already exist a customer with DNI:" + customer.getDni());
@@ -25,14 +44,19 @@ public class CustomerServiceImpl implements CustomerService {
     }
 
     @Override
+    @Transactional
     public void delete(long id) throws SQLException {
         customerRepository.deleteById(id);
+        AfterCommit.run(() -> customerCache.invalidate(id));
     }
 
     @Override
+    @Transactional
     public Customer update(Customer customer) throws SQLException {
         if (customerRepository.existsById(customer.getId())) {
-            return customerRepository.save(customer);
+            Customer updated = customerRepository.save(customer);
+            AfterCommit.run(() -> customerCache.invalidate(customer.getId()));
+            return updated;
         } else {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found Id: " + customer.getId());
         }
@@ -40,18 +64,54 @@ public class CustomerServiceImpl implements CustomerService {
 
     @Override
     public Customer findById(long id) throws SQLException {
-        return customerRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found Id: " + id));
+        return customerCache.getById(id, () -> ReplicaRouting.onPrimary(() -> customerRepository.findById(id))).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found Id: " + id));
     }
 
     @Override
     public Customer findByMail(String mail) throws SQLException {
-        return customerRepository.findByMail(mail).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found Dni: " + mail));
+        return customerCache.getByMail(mail, () -> ReplicaRouting.onPrimary(() -> customerRepository.findByMail(mail))).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found Dni: " + mail));
+    }
+
+    @Override
+    public Customer findByDni(String dni) throws SQLException {
+        return customerCache.getByDni(dni, () -> ReplicaRouting.onPrimary(() -> customerRepository.findByDni(dni))).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found Dni: " + dni));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Customer> findAll() throws SQLException {
         return customerRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerView> findPage(long afterId, int size) throws SQLException {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be positive: " + size);
+        }
+        return customerRepository.findViewsAfter(afterId, Limit.of(Math.min(size, maxPageSize)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerView findWithOrders(long id) throws SQLException {
+        List<CustomerOrderRow> rows = customerRepository.findWithOrderSummaries(id);
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found Id: " + id);
+        }
+        List<OrderSummary> orders = new ArrayList<>();
+        for (CustomerOrderRow row : rows) {
+            if (row.order() != null) {
+                orders.add(row.order());
+            }
+        }
+        return rows.get(0).customer().withOrders(orders);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<CustomerView> consumer) throws SQLException {
+        customerRepository.streamAll(consumer);
+    }
 
 }
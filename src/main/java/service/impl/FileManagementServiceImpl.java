@@ -0,0 +1,414 @@
+package service.impl;
+
+import cache.AfterCommit;
+import cache.AllergenIndex;
+import cache.SearchIndex;
+import cache.CustomerCache;
+import cache.MenuCache;
+import dto.ImportProgress;
+import events.OrderEventBus;
+import files.RecordFormat;
+import files.RecordReader;
+import files.RecordWriter;
+import model.Customer;
+import model.Ingredient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import repository.CustomerRepository;
+import repository.IngredientRepository;
+import service.FileManagementService;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import and export of customers and ingredients.
+ * <p>
+ * An uploaded file is first copied to a temporary file, so the request ends
+ * quickly and the size of the file is known for the progress. A background
+ * task then reads it record by record and writes every {@code batch-size}
+ * records in one transaction through JDBC batches. When a batch fails its
+ * records are retried one by one, so a bad record is rejected on its own
+ * instead of stopping the whole file.
+ * </p>
+ *
+ * @author DaniAndries
+ * @version 0.1
+ */
+@Service
+public class FileManagementServiceImpl implements FileManagementService {
+    private static final List<String> CUSTOMER_FIELDS = List.of("dni", "customerName", "direction", "phone", "mail");
+    private static final List<String> INGREDIENT_FIELDS = List.of("name", "allergens");
+    private static final String ALLERGEN_SEPARATOR = "|";
+    private static final int MAX_ERRORS = 100;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private IngredientRepository ingredientRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private CustomerCache customerCache;
+    @Autowired
+    private MenuCache menuCache;
+    @Autowired
+    private AllergenIndex allergenIndex;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private OrderEventBus eventBus;
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private TaskExecutor taskExecutor;
+    @Value("${files.import.batch-size:500}")
+    private int batchSize;
+    @Value("${files.import.history:20}")
+    private int history;
+
+    private final AtomicLong importIds = new AtomicLong();
+    private final NavigableMap<Long, Job> jobs = new ConcurrentSkipListMap<>();
+
+    /**
+     * Reads the records of a file and writes them in batches.
+     */
+    @FunctionalInterface
+    private interface Importer {
+        void run(Job job, RecordReader reader) throws IOException;
+    }
+
+    @Override
+    public ImportProgress importCustomers(InputStream body, RecordFormat format) throws IOException {
+        return start("customers", "customer", format, body, this::readCustomers);
+    }
+
+    @Override
+    public ImportProgress importIngredients(InputStream body, RecordFormat format) throws IOException {
+        return start("ingredients", "ingredient", format, body, (job, reader) -> {
+            readIngredients(job, reader);
+            menuCache.refresh();
+        });
+    }
+
+    @Override
+    public ImportProgress findImport(long id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Import not found Id: " + id);
+        }
+        return job.progress();
+    }
+
+    @Override
+    public void exportCustomers(OutputStream out, RecordFormat format) throws IOException {
+        try (RecordWriter writer = format.writer(out, "customers", "customer", CUSTOMER_FIELDS)) {
+            customerRepository.streamAll(customer -> write(writer, customer.dni(), customer.customerName(),
+                    customer.direction(), customer.phone(), customer.mail()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void exportIngredients(OutputStream out, RecordFormat format) throws IOException {
+        try (RecordWriter writer = format.writer(out, "ingredients", "ingredient", INGREDIENT_FIELDS)) {
+            ingredientRepository.streamAll(ingredient -> write(writer, ingredient.getName(),
+                    String.join(ALLERGEN_SEPARATOR, ingredient.getAllergens())));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private ImportProgress start(String entity, String recordName, RecordFormat format, InputStream body,
+                                 Importer importer) throws IOException {
+        Path file = Files.createTempFile("import-", "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        Job job = new Job(importIds.incrementAndGet(), entity, format, Files.size(file));
+        jobs.put(job.id, job);
+        forgetOldJobs();
+        taskExecutor.execute(() -> run(job, file, recordName, importer));
+        return job.progress();
+    }
+
+    private void run(Job job, Path file, String recordName, Importer importer) {
+        try (RecordReader reader = job.format.reader(
+                new BufferedInputStream(new CountingInputStream(Files.newInputStream(file), job.bytesRead), 64 * 1024),
+                recordName)) {
+            importer.run(job, reader);
+            job.finish(ImportProgress.Status.DONE, null);
+        } catch (IOException | RuntimeException e) {
+            job.finish(ImportProgress.Status.FAILED, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // The temporary directory is cleaned by the system.
+            }
+            eventBus.publish(ImportProgress.topic(job.id), "progress", job.progress());
+        }
+    }
+
+    private void readCustomers(Job job, RecordReader reader) throws IOException {
+        Batch<Customer> batch = new Batch<>();
+        Map<String, String> record;
+        while ((record = reader.next()) != null) {
+            String dni = value(record, "dni");
+            String mail = value(record, "mail");
+            if (dni == null || mail == null) {
+                job.reject(reader.line(), "dni and mail are required");
+                continue;
+            }
+            Customer customer = new Customer();
+            customer.setDni(dni);
+            customer.setMail(mail);
+            customer.setCustomerName(value(record, "customerName"));
+            customer.setDirection(value(record, "direction"));
+            customer.setPhone(value(record, "phone"));
+            customer.setPassword(value(record, "password"));
+            batch.add(customer, reader.line());
+            if (batch.size() == batchSize) {
+                write(job, batch, this::writeCustomers);
+            }
+        }
+        write(job, batch, this::writeCustomers);
+    }
+
+    private void writeCustomers(List<Customer> customers) {
+        customerRepository.upsertAll(customers);
+        AfterCommit.run(customerCache::invalidateAll);
+    }
+
+    private void readIngredients(Job job, RecordReader reader) throws IOException {
+        Batch<Ingredient> batch = new Batch<>();
+        Map<String, String> record;
+        while ((record = reader.next()) != null) {
+            String name = value(record, "name");
+            if (name == null) {
+                job.reject(reader.line(), "name is required");
+                continue;
+            }
+            String allergens = value(record, "allergens");
+            List<String> names = allergens == null ? new ArrayList<>() : Arrays.stream(allergens.split("\\|"))
+                    .map(String::trim)
+                    .filter(allergen -> !allergen.isEmpty())
+                    .distinct()
+                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+            batch.add(new Ingredient(0, name, names), reader.line());
+            if (batch.size() == batchSize) {
+                write(job, batch, this::writeIngredients);
+            }
+        }
+        write(job, batch, this::writeIngredients);
+    }
+
+    private void writeIngredients(List<Ingredient> ingredients) {
+        // Names are compared like MySQL's default collation does, ignoring case; the last row of a name wins.
+        Map<String, Ingredient> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        ingredients.forEach(ingredient -> byName.put(ingredient.getName(), ingredient));
+        Map<String, Integer> stored = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        stored.putAll(ingredientRepository.findIdsByName(byName.keySet()));
+        // Fresh copies are saved, so a batch that rolls back can be retried with the records untouched.
+        List<Ingredient> added = new ArrayList<>();
+        List<Ingredient> changed = new ArrayList<>();
+        for (Ingredient ingredient : byName.values()) {
+            Integer id = stored.get(ingredient.getName());
+            if (id == null) {
+                added.add(new Ingredient(0, ingredient.getName(), ingredient.getAllergens()));
+            } else {
+                changed.add(new Ingredient(id, ingredient.getName(), ingredient.getAllergens()));
+            }
+        }
+        ingredientRepository.saveAll(added);
+        Map<Integer, List<String>> allergens = new HashMap<>();
+        changed.forEach(ingredient -> allergens.put(ingredient.getId(), ingredient.getAllergens()));
+        ingredientRepository.replaceAllergens(allergens);
+        changed.forEach(allergenIndex::ingredientChanged);
+        changed.forEach(searchIndex::ingredientChanged);
+    }
+
+    /**
+     * Writes a batch in one transaction. If it fails, writes its records one
+     * by one and rejects the ones that still fail.
+     */
+    private <T> void write(Job job, Batch<T> batch, Consumer<List<T>> writer) {
+        if (batch.size() == 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> writer.accept(batch.items));
+            job.imported.addAndGet(batch.size());
+        } catch (DataAccessException batchError) {
+            for (int i = 0; i < batch.size(); i++) {
+                List<T> one = List.of(batch.items.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writer.accept(one));
+                    job.imported.incrementAndGet();
+                } catch (DataAccessException e) {
+                    job.reject(batch.lines.get(i), e.getMostSpecificCause().getMessage().lines().findFirst().orElse(""));
+                }
+            }
+        }
+        batch.clear();
+        eventBus.publish(ImportProgress.topic(job.id), "progress", job.progress());
+    }
+
+    private void forgetOldJobs() {
+        for (Job job : jobs.values()) {
+            if (jobs.size() <= history) {
+                return;
+            }
+            if (job.status != ImportProgress.Status.RUNNING) {
+                jobs.remove(job.id);
+            }
+        }
+    }
+
+    private static String value(Map<String, String> record, String field) {
+        String value = record.get(field);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void write(RecordWriter writer, String... values) {
+        try {
+            writer.write(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records waiting to be written, with the line each one was read from.
+     */
+    private static final class Batch<T> {
+        private final List<T> items = new ArrayList<>();
+        private final List<Long> lines = new ArrayList<>();
+
+        void add(T item, long line) {
+            items.add(item);
+            lines.add(line);
+        }
+
+        int size() {
+            return items.size();
+        }
+
+        void clear() {
+            items.clear();
+            lines.clear();
+        }
+    }
+
+    /**
+     * State of one import. Only its background task changes it.
+     */
+    private static final class Job {
+        private final long id;
+        private final String entity;
+        private final RecordFormat format;
+        private final long totalBytes;
+        private final Instant started = Instant.now();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<String> errors = new ArrayList<>();
+        private volatile ImportProgress.Status status = ImportProgress.Status.RUNNING;
+        private volatile String failure;
+        private volatile Instant finished;
+
+        Job(long id, String entity, RecordFormat format, long totalBytes) {
+            this.id = id;
+            this.entity = entity;
+            this.format = format;
+            this.totalBytes = totalBytes;
+        }
+
+        void reject(long line, String reason) {
+            rejected.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add("Line " + line + ": " + reason);
+                }
+            }
+        }
+
+        void finish(ImportProgress.Status status, String failure) {
+            this.failure = failure;
+            this.finished = Instant.now();
+            this.status = status;
+        }
+
+        ImportProgress progress() {
+            List<String> firstErrors;
+            synchronized (errors) {
+                firstErrors = List.copyOf(errors);
+            }
+            return new ImportProgress(id, entity, format, status, bytesRead.get(), totalBytes, imported.get(),
+                    rejected.get(), firstErrors, failure, started, finished);
+        }
+    }
+
+    /**
+     * Counts the bytes read from the file, for the progress.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count.addAndGet(read);
+            }
+            return read;
+        }
+    }
+}
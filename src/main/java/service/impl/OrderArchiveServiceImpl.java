@@ -0,0 +1,94 @@
+package service.impl;
+
+import config.MetricsConfig;
+import dto.OrderView;
+import io.micrometer.core.annotation.Timed;
+import model.ArchivedOrder;
+import model.ArchivedOrderLine;
+import model.OrderState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.ArchivedOrderLineRepository;
+import repository.ArchivedOrderRepository;
+import repository.OrderRepository;
+import service.OrderArchiveService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class OrderArchiveServiceImpl implements OrderArchiveService {
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+    @Autowired
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Value("${order.archive.retention-days:365}")
+    private int retentionDays;
+    @Value("${order.archive.chunk-size:500}")
+    private int chunkSize;
+    @Value("${order.archive.chunk-pause-ms:50}")
+    private long chunkPauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${order.archive.cron:0 30 4 * * *}")
+    public void archiveOnSchedule() {
+        archiveOrders();
+    }
+
+    @Override
+    public int archiveOrders() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            Date before = Date.from(Instant.now().minus(Duration.ofDays(retentionDays)));
+            Date archivedAt = new Date();
+            int moved = 0;
+            while (true) {
+                // Each chunk commits on its own, so live orders wait for a few hundred rows at most
+                Integer chunk = transactionTemplate.execute(status ->
+                        orderRepository.archive(orderRepository.findArchivableIds(before, chunkSize), archivedAt));
+                if (chunk == null || chunk == 0) {
+                    return moved;
+                }
+                moved += chunk;
+                Thread.sleep(chunkPauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderView> findArchivedOrders(long customerId, OrderState state) {
+        List<ArchivedOrder> orders = state == null
+                ? archivedOrderRepository.findByCustomerIdOrderByIdAsc(customerId)
+                : archivedOrderRepository.findByStateAndCustomerIdOrderByIdAsc(state, customerId);
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, List<ArchivedOrderLine>> lines = archivedOrderLineRepository
+                .findByOrderIdInOrderByIdAsc(orders.stream().map(ArchivedOrder::getId).toList()).stream()
+                .collect(Collectors.groupingBy(ArchivedOrderLine::getOrderId));
+        return orders.stream().map(order -> OrderView.of(order, lines.getOrDefault(order.getId(), List.of()))).toList();
+    }
+}
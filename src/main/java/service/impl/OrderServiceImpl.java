@@ -1,4 +1,295 @@
 package service.impl;
 
-public class OrderServiceImpl {
+import cache.AfterCommit;
+import cache.MenuCache;
+import config.MetricsConfig;
+import config.ReplicaRouting;
+import dto.OrderStatusEvent;
+import dto.SalesLine;
+import events.OrderEventBus;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import kitchen.KitchenDispatcher;
+import model.Customer;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.PaymentMethod;
+import model.PaymentStatus;
+import model.Product;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import payment.Payment;
+import payment.PaymentPipeline;
+import repository.CustomerRepository;
+import repository.OrderLineRepository;
+import repository.OrderRepository;
+import repository.PayableRepository;
+import service.OrderService;
+import service.SalesService;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class OrderServiceImpl implements OrderService {
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private PayableRepository payableRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private KitchenDispatcher kitchenDispatcher;
+    @Autowired
+    private PaymentPipeline paymentPipeline;
+    @Autowired
+    private OrderEventBus eventBus;
+    @Autowired
+    private SalesService salesService;
+    @Autowired
+    private MenuCache menuCache;
+
+    /**
+     * Sends the orders that were still pending when the application stopped back to the kitchen.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void dispatchPendingOrders() {
+        ReplicaRouting.onPrimary(() -> orderRepository.findByStateOrderByIdAsc(OrderState.PENDING)).forEach(kitchenDispatcher::submit);
+    }
+
+    @Override
+    @Transactional
+    public void saveOrder(Order order) throws SQLException {
+        persist(order);
+    }
+
+    @Override
+    @Transactional
+    public void saveOrders(List<Order> orders) throws SQLException {
+        for (Order order : orders) {
+            persist(order);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void saveOrderLine(List<OrderLine> orderLine, Order order) throws SQLException {
+        changeLines(order.getId(), () -> {
+            for (OrderLine line : orderLine) {
+                line.setOrder(order);
+                if (line.getUnitPrice() == 0) {
+                    line.setUnitPrice(priceOf(line.getProduct()));
+                }
+            }
+            orderLineRepository.saveAll(orderLine);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void saveOrderLine(OrderLine orderLine, Order order, Connection conn) throws SQLException {
+        saveOrderLine(List.of(orderLine), order);
+    }
+
+    @Override
+    @Transactional
+    public void deleteOrder(Order order) throws SQLException {
+        orderRepository.lockAll(List.of(order.getId()));
+        List<SalesLine> before = salesService.findSalesLines(List.of(order.getId()));
+        // A pending card payment goes with the row: the payment pipeline voids payments of missing orders
+        orderRepository.deleteById(order.getId());
+        salesService.recordChange(before, List.of());
+        AfterCommit.run(() -> kitchenDispatcher.cancel(order.getId()));
+    }
+
+    @Override
+    @Transactional
+    public void deleteOrderLine(OrderLine orderLine) throws SQLException {
+        orderLineRepository.findById(orderLine.getId()).ifPresent(existing ->
+                changeLines(existing.getOrder().getId(), () -> orderLineRepository.delete(existing)));
+    }
+
+    @Override
+    @Transactional
+    public void updateOrder(Order order) throws SQLException {
+        // Locked so a kitchen or payment transition flushed meanwhile waits for this change
+        if (!orderRepository.lockAll(List.of(order.getId())).isEmpty()) {
+            List<SalesLine> before = salesService.findSalesLines(List.of(order.getId()));
+            persist(order);
+            if (order.getState() == OrderState.CANCELED) {
+                // Not charged any more; the payment pipeline refunds it if it is being charged right now
+                orderRepository.voidPendingPayments(List.of(order.getId()));
+            }
+            salesService.recordChange(before, salesService.findSalesLines(List.of(order.getId())));
+            AfterCommit.run(() -> {
+                if (order.getState() == OrderState.CANCELED) {
+                    kitchenDispatcher.cancel(order.getId());
+                }
+                publish(order);
+            });
+        } else {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found Id: " + order.getId());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void updateOrderLine(OrderLine orderLine) throws SQLException {
+        OrderLine existing = orderLineRepository.findById(orderLine.getId()).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Order line not found Id: " + orderLine.getId()));
+        changeLines(existing.getOrder().getId(), () -> {
+            if (orderLine.getOrder() == null) {
+                orderLine.setOrder(existing.getOrder());
+            }
+            if (orderLine.getUnitPrice() == 0) {
+                orderLine.setUnitPrice(priceOf(orderLine.getProduct()));
+            }
+            orderLineRepository.save(orderLine);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Order findOrder(int id) throws SQLException {
+        return orderRepository.findWithLinesById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found Id: " + id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> findOrdersByCustomer(Customer customer) throws SQLException {
+        return orderRepository.findByCustomerOrderByIdAsc(customer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> findOrdersByState(OrderState state, Customer customer) throws SQLException {
+        return orderRepository.findByStateAndCustomerOrderByIdAsc(state, customer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderLine findOrderLine(int id) throws SQLException {
+        return orderLineRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order line not found Id: " + id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderLine> findOrderLinesByOrder(Order order) throws SQLException {
+        return orderLineRepository.findByOrderOrderByIdAsc(order);
+    }
+
+    private void persist(Order order) {
+        if (order.getCustomer() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order without customer");
+        }
+        // The customer already exists: a reference keeps the cascade from re-inserting or reloading it.
+        order.setCustomer(customerRepository.getReferenceById(order.getCustomer().getId()));
+        if (order.getPayable() != null && order.getPayable().getId() == 0) {
+            payableRepository.save(order.getPayable());
+        }
+        if (order.getPaymentMethod() == null) {
+            order.setPaymentMethod(order.getPayable() == null
+                    ? PaymentMethod.UNPAID
+                    : PaymentMethod.values()[order.getPayable().paymentMethod()]);
+        }
+        boolean created = order.getId() == 0;
+        if (created && order.getState() == OrderState.PENDING && order.getPaymentMethod() == PaymentMethod.CARD) {
+            // Charged once committed, by the payment pipeline.
+            order.setPaymentStatus(PaymentStatus.PENDING);
+        }
+        Map<Integer, Product> products = products(order.getOrderLines());
+        double total = 0;
+        int itemCount = 0;
+        for (OrderLine orderLine : order.getOrderLines()) {
+            orderLine.setOrder(order);
+            orderLine.setProduct(products.get(orderLine.getProduct().getId()));
+            if (orderLine.getUnitPrice() == 0) {
+                orderLine.setUnitPrice(priceOf(orderLine.getProduct()));
+            }
+            total += orderLine.getAmount() * orderLine.getUnitPrice();
+            itemCount += orderLine.getAmount();
+        }
+        order.setTotal(total);
+        order.setItemCount(itemCount);
+        if (created && order.getState() == OrderState.PENDING) {
+            // Held before the commit, so a committed order is never left out of the kitchen or charged without cooking it
+            if (!kitchenDispatcher.reserve()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The kitchen is full, try again later");
+            }
+            AfterCommit.runOrUndo(() -> {
+                publish(order);
+                kitchenDispatcher.submitReserved(order);
+                if (order.getPaymentStatus() == PaymentStatus.PENDING) {
+                    paymentPipeline.submit(new Payment(order.getId(), order.getCustomer().getId(), order.getTotal()));
+                }
+            }, kitchenDispatcher::unreserve);
+        }
+        orderRepository.save(order);
+        if (created && order.getState() != OrderState.PENDING) {
+            // Imported orders may already be finished or canceled.
+            salesService.recordChange(List.of(), order.getOrderLines().stream().map(SalesLine::of).toList());
+        }
+    }
+
+    /**
+     * Runs a change to the lines of an order, then refreshes the order's
+     * total and the sales aggregates it counts towards. The order is locked
+     * first, so its state can not change between the two reads of its lines.
+     */
+    private void changeLines(int orderId, Runnable change) {
+        orderRepository.lockAll(List.of(orderId));
+        List<SalesLine> before = salesService.findSalesLines(List.of(orderId));
+        change.run();
+        orderRepository.updateTotals(List.of(orderId));
+        salesService.recordChange(before, salesService.findSalesLines(List.of(orderId)));
+    }
+
+    /**
+     * Returns the products of this persistence context for the given lines.
+     * Their products may be copies from the menu snapshot, which must not be
+     * attached to an order. Products in the second-level cache are taken
+     * from it, the others are loaded in one query.
+     *
+     * @param orderLines The lines of an order.
+     * @return The ordered products, by id.
+     */
+    private Map<Integer, Product> products(List<OrderLine> orderLines) {
+        List<Integer> ids = orderLines.stream().map(line -> line.getProduct().getId()).distinct().toList();
+        List<Product> products = entityManager.unwrap(Session.class).byMultipleIds(Product.class)
+                .with(CacheMode.NORMAL).enableSessionCheck(true).multiLoad(ids);
+        for (int i = 0; i < ids.size(); i++) {
+            if (products.get(i) == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Product not found Id: " + ids.get(i));
+            }
+        }
+        return products.stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    private double priceOf(Product product) {
+        Product current = menuCache.current().byId().get(product.getId());
+        return current != null ? current.getPrice() : product.getPrice();
+    }
+
+    private void publish(Order order) {
+        long customerId = order.getCustomer().getId();
+        eventBus.publish(OrderStatusEvent.topic(customerId), "order",
+                new OrderStatusEvent(order.getId(), customerId, order.getState()));
+    }
 }
@@ -1,4 +1,238 @@
 package service.impl;
 
-public class ProductServiceImpl {
+import cache.AllergenIndex;
+import cache.MenuCache;
+import cache.SearchIndex;
+import config.MetricsConfig;
+import dto.SearchMatch;
+import io.micrometer.core.annotation.Timed;
+import model.Ingredient;
+import model.Pasta;
+import model.Pizza;
+import model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import repository.IngredientRepository;
+import repository.ProductRepository;
+import service.ProductService;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ProductServiceImpl implements ProductService {
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private IngredientRepository ingredientRepository;
+    @Autowired
+    private MenuCache menuCache;
+    @Autowired
+    private AllergenIndex allergenIndex;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Value("${product.search.max-limit:50}")
+    private int maxSearchLimit;
+
+    @Override
+    public Product saveProduct(Product product) throws SQLException {
+        Product saved = productRepository.save(product);
+        menuCache.refresh();
+        allergenIndex.productChanged(saved);
+        searchIndex.productChanged(saved);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public Product saveProductIngredient(int ingredientId, int productId) throws SQLException {
+        Product product = findProductById(productId);
+        List<Ingredient> ingredients = ingredientsOf(product);
+        Ingredient ingredient = findIngredientsById(ingredientId);
+        if (!ingredients.contains(ingredient)) {
+            ingredients.add(ingredient);
+        }
+        menuCache.refresh();
+        allergenIndex.productChanged(product);
+        searchIndex.productChanged(product);
+        return product;
+    }
+
+    @Override
+    @Transactional
+    public Product saveIngredient(Ingredient ingredient, int productId) throws SQLException {
+        Product product = findProductById(productId);
+        ingredientsOf(product).add(ingredientRepository.save(ingredient));
+        menuCache.refresh();
+        allergenIndex.productChanged(product);
+        searchIndex.productChanged(product);
+        return product;
+    }
+
+    @Override
+    @Transactional
+    public void saveAlergen(String alergen, int ingredientId) throws SQLException {
+        Ingredient ingredient = findIngredientsById(ingredientId);
+        if (!ingredient.getAllergens().contains(alergen)) {
+            ingredient.getAllergens().add(alergen);
+        }
+        menuCache.refresh();
+        allergenIndex.ingredientChanged(ingredient);
+        searchIndex.ingredientChanged(ingredient);
+    }
+
+    @Override
+    public void deleteProduct(Product product) throws SQLException {
+        productRepository.deleteById(product.getId());
+        menuCache.refresh();
+        allergenIndex.productRemoved(product.getId());
+        searchIndex.productRemoved(product.getId());
+    }
+
+    @Override
+    @Transactional
+    public void deleteIngredient(Ingredient ingredient) throws SQLException {
+        for (Pizza pizza : productRepository.findPizzasByIngredient(ingredient.getId())) {
+            pizza.getIngredients().removeIf(used -> used.getId() == ingredient.getId());
+        }
+        for (Pasta pasta : productRepository.findPastasByIngredient(ingredient.getId())) {
+            pasta.getIngredients().removeIf(used -> used.getId() == ingredient.getId());
+        }
+        ingredientRepository.deleteById(ingredient.getId());
+        menuCache.refresh();
+        allergenIndex.ingredientRemoved(ingredient.getId());
+        searchIndex.ingredientRemoved(ingredient.getId());
+    }
+
+    @Override
+    @Transactional
+    public void deleteAlergen(String alergen, int ingredientId) throws SQLException {
+        Ingredient ingredient = findIngredientsById(ingredientId);
+        ingredient.getAllergens().remove(alergen);
+        menuCache.refresh();
+        allergenIndex.ingredientChanged(ingredient);
+        searchIndex.ingredientChanged(ingredient);
+    }
+
+    @Override
+    @Transactional
+    public void updateProduct(Product product) throws SQLException {
+        if (productRepository.existsById(product.getId())) {
+            Product saved = productRepository.save(product);
+            menuCache.refresh();
+            allergenIndex.productChanged(saved);
+            searchIndex.productChanged(saved);
+        } else {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found Id: " + product.getId());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void updateIngredient(Ingredient ingredient) throws SQLException {
+        if (ingredientRepository.existsById(ingredient.getId())) {
+            Ingredient saved = ingredientRepository.save(ingredient);
+            menuCache.refresh();
+            allergenIndex.ingredientChanged(saved);
+            searchIndex.ingredientChanged(saved);
+        } else {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingredient not found Id: " + ingredient.getId());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void updateAlergen(String alergen, String newName) throws SQLException {
+        ingredientRepository.renameAlergen(alergen, newName);
+        ingredientRepository.evictAllergens();
+        menuCache.refresh();
+        allergenIndex.allergenRenamed(alergen, newName);
+        searchIndex.allergenRenamed(alergen, newName);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Product findProductById(int id) throws SQLException {
+        return productRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found Id: " + id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Ingredient findIngredientsById(int id) throws SQLException {
+        return ingredientRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingredient not found Id: " + id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Ingredient findIngredientsByName(String name) throws SQLException {
+        return ingredientRepository.findByName(name).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingredient not found Name: " + name));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String findAlergensByName(String name) throws SQLException {
+        return String.join(", ", findIngredientsByName(name).getAllergens());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Ingredient> findIngredientsByProduct(int id) throws SQLException {
+        Product product = findProductById(id);
+        if (product instanceof Pizza pizza) {
+            return pizza.getIngredients();
+        }
+        if (product instanceof Pasta pasta) {
+            return pasta.getIngredients();
+        }
+        return List.of();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findAlergensByIngredient(Ingredient ingredient) throws SQLException {
+        return findIngredientsById(ingredient.getId()).getAllergens();
+    }
+
+    @Override
+    public List<Product> findAll() throws SQLException {
+        return menuCache.current().products();
+    }
+
+    @Override
+    public List<Product> findWithoutAlergens(List<String> alergens) throws SQLException {
+        Map<Integer, Product> menu = menuCache.current().byId();
+        List<Product> products = new ArrayList<>();
+        for (int id : allergenIndex.productsFreeOf(alergens)) {
+            Product product = menu.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public List<SearchMatch> search(String query, int limit) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be positive: " + limit);
+        }
+        return searchIndex.search(query, Math.min(limit, maxSearchLimit));
+    }
+
+    private static List<Ingredient> ingredientsOf(Product product) {
+        if (product instanceof Pizza pizza) {
+            return pizza.getIngredients();
+        }
+        if (product instanceof Pasta pasta) {
+            return pasta.getIngredients();
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Product has no ingredients Id: " + product.getId());
+    }
 }
@@ -0,0 +1,107 @@
+package service.impl;
+
+import dto.SalesLine;
+import jakarta.persistence.EntityManager;
+import model.DailyProductSales;
+import model.DailyProductSalesId;
+import model.OrderState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import repository.ArchivedOrderLineRepository;
+import repository.DailyProductSalesRepository;
+import repository.OrderLineRepository;
+import repository.OrderRepository;
+import service.SalesService;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Service
+public class SalesServiceImpl implements SalesService {
+    @Autowired
+    private DailyProductSalesRepository salesRepository;
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Override
+    public List<SalesLine> findSalesLines(Collection<Integer> orderIds) {
+        return orderIds.isEmpty() ? List.of() : orderLineRepository.findSalesLines(orderIds);
+    }
+
+    @Override
+    @Transactional
+    public void recordChange(List<SalesLine> before, List<SalesLine> after) {
+        Map<DailyProductSalesId, DailyProductSales> deltas = new HashMap<>();
+        before.forEach(line -> add(deltas, line, -1));
+        after.forEach(line -> add(deltas, line, 1));
+        deltas.values().removeIf(SalesServiceImpl::isZero);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // One upsert per row, in key order so concurrent transactions lock their rows in the same order
+        salesRepository.addAll(deltas.values().stream()
+                .sorted(Comparator.comparing((DailyProductSales delta) -> delta.getId().getDay())
+                        .thenComparingInt(delta -> delta.getId().getProductId()))
+                .toList());
+    }
+
+    @Override
+    @Transactional
+    public void rebuild() {
+        orderLineRepository.fillMissingUnitPrices();
+        orderRepository.fillMissingTotals();
+        salesRepository.deleteAllRows();
+        Map<DailyProductSalesId, DailyProductSales> totals = new HashMap<>();
+        try (Stream<SalesLine> lines = orderLineRepository.streamCountedSalesLines()) {
+            lines.forEach(line -> add(totals, line, 1));
+        }
+        try (Stream<SalesLine> lines = archivedOrderLineRepository.streamSalesLines()) {
+            lines.forEach(line -> add(totals, line, 1));
+        }
+        totals.values().forEach(entityManager::persist);
+    }
+
+    @Override
+    public List<DailyProductSales> findDailySales(LocalDate from, LocalDate to) {
+        return salesRepository.findByDayBetween(from, to);
+    }
+
+    private static void add(Map<DailyProductSalesId, DailyProductSales> deltas, SalesLine line, int sign) {
+        boolean sold = line.state() == OrderState.FINISHED || line.state() == OrderState.DELIVERED;
+        boolean canceled = line.state() == OrderState.CANCELED;
+        if (!sold && !canceled) {
+            return;
+        }
+        LocalDate day = Instant.ofEpochMilli(line.orderDate().getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+        DailyProductSalesId id = new DailyProductSalesId(day, line.productId());
+        DailyProductSales delta = deltas.computeIfAbsent(id, key -> new DailyProductSales(key, 0, 0, 0, 0));
+        int units = sign * line.amount();
+        double revenue = units * line.unitPrice();
+        if (sold) {
+            delta.setUnitsSold(delta.getUnitsSold() + units);
+            delta.setRevenue(delta.getRevenue() + revenue);
+        } else {
+            delta.setUnitsCanceled(delta.getUnitsCanceled() + units);
+            delta.setCanceledRevenue(delta.getCanceledRevenue() + revenue);
+        }
+    }
+
+    private static boolean isZero(DailyProductSales delta) {
+        return delta.getUnitsSold() == 0 && delta.getRevenue() == 0
+                && delta.getUnitsCanceled() == 0 && delta.getCanceledRevenue() == 0;
+    }
+}
@@ -0,0 +1,16 @@
+-- Same indexes as db/migration/mysql, for the embedded test database. Unlike MySQL, H2 keeps the
+-- index it made for a foreign key when a new one covers it: such a constraint is made again on the new index.
+
+-- Order history of a customer in a state (GET /api/orders?customer=..&state=..). Without
+-- a state, H2 reads the index of the foreign key to customer.
+create index idx_customer_order_customer_state on customer_order (customer_id, state);
+-- Orders in a state, by date: pending orders at startup, the archive job and the sales analytics
+create index idx_customer_order_state_date on customer_order (state, order_date);
+-- Card payments still pending at startup
+create index idx_customer_order_payment_status on customer_order (payment_status);
+-- Lines of an order
+create index idx_order_line_order on order_line (order_id);
+alter table order_line drop constraint FKhx2sh9w4yimwp265ak68pa7i5;
+alter table order_line add constraint FKhx2sh9w4yimwp265ak68pa7i5 foreign key (order_id) references customer_order (id);
+-- Archived orders read by the sales analytics
+create index idx_order_archive_state_date on customer_order_archive (state, order_date);
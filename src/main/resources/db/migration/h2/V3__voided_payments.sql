@@ -0,0 +1,3 @@
+-- Same change as db/migration/mysql, for the embedded test database
+alter table customer_order alter column payment_status set data type enum ('DECLINED','FAILED','PAID','PENDING','VOIDED');
+alter table customer_order_archive alter column payment_status set data type enum ('DECLINED','FAILED','PAID','PENDING','VOIDED');
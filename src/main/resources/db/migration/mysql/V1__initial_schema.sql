@@ -0,0 +1,143 @@
+-- Schema as Hibernate (ddl-auto=update) created it. Databases that already have it are baselined at this version.
+
+create table customer (
+    admin bit not null,
+    id bigint not null auto_increment,
+    customer_name varchar(255),
+    direction varchar(255),
+    dni varchar(255) not null,
+    mail varchar(255) not null,
+    password varchar(255),
+    phone varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table payable (
+    id integer not null,
+    dtype varchar(31) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table customer_order (
+    id integer not null,
+    item_count integer,
+    payable_id integer,
+    payment_method tinyint,
+    total float(53) not null,
+    customer_id bigint not null,
+    order_date datetime(6),
+    payment_status enum ('DECLINED','FAILED','PAID','PENDING'),
+    state enum ('CANCELED','DELIVERED','FINISHED','PENDING'),
+    primary key (id)
+) engine=InnoDB;
+
+create table product (
+    id integer not null,
+    price float(53) not null,
+    dtype varchar(31) not null,
+    name varchar(255) not null,
+    size enum ('BIG','MEDIUM','SMALL'),
+    primary key (id)
+) engine=InnoDB;
+
+create table ingredient (
+    id integer not null,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table ingredient_allergen (
+    ingredient_id integer not null,
+    allergens varchar(255)
+) engine=InnoDB;
+
+create table product_ingredient (
+    ingredient_id integer not null,
+    product_id integer not null
+) engine=InnoDB;
+
+create table order_line (
+    amount integer not null,
+    id integer not null,
+    order_id integer not null,
+    product_id integer,
+    unit_price float(53),
+    primary key (id)
+) engine=InnoDB;
+
+create table daily_product_sales (
+    canceled_revenue float(53),
+    product_id integer not null,
+    revenue float(53) not null,
+    sales_day date not null,
+    units_canceled integer,
+    units_sold integer,
+    primary key (product_id, sales_day)
+) engine=InnoDB;
+
+create table customer_order_archive (
+    id integer not null,
+    item_count integer,
+    payable_id integer,
+    payment_method tinyint,
+    total float(53) not null,
+    archived_at datetime(6),
+    customer_id bigint not null,
+    order_date datetime(6),
+    payment_status enum ('DECLINED','FAILED','PAID','PENDING'),
+    state enum ('CANCELED','DELIVERED','FINISHED','PENDING'),
+    primary key (id)
+) engine=InnoDB;
+
+create table order_line_archive (
+    amount integer not null,
+    id integer not null,
+    order_id integer not null,
+    product_id integer,
+    unit_price float(53),
+    product_name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+-- MySQL has no sequences: Hibernate keeps the next value of each one in a table
+create table customer_order_seq (
+    next_val bigint
+) engine=InnoDB;
+insert into customer_order_seq values (1);
+
+create table ingredient_seq (
+    next_val bigint
+) engine=InnoDB;
+insert into ingredient_seq values (1);
+
+create table order_line_seq (
+    next_val bigint
+) engine=InnoDB;
+insert into order_line_seq values (1);
+
+create table payable_seq (
+    next_val bigint
+) engine=InnoDB;
+insert into payable_seq values (1);
+
+create table product_seq (
+    next_val bigint
+) engine=InnoDB;
+insert into product_seq values (1);
+
+alter table customer add constraint UK9jf7jfr0lltn86gmjn14l71d8 unique (dni);
+alter table customer add constraint UK9bs0cm53439brbopbpxhg68e unique (mail);
+alter table customer_order add constraint UKdi7ehqvfrtpmncv0x5qn452k0 unique (payable_id);
+alter table ingredient add constraint UKbcuaj97y3iu3t2vj26jg6hijj unique (name);
+alter table product add constraint UKjmivyxk9rmgysrmsqw15lqr5b unique (name);
+
+create index idx_order_archive_customer on customer_order_archive (customer_id, id);
+create index idx_order_line_archive_order on order_line_archive (order_id);
+
+alter table customer_order add constraint FKf9abd30bhiqvugayxlpq8ryq9 foreign key (customer_id) references customer (id);
+alter table customer_order add constraint FKcsw02lett64i8ybpnpumxn330 foreign key (payable_id) references payable (id);
+alter table ingredient_allergen add constraint FKc3w798qlr7lqivqy2fjh8b9pq foreign key (ingredient_id) references ingredient (id);
+alter table order_line add constraint FKhx2sh9w4yimwp265ak68pa7i5 foreign key (order_id) references customer_order (id);
+alter table order_line add constraint FKpf904tci8garypkvm32cqupye foreign key (product_id) references product (id);
+alter table product_ingredient add constraint FKoexfkyxqal5o2c6cnendmu58e foreign key (ingredient_id) references ingredient (id);
+alter table product_ingredient add constraint FK82j6ju1bhetgb0q2snlosewwb foreign key (product_id) references product (id);
@@ -0,0 +1,15 @@
+-- Order dates keep their time since orders are stored as timestamps. Databases created
+-- by ddl-auto=update before that still have a DATE column, which update never widened.
+alter table customer_order modify order_date datetime(6);
+
+-- Order history of a customer, with or without a state (GET /api/orders?customer=..&state=..).
+-- It also serves the foreign key to customer.
+create index idx_customer_order_customer_state on customer_order (customer_id, state);
+-- Orders in a state, by date: pending orders at startup, the archive job and the sales analytics
+create index idx_customer_order_state_date on customer_order (state, order_date);
+-- Card payments still pending at startup
+create index idx_customer_order_payment_status on customer_order (payment_status);
+-- Lines of an order. MySQL drops the index it made for the foreign key, which this one replaces.
+create index idx_order_line_order on order_line (order_id);
+-- Archived orders read by the sales analytics
+create index idx_order_archive_state_date on customer_order_archive (state, order_date);
@@ -0,0 +1,3 @@
+-- Card payments of orders canceled before they were settled are voided instead of charged
+alter table customer_order modify payment_status enum ('DECLINED','FAILED','PAID','PENDING','VOIDED');
+alter table customer_order_archive modify payment_status enum ('DECLINED','FAILED','PAID','PENDING','VOIDED');
@@ -0,0 +1,181 @@
+package cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import main.MainApplication;
+import model.Drink;
+import model.Ingredient;
+import model.Pizza;
+import model.Product;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import service.ProductService;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filters the catalog by allergens through the product service: the query
+ * mask, and the index after products, ingredients and allergens are added,
+ * changed, renamed and deleted. Every test uses its own allergen names, as
+ * the index is shared by the whole context.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url = jdbc:h2:mem:allergens;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+class AllergenIndexTest {
+    @Autowired
+    private AllergenIndex allergenIndex;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void evictSecondLevelCache() {
+        // The cache regions are shared by every test context, each on its own database
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    void theQueryMaskIgnoresCaseSpacesAndUnknownNames() throws SQLException {
+        Pizza both = pizza("Mask both", ingredient("Mask dough", "Trigo"), ingredient("Mask cheese", "Lactosa"));
+        Pizza wheat = pizza("Mask wheat", ingredient("Mask crust", "Trigo"));
+        Drink drink = drink("Mask water");
+
+        assertFreeOf(List.of("trigo"), List.of(drink), List.of(both, wheat));
+        assertFreeOf(List.of(" LACTOSA "), List.of(wheat, drink), List.of(both));
+        assertFreeOf(List.of("Trigo", "Lactosa"), List.of(drink), List.of(both, wheat));
+        assertFreeOf(List.of("Never seen"), List.of(both, wheat, drink), List.of());
+        assertFreeOf(List.of(), List.of(both, wheat, drink), List.of());
+        // The service serves the same products, from the menu
+        assertEquals(Arrays.stream(allergenIndex.productsFreeOf(List.of("trigo"))).boxed().toList(),
+                productService.findWithoutAlergens(List.of("trigo")).stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void allergensBeyondTheFirstWordAreMatched() throws SQLException {
+        String[] many = IntStream.range(0, 70).mapToObj(i -> "Word allergen " + i).toArray(String[]::new);
+        Pizza all = pizza("Word all", ingredient("Word everything", many));
+        Pizza last = pizza("Word last", ingredient("Word tail", many[69]));
+
+        assertFreeOf(List.of(many[0]), List.of(last), List.of(all));
+        assertFreeOf(List.of(many[69]), List.of(), List.of(all, last));
+        assertFreeOf(List.of(many[68]), List.of(last), List.of(all));
+    }
+
+    @Test
+    void theIndexFollowsProductAndIngredientChanges() throws SQLException {
+        Pizza pizza = pizza("Change pizza", ingredient("Change anchovy", "Pescado"));
+        assertFreeOf(List.of("Pescado"), List.of(), List.of(pizza));
+
+        Ingredient anchovy = productService.findIngredientsByName("Change anchovy");
+        anchovy.setAllergens(new ArrayList<>(List.of("Sulfitos")));
+        productService.updateIngredient(anchovy);
+        assertFreeOf(List.of("Pescado"), List.of(pizza), List.of());
+        assertFreeOf(List.of("Sulfitos"), List.of(), List.of(pizza));
+
+        Pizza updated = (Pizza) productService.findProductById(pizza.getId());
+        updated.getIngredients().add(ingredient("Change egg", "Huevo"));
+        productService.updateProduct(updated);
+        assertFreeOf(List.of("Huevo"), List.of(), List.of(pizza));
+
+        productService.deleteIngredient(productService.findIngredientsByName("Change egg"));
+        assertFreeOf(List.of("Huevo"), List.of(pizza), List.of());
+
+        productService.deleteProduct(productService.findProductById(pizza.getId()));
+        assertFalse(contains(allergenIndex.productsFreeOf(List.of()), pizza.getId()));
+    }
+
+    @Test
+    void renamingAnAllergenToAKnownNameMergesTheirBits() throws SQLException {
+        Pizza lupin = pizza("Rename lupin", ingredient("Rename flour", "Altramuz"));
+        Pizza lupine = pizza("Rename lupine", ingredient("Rename bread", "Lupino"));
+        Pizza celery = pizza("Rename celery", ingredient("Rename stalk", "Apio"));
+
+        productService.updateAlergen("Apio", "Celery");
+        assertFreeOf(List.of("celery"), List.of(lupin, lupine), List.of(celery));
+        assertFreeOf(List.of("Apio"), List.of(lupin, lupine, celery), List.of());
+
+        productService.updateAlergen("Altramuz", "lupino ");
+        assertFreeOf(List.of("Lupino"), List.of(celery), List.of(lupin, lupine));
+        assertFreeOf(List.of("Altramuz"), List.of(lupin, lupine, celery), List.of());
+    }
+
+    @Test
+    void changesAreSeenOnlyOnceTheirTransactionCommits() throws SQLException {
+        Pizza pizza = pizza("Commit pizza", ingredient("Commit nuts", "Cacahuete"));
+
+        transactionTemplate.executeWithoutResult(status -> changeAllergens("Commit nuts", "Sesamo"));
+        assertFreeOf(List.of("Cacahuete"), List.of(pizza), List.of());
+        assertFreeOf(List.of("Sesamo"), List.of(), List.of(pizza));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            changeAllergens("Commit nuts", "Mostaza");
+            assertFreeOf(List.of("Sesamo"), List.of(), List.of(pizza));
+            status.setRollbackOnly();
+        });
+        assertFreeOf(List.of("Sesamo"), List.of(), List.of(pizza));
+        assertFreeOf(List.of("Mostaza"), List.of(pizza), List.of());
+    }
+
+    private void changeAllergens(String ingredientName, String... allergens) {
+        try {
+            Ingredient ingredient = productService.findIngredientsByName(ingredientName);
+            ingredient.setAllergens(new ArrayList<>(List.of(allergens)));
+            productService.updateIngredient(ingredient);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void assertFreeOf(List<String> allergens, List<? extends Product> free, List<? extends Product> notFree) {
+        int[] ids = allergenIndex.productsFreeOf(allergens);
+        for (Product product : free) {
+            assertTrue(contains(ids, product.getId()), product.getName() + " should be free of " + allergens);
+        }
+        for (Product product : notFree) {
+            assertFalse(contains(ids, product.getId()), product.getName() + " should not be free of " + allergens);
+        }
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        return Arrays.stream(ids).anyMatch(candidate -> candidate == id);
+    }
+
+    private Drink drink(String name) throws SQLException {
+        Drink drink = new Drink();
+        drink.setName(name);
+        drink.setPrice(2.0);
+        return (Drink) productService.saveProduct(drink);
+    }
+
+    private Pizza pizza(String name, Ingredient... ingredients) throws SQLException {
+        Pizza pizza = new Pizza();
+        pizza.setName(name);
+        pizza.setPrice(9.0);
+        pizza.setIngredients(new ArrayList<>(List.of(ingredients)));
+        return (Pizza) productService.saveProduct(pizza);
+    }
+
+    private static Ingredient ingredient(String name, String... allergens) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName(name);
+        ingredient.setAllergens(new ArrayList<>(List.of(allergens)));
+        return ingredient;
+    }
+}
@@ -0,0 +1,208 @@
+package cache;
+
+import dto.SearchMatch;
+import main.MainApplication;
+import model.Drink;
+import model.Ingredient;
+import model.Pizza;
+import model.Product;
+import model.TYPE;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import service.ProductService;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Searches the catalog through the product service: the ranking of the
+ * matches, accents and case, short queries answered from the word prefixes,
+ * longer ones from the trigrams, and the index after products, ingredients
+ * and allergens are added, renamed and deleted. Every test uses its own
+ * words, as the index is shared by the whole context.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url = jdbc:h2:mem:search;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+class SearchIndexTest {
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private AllergenIndex allergenIndex;
+
+    @Test
+    void matchesRankByPositionThenFieldThenLength() throws SQLException {
+        drink("Chocolate");
+        drink("Coca cola");
+        drink("Cola zero");
+        drink("Cola");
+        pizza("Hawaiana", ingredient("Cola glaze"));
+
+        assertEquals(List.of("Cola", "Cola zero", "Hawaiana", "Coca cola", "Chocolate"), names(search("cola")));
+        SearchMatch viaIngredient = search("cola").get(2);
+        assertEquals(SearchMatch.Field.INGREDIENT, viaIngredient.field());
+        assertEquals("Cola glaze", viaIngredient.matched());
+        assertEquals(TYPE.PIZZA, viaIngredient.type());
+        assertEquals(List.of("Cola", "Cola zero"), names(productService.search("cola", 2)));
+    }
+
+    @Test
+    void accentsAndCaseAreIgnored() throws SQLException {
+        drink("Piña Fría");
+        pizza("Picante", ingredient("Jalapeño", "Capsaicina"));
+
+        for (String query : List.of("pina fria", "PIÑA", "Fria", "piña  FRÍA")) {
+            assertEquals(List.of("Piña Fría"), names(search(query)), query);
+        }
+        SearchMatch match = search("JALAPENO").get(0);
+        assertEquals("Picante", match.name());
+        assertEquals("Jalapeño", match.matched());
+        assertEquals(SearchMatch.Field.ALLERGEN, search("capsaicina").get(0).field());
+        assertTrue(search("  ").isEmpty());
+        assertTrue(search("¡!").isEmpty());
+    }
+
+    @Test
+    void shortQueriesOnlyMatchTheStartOfAWord() throws SQLException {
+        drink("Tamarindo");
+        drink("Batido de tamarindo");
+        drink("Ultramarino");
+
+        assertEquals(List.of("Tamarindo", "Batido de tamarindo"), names(search("ta")));
+        assertEquals(List.of("Ultramarino"), names(search("u")));
+        assertTrue(search("ma").isEmpty(), "Two letters in the middle of a word");
+        // From three letters the trigrams also find the middle of a word, ranked after the starts
+        assertEquals(List.of("Tamarindo", "Ultramarino", "Batido de tamarindo"), names(search("mar")));
+        assertEquals(List.of("Tamarindo", "Batido de tamarindo"), names(search("tam")));
+    }
+
+    @Test
+    void queriesWithTyposFindNothingRatherThanWrongProducts() throws SQLException {
+        drink("Banana split");
+
+        assertEquals(List.of("Banana split"), names(search("anan")));
+        // Every trigram of "nanana" is in "banana", but the term does not hold it
+        assertTrue(search("nanana").isEmpty());
+        assertTrue(search("bananna").isEmpty());
+        assertTrue(search("splti").isEmpty());
+    }
+
+    @Test
+    void theIndexFollowsAddsRenamesAndDeletes() throws SQLException {
+        assertTrue(search("quinoa").isEmpty());
+        Pizza pizza = pizza("Quinoa verde", ingredient("Rucula", "Sesamo"));
+        assertEquals(List.of("Quinoa verde"), names(search("quinoa")));
+        assertEquals(List.of("Quinoa verde"), names(search("rucula")));
+
+        Product renamed = productService.findProductById(pizza.getId());
+        renamed.setName("Espelta verde");
+        productService.updateProduct(renamed);
+        assertTrue(search("quinoa").isEmpty());
+        assertEquals(List.of("Espelta verde"), names(search("espelta")));
+
+        Ingredient rucula = productService.findIngredientsByName("Rucula");
+        rucula.setName("Canonigos");
+        productService.updateIngredient(rucula);
+        assertTrue(search("rucula").isEmpty());
+        assertEquals("Canonigos", search("canonigos").get(0).matched());
+
+        productService.updateAlergen("Sesamo", "Sesame seeds");
+        assertTrue(search("sesamo").isEmpty());
+        assertEquals("Sesame seeds", search("sesame").get(0).matched());
+
+        productService.deleteIngredient(productService.findIngredientsByName("Canonigos"));
+        assertTrue(search("canonigos").isEmpty());
+        assertTrue(search("sesame").isEmpty(), "The allergen came only from the deleted ingredient");
+        assertEquals(List.of("Espelta verde"), names(search("espelta")));
+
+        productService.deleteProduct(productService.findProductById(pizza.getId()));
+        assertTrue(search("espelta").isEmpty());
+    }
+
+    @Test
+    void allergenRenamesMatchNamesAsTheAllergenIndexDoes() throws SQLException {
+        Pizza pizza = pizza("Dijon", ingredient("Mostaza antigua", "Mostaza", "mustard"));
+
+        // Both indexes are told directly, as the database compares the names with its own collation
+        searchIndex.allergenRenamed(" MOSTAZA", "Mustard ");
+        allergenIndex.allergenRenamed(" MOSTAZA", "Mustard ");
+        assertTrue(search("mostaza").stream().noneMatch(match -> match.field() == SearchMatch.Field.ALLERGEN));
+        assertEquals("Mustard ", search("mustard").get(0).matched(), "One allergen once renamed, under the new name");
+        assertTrue(Arrays.stream(allergenIndex.productsFreeOf(List.of("Mustard"))).noneMatch(id -> id == pizza.getId()));
+    }
+
+    @Test
+    void changesAreSeenOnlyOnceTheirTransactionCommits() throws SQLException {
+        Drink first = drink("Horchata");
+        Drink second = drink("Granizado");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            rename(first, "Kombucha");
+            rename(second, "Kefir");
+            assertEquals(List.of("Horchata"), names(search("horchata")), "Seen before the commit");
+        });
+        assertTrue(search("horchata").isEmpty());
+        assertEquals(List.of("Kombucha"), names(search("kombucha")));
+        assertEquals(List.of("Kefir"), names(search("kefir")));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            rename(first, "Limonada");
+            status.setRollbackOnly();
+        });
+        assertTrue(search("limonada").isEmpty());
+        assertEquals(List.of("Kombucha"), names(search("kombucha")));
+    }
+
+    private void rename(Product product, String name) {
+        try {
+            Product stored = productService.findProductById(product.getId());
+            stored.setName(name);
+            productService.updateProduct(stored);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<SearchMatch> search(String query) {
+        return productService.search(query, 10);
+    }
+
+    private static List<String> names(List<SearchMatch> matches) {
+        return matches.stream().map(SearchMatch::name).toList();
+    }
+
+    private Drink drink(String name) throws SQLException {
+        Drink drink = new Drink();
+        drink.setName(name);
+        drink.setPrice(2.0);
+        return (Drink) productService.saveProduct(drink);
+    }
+
+    private Pizza pizza(String name, Ingredient... ingredients) throws SQLException {
+        Pizza pizza = new Pizza();
+        pizza.setName(name);
+        pizza.setPrice(9.0);
+        pizza.setIngredients(new ArrayList<>(List.of(ingredients)));
+        return (Pizza) productService.saveProduct(pizza);
+    }
+
+    private static Ingredient ingredient(String name, String... allergens) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName(name);
+        ingredient.setAllergens(new ArrayList<>(List.of(allergens)));
+        return ingredient;
+    }
+}
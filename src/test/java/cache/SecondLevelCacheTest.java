@@ -0,0 +1,98 @@
+package cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import main.MainApplication;
+import model.Drink;
+import model.Ingredient;
+import model.Product;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import repository.IngredientRepository;
+import service.ProductService;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the regions of the catalog are created with the settings of
+ * application.conf, which Caffeine reads at startup and would otherwise
+ * replace by its defaults without a word, and that reads of an entity and
+ * of a cacheable query are served from them.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url = jdbc:h2:mem:l2-cache;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+class SecondLevelCacheTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Test
+    void regionsHaveTheConfiguredSizesAndExpiry() {
+        CacheManager cacheManager = ((JCacheRegionFactory) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getCache().getRegionFactory()).getCacheManager();
+
+        assertEquals(OptionalLong.of(5000), settings(cacheManager, "model.Product").getMaximumSize());
+        assertEquals(OptionalLong.of(5000), settings(cacheManager, "model.Pizza.ingredients").getMaximumSize());
+        assertEquals(OptionalLong.of(5000), settings(cacheManager, "model.Pasta.ingredients").getMaximumSize());
+        assertEquals(OptionalLong.of(20000), settings(cacheManager, "model.Ingredient").getMaximumSize());
+        assertEquals(OptionalLong.of(20000), settings(cacheManager, "model.Ingredient.allergens").getMaximumSize());
+        CaffeineConfiguration<?, ?> queries = settings(cacheManager, "default-query-results-region");
+        assertEquals(OptionalLong.of(1000), queries.getMaximumSize());
+        assertEquals(OptionalLong.of(Duration.ofMinutes(10).toNanos()), queries.getExpireAfterWrite());
+        assertEquals(OptionalLong.empty(), settings(cacheManager, "default-update-timestamps-region").getMaximumSize());
+    }
+
+    @Test
+    void entitiesAndQueriesAreReadFromTheCache() throws SQLException {
+        Drink drink = new Drink();
+        drink.setName("Cached cola");
+        drink.setPrice(2.0);
+        int productId = productService.saveProduct(drink).getId();
+        ingredientRepository.save(new Ingredient(0, "Cached basil", new ArrayList<>(List.of("none"))));
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        for (int read = 0; read < 2; read++) {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                assertNotNull(entityManager.find(Product.class, productId));
+            } finally {
+                entityManager.close();
+            }
+            assertTrue(ingredientRepository.findByName("Cached basil").isPresent());
+        }
+
+        assertEquals(1, statistics.getCacheRegionStatistics("model.Product").getHitCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    private static CaffeineConfiguration<?, ?> settings(CacheManager cacheManager, String region) {
+        Cache<Object, Object> cache = cacheManager.getCache(region);
+        assertNotNull(cache, "Region " + region);
+        return cache.getConfiguration(CaffeineConfiguration.class);
+    }
+}
@@ -0,0 +1,117 @@
+package config;
+
+import events.OrderEventBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kitchen.OrderStateWriter;
+import main.MainApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import service.impl.OrderArchiveServiceImpl;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the application with the {@code fast} profile and its lazy beans:
+ * the beans with scheduled jobs stay eager and their jobs are registered,
+ * the others wait for their first use, and the catalog caches are built
+ * before readiness turns UP.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles({"test", "fast"})
+@Import(FastStartTest.Config.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url = jdbc:h2:mem:fast-start;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        // A replica adds ReplicaRouting, a scheduled bean declared by a factory method; its lag can not be read, so it is unused
+        "spring.datasource.replica.url = jdbc:h2:mem:fast-start-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"})
+class FastStartTest {
+    @Autowired
+    private ConfigurableApplicationContext context;
+    @Autowired
+    private ScheduledTaskHolder scheduledTasks;
+    @Autowired
+    private ApplicationAvailability availability;
+    @Autowired
+    private ReadinessProbe readinessProbe;
+
+    /**
+     * Records how many cache warm-ups had finished when readiness turned UP.
+     */
+    static class ReadinessProbe {
+        private final MeterRegistry meterRegistry;
+        private volatile Long warmUpsWhenReady;
+
+        ReadinessProbe(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @EventListener
+        void onAvailabilityChange(AvailabilityChangeEvent<?> event) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                Timer warmUp = meterRegistry.find("pizzeria.cache.warm-up").timer();
+                warmUpsWhenReady = warmUp == null ? 0 : warmUp.count();
+            }
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Config {
+        @Bean
+        ReadinessProbe readinessProbe(MeterRegistry meterRegistry) {
+            return new ReadinessProbe(meterRegistry);
+        }
+    }
+
+    @Test
+    void scheduledBeansStayEagerAndTheirJobsAreRegistered() {
+        assertTrue(context.getEnvironment().getProperty("spring.main.lazy-initialization", Boolean.class, false));
+        Set<Class<?>> scheduled = scheduledTasks.getScheduledTasks().stream()
+                .map(task -> task.getTask().getRunnable().toString())
+                .map(FastStartTest::declaringClass)
+                .collect(Collectors.toSet());
+
+        // Most of them are also needed by the startup listeners, so being created does not prove they are eager
+        for (Class<?> type : List.of(OrderStateWriter.class, OrderEventBus.class, OrderArchiveServiceImpl.class, ReplicaRouting.class)) {
+            for (String name : context.getBeanNamesForType(type)) {
+                assertFalse(context.getBeanFactory().getBeanDefinition(name).isLazyInit(), name + " is lazy");
+            }
+            assertTrue(scheduled.contains(type), "No job registered for " + type.getName());
+        }
+        assertTrue(context.getBeanFactory().getBeanDefinition("productController").isLazyInit());
+        assertFalse(context.getBeanFactory().containsSingleton("productController"), "Created before its first use");
+    }
+
+    @Test
+    void theCachesAreWarmBeforeReadinessTurnsUp() {
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+        assertNotNull(readinessProbe.warmUpsWhenReady, "Readiness never turned UP");
+        assertEquals(1, readinessProbe.warmUpsWhenReady);
+    }
+
+    private static Class<?> declaringClass(String method) {
+        try {
+            return Class.forName(method.substring(0, method.lastIndexOf('.')));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package config;
+
+import main.MainApplication;
+import model.Customer;
+import model.Drink;
+import model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+import service.CustomerService;
+import service.ProductService;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the application on two embedded databases, a primary and a replica.
+ * Replication is played by hand: the replica is overwritten with a script
+ * of the primary, and it reports its lag through a table of its own. Rows
+ * written after the copy are only on the primary, which tells where each
+ * read went.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url = jdbc:h2:mem:primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.url = " + ReplicaRoutingTest.REPLICA_URL,
+        "spring.datasource.replica.lag-query = select lag_seconds from replica_status",
+        "spring.datasource.replica.max-lag-seconds = 5",
+        "spring.datasource.replica.lag-check-interval-ms = 3600000"})
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final AtomicInteger dnis = new AtomicInteger();
+
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ReplicaRouting replicaRouting;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Test
+    void readOnlyTransactionsReadTheReplica() throws Exception {
+        replicate(0);
+        assertTrue(replicaRouting.isUsable());
+        Customer written = customerService.save(customer());
+
+        assertFalse(dnisOf(customerService.findAll()).contains(written.getDni()), "findAll read the primary");
+        assertTrue(customerService.findPage(0, 1000).stream().noneMatch(view -> view.id() == written.getId()),
+                "findPage read the primary");
+        // The customer cache is filled from the primary, so it never keeps what a lagging replica returned
+        assertEquals(written.getDni(), customerService.findById(written.getId()).getDni());
+
+        replicate(0);
+        assertTrue(dnisOf(customerService.findAll()).contains(written.getDni()));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToThePrimary() throws Exception {
+        replicate(60);
+        assertFalse(replicaRouting.isUsable());
+        Customer written = customerService.save(customer());
+
+        assertTrue(dnisOf(customerService.findAll()).contains(written.getDni()), "findAll read the lagging replica");
+
+        replica.update("update replica_status set lag_seconds = 1");
+        replicaRouting.checkLag();
+        assertTrue(replicaRouting.isUsable());
+        assertFalse(dnisOf(customerService.findAll()).contains(written.getDni()));
+    }
+
+    @Test
+    void writesCheckTheRowsTheyChangeOnThePrimary() throws Exception {
+        replicate(0);
+        assertTrue(replicaRouting.isUsable());
+        Customer written = customerService.save(customer());
+        Drink drink = new Drink();
+        drink.setName("Replica water");
+        drink.setPrice(1.0);
+        Product product = productService.saveProduct(drink);
+
+        // Both rows are missing from the replica, which is still in use
+        written.setCustomerName("Renamed on the primary");
+        assertEquals("Renamed on the primary", customerService.update(written).getCustomerName());
+        Customer duplicate = customer();
+        duplicate.setDni(written.getDni());
+        ResponseStatusException conflict = assertThrows(ResponseStatusException.class, () -> customerService.save(duplicate));
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+        product.setPrice(1.5);
+        productService.updateProduct(product);
+        assertEquals(1.5, new JdbcTemplate(primaryDataSource).queryForObject(
+                "select price from product where id = ?", Double.class, product.getId()));
+        assertTrue(replicaRouting.isUsable());
+    }
+
+    @Test
+    void brokenReplicaFallsBackToThePrimary() throws Exception {
+        replicate(0);
+        Customer written = customerService.save(customer());
+        replica.execute("drop all objects");
+        replicaRouting.checkLag();
+
+        assertFalse(replicaRouting.isUsable());
+        assertTrue(dnisOf(customerService.findAll()).contains(written.getDni()), "findAll read the broken replica");
+    }
+
+    /**
+     * Overwrites the replica with the current content of the primary.
+     */
+    private void replicate(long lagSeconds) {
+        List<String> script = new JdbcTemplate(primaryDataSource).queryForList("script", String.class);
+        replica.execute("drop all objects");
+        script.forEach(replica::execute);
+        replica.execute("create table replica_status (lag_seconds bigint)");
+        replica.update("insert into replica_status values (?)", lagSeconds);
+        replicaRouting.checkLag();
+    }
+
+    private static Customer customer() {
+        int n = dnis.incrementAndGet();
+        Customer customer = new Customer();
+        customer.setDni(String.format("%08dR", n));
+        customer.setCustomerName("Replica " + n);
+        customer.setDirection("Street " + n);
+        customer.setPhone("600000" + n);
+        customer.setMail("replica" + n + "@test");
+        customer.setPassword("secret");
+        return customer;
+    }
+
+    private static List<String> dnisOf(List<Customer> customers) {
+        return customers.stream().map(Customer::getDni).toList();
+    }
+}
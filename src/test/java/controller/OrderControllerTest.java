@@ -0,0 +1,162 @@
+package controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.OrderRequest;
+import kitchen.KitchenDispatcher;
+import main.MainApplication;
+import model.Customer;
+import model.Drink;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.PaymentMethod;
+import model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import repository.CustomerRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.OrderRepository;
+import service.OrderService;
+import service.ProductService;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Rejects orders that can not be placed with a client error, and orders
+ * the kitchen has no room for with a 503, before anything is written.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private KitchenDispatcher kitchenDispatcher;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void ordersWithoutLinesAreBadRequests() throws Exception {
+        long customerId = customer("no-lines");
+        long orders = orderRepository.count();
+
+        placeOrder(new OrderRequest(customerId, PaymentMethod.CASH, null), 400);
+        placeOrder(new OrderRequest(customerId, PaymentMethod.CASH, List.of()), 400);
+        placeOrder(new OrderRequest(customerId, PaymentMethod.CASH, Arrays.asList((OrderRequest.Line) null)), 400);
+
+        assertEquals(orders, orderRepository.count());
+    }
+
+    @Test
+    void linesWithoutAPositiveAmountAreBadRequests() throws Exception {
+        long customerId = customer("amounts");
+        long orders = orderRepository.count();
+
+        placeOrder(new OrderRequest(customerId, PaymentMethod.CARD, List.of(new OrderRequest.Line(1, 0))), 400);
+        placeOrder(new OrderRequest(customerId, PaymentMethod.CARD, List.of(new OrderRequest.Line(1, -2))), 400);
+
+        assertEquals(orders, orderRepository.count());
+    }
+
+    @Test
+    void anUnknownCustomerIsNotFound() throws Exception {
+        long orders = orderRepository.count();
+
+        placeOrder(new OrderRequest(Long.MAX_VALUE, PaymentMethod.CASH, List.of(new OrderRequest.Line(1, 1))), 404);
+
+        assertEquals(orders, orderRepository.count());
+    }
+
+    @Test
+    void aFullKitchenRefusesTheOrderBeforeItIsWritten() throws Exception {
+        long customerId = customer("full-kitchen");
+        int productId = drink("full-kitchen");
+        long orders = orderRepository.count();
+        int held = 0;
+        while (kitchenDispatcher.reserve()) {
+            held++;
+        }
+        try {
+            placeOrder(new OrderRequest(customerId, PaymentMethod.CARD, List.of(new OrderRequest.Line(productId, 1))), 503);
+            assertEquals(orders, orderRepository.count(), "Neither written nor charged");
+        } finally {
+            for (int i = 0; i < held; i++) {
+                kitchenDispatcher.unreserve();
+            }
+        }
+        placeOrder(new OrderRequest(customerId, PaymentMethod.CARD, List.of(new OrderRequest.Line(productId, 1))), 201);
+        assertEquals(orders + 1, orderRepository.count());
+    }
+
+    @Test
+    void anOrderRolledBackGivesItsKitchenPlaceBack() throws SQLException {
+        long customerId = customer("rolled-back");
+        Product product = new Drink();
+        product.setId(drink("rolled-back"));
+        long waiting = waitingOrders();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Order order = new Order();
+            order.setCustomer(customerRepository.getReferenceById(customerId));
+            order.setOrderDate(new Date());
+            order.setState(OrderState.PENDING);
+            order.setPaymentMethod(PaymentMethod.CASH);
+            order.getOrderLines().add(new OrderLine(0, 1, 0, product, order));
+            try {
+                orderService.saveOrder(order);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            assertEquals(waiting + 1, waitingOrders(), "Held while the order is being placed");
+            status.setRollbackOnly();
+        });
+        assertEquals(waiting, waitingOrders());
+    }
+
+    private long waitingOrders() {
+        return kitchenDispatcher.stats().get("KITCHEN").get("waitingOrders");
+    }
+
+    private int drink(String name) throws SQLException {
+        Drink drink = new Drink();
+        drink.setName("orders-" + name);
+        drink.setPrice(2.0);
+        return productService.saveProduct(drink).getId();
+    }
+
+    private void placeOrder(OrderRequest request, int expectedStatus) throws Exception {
+        mockMvc.perform(post("/api/orders").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().is(expectedStatus));
+    }
+
+    private long customer(String name) {
+        Customer customer = new Customer();
+        customer.setDni("orders-" + name);
+        customer.setMail("orders-" + name + "@test");
+        return customerRepository.save(customer).getId();
+    }
+}
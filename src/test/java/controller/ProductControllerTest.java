@@ -0,0 +1,93 @@
+package controller;
+
+import main.MainApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Serves the menu from its snapshot: a client that already has it gets a
+ * 304, and clients that accept gzip get the compressed variant with its own
+ * entity tag.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void anUnchangedMenuIsNotSentAgain() throws Exception {
+        MockHttpServletResponse menu = menu(null, null);
+        assertEquals(200, menu.getStatus());
+        String etag = menu.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        MockHttpServletResponse unchanged = menu(null, etag);
+        assertEquals(304, unchanged.getStatus());
+        assertEquals(0, unchanged.getContentAsByteArray().length);
+        assertEquals(etag, unchanged.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void clientsAcceptingGzipGetTheCompressedMenu() throws Exception {
+        MockHttpServletResponse plain = menu(null, null);
+        MockHttpServletResponse gzip = menu("gzip, deflate", null);
+        assertEquals(200, gzip.getStatus());
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzip.getHeader(HttpHeaders.VARY));
+        assertArrayEquals(plain.getContentAsByteArray(), gunzip(gzip.getContentAsByteArray()));
+
+        String gzipEtag = gzip.getHeader(HttpHeaders.ETAG);
+        assertNotEquals(plain.getHeader(HttpHeaders.ETAG), gzipEtag);
+        assertEquals(304, menu("gzip", gzipEtag).getStatus());
+        // The tag of one encoding does not validate the other
+        assertEquals(200, menu("gzip", plain.getHeader(HttpHeaders.ETAG)).getStatus());
+        assertEquals(200, menu(null, gzipEtag).getStatus());
+    }
+
+    @Test
+    void gzipIsSentOnlyWhenItsQualityIsAboveZero() throws Exception {
+        for (String refused : new String[]{"gzip;q=0", "deflate, gzip; q=0.0", "*;q=0", "gzip;q=0, *", "identity"}) {
+            assertNull(menu(refused, null).getHeader(HttpHeaders.CONTENT_ENCODING), refused);
+        }
+        for (String accepted : new String[]{"gzip;q=0.5", "deflate;q=1, GZIP;Q=0.1", "*", "identity, *;q=0.2"}) {
+            assertEquals("gzip", menu(accepted, null).getHeader(HttpHeaders.CONTENT_ENCODING), accepted);
+        }
+    }
+
+    private MockHttpServletResponse menu(String acceptEncoding, String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/products");
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
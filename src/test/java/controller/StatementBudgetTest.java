@@ -0,0 +1,405 @@
+package controller;
+
+import cache.CustomerCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.OrderRequest;
+import jakarta.persistence.EntityManagerFactory;
+import main.MainApplication;
+import model.ArchivedOrder;
+import model.ArchivedOrderLine;
+import model.Customer;
+import model.Drink;
+import model.Ingredient;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.Pasta;
+import model.PaymentMethod;
+import model.Pizza;
+import model.Product;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import repository.ArchivedOrderLineRepository;
+import repository.ArchivedOrderRepository;
+import repository.CustomerRepository;
+import service.OrderService;
+import service.ProductService;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Fails the build when an endpoint sends more SQL statements than its budget.
+ * <p>
+ * Every request runs against the embedded database of the "test" profile
+ * with cold caches: the second-level cache and the customer cache are
+ * cleared first. Only the menu snapshot is kept, as it is built once and
+ * not per request. The lists read by the requests hold several rows, so an
+ * N+1 regression adds statements and goes over the budget. The budgets of
+ * catalog changes include the rebuild of the menu that follows the commit.
+ * The class has its own database and saves its menu once, so that rebuild
+ * reads the same products whichever tests ran before.
+ * When a change legitimately needs more statements, raise the budget in the
+ * same commit.
+ * </p>
+ */
+@SpringBootTest(classes = MainApplication.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties =
+        "spring.datasource.url = jdbc:h2:mem:budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@Import(StatementCounter.Config.class)
+class StatementBudgetTest {
+    private static final int ROWS = 3;
+    private static final AtomicInteger names = new AtomicInteger();
+    private static List<Product> menu;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private CustomerCache customerCache;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+    @Autowired
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+
+    private Customer customer;
+    private List<Order> orders;
+
+    @BeforeEach
+    void createOrders() throws Exception {
+        for (int i = 0; i < ROWS; i++) {
+            customer = createCustomer();
+        }
+        if (menu == null) {
+            menu = List.of(saveProduct(pizza()), saveProduct(pasta()), saveProduct(drink()));
+        }
+        orders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Order order = new Order();
+            order.setCustomer(customer);
+            order.setOrderDate(new Date());
+            order.setState(OrderState.PENDING);
+            order.setPaymentMethod(PaymentMethod.CASH);
+            for (Product product : menu) {
+                OrderLine line = new OrderLine();
+                line.setProduct(product);
+                line.setAmount(2);
+                order.getOrderLines().add(line);
+            }
+            orderService.saveOrder(order);
+            orders.add(order);
+        }
+    }
+
+    // Customers
+
+    @Test
+    void saveCustomer() throws Exception {
+        Customer created = new Customer();
+        created.setDni(unique("dni"));
+        created.setMail(unique("mail"));
+        expectStatements(2, post("/api/customers").contentType(MediaType.APPLICATION_JSON).content(json(created)));
+    }
+
+    @Test
+    void findCustomerPage() throws Exception {
+        expectStatements(1, get("/api/customers").param("size", "50"));
+    }
+
+    @Test
+    void streamCustomers() throws Exception {
+        expectStatements(1, get("/api/customers/stream"));
+    }
+
+    @Test
+    void findCustomerById() throws Exception {
+        expectStatements(1, get("/api/customers/{id}", customer.getId()));
+    }
+
+    @Test
+    void findCustomerWithOrders() throws Exception {
+        expectStatements(1, get("/api/customers/{id}", customer.getId()).param("include", "orders"));
+    }
+
+    @Test
+    void customerCacheStats() throws Exception {
+        expectStatements(0, get("/api/customers/cache/stats"));
+    }
+
+    @Test
+    void updateCustomer() throws Exception {
+        Customer updated = createCustomer();
+        updated.setCustomerName("Renamed");
+        expectStatements(3, put("/api/customers").contentType(MediaType.APPLICATION_JSON).content(json(updated)));
+    }
+
+    @Test
+    void deleteCustomer() throws Exception {
+        Customer deleted = createCustomer();
+        expectStatements(3, delete("/api/customers/{id}", deleted.getId()));
+    }
+
+    // Orders
+
+    @Test
+    void placeOrder() throws Exception {
+        List<OrderRequest.Line> lines = menu.stream().map(product -> new OrderRequest.Line(product.getId(), 1)).toList();
+        OrderRequest request = new OrderRequest(customer.getId(), PaymentMethod.CASH, lines);
+        // The ordered products, with their ingredients and allergens, are loaded into the order's persistence context
+        expectStatements(7, post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(json(request)));
+    }
+
+    @Test
+    void placeOrderWithTheCatalogCached() throws Exception {
+        List<OrderRequest.Line> lines = menu.stream().map(product -> new OrderRequest.Line(product.getId(), 1)).toList();
+        OrderRequest request = new OrderRequest(customer.getId(), PaymentMethod.CASH, lines);
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+        for (Product product : menu) {
+            productService.findProductById(product.getId());
+        }
+        // The products come from the second-level cache
+        expectStatements(3, false, post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(json(request)));
+    }
+
+    @Test
+    void findOrdersByCustomer() throws Exception {
+        expectStatements(5, get("/api/orders").param("customer", String.valueOf(customer.getId())));
+    }
+
+    @Test
+    void findOrdersByState() throws Exception {
+        expectStatements(5, get("/api/orders").param("customer", String.valueOf(customer.getId())).param("state", "PENDING"));
+    }
+
+    @Test
+    void findOrdersWithArchive() throws Exception {
+        for (int i = 0; i < ROWS; i++) {
+            int id = -names.incrementAndGet();
+            archivedOrderRepository.save(new ArchivedOrder(id, new Date(), OrderState.DELIVERED, null, PaymentMethod.CASH,
+                    null, 10, 2, customer.getId(), new Date()));
+            for (Product product : menu) {
+                archivedOrderLineRepository.save(new ArchivedOrderLine(-names.incrementAndGet(), id, product.getId(),
+                        product.getName(), 1, 5));
+            }
+        }
+        expectStatements(7, get("/api/orders").param("customer", String.valueOf(customer.getId())).param("archived", "true"));
+    }
+
+    @Test
+    void findOrderById() throws Exception {
+        expectStatements(5, get("/api/orders/{id}", orders.get(0).getId()));
+    }
+
+    @Test
+    void deleteOrder() throws Exception {
+        expectStatements(9, delete("/api/orders/{id}", orders.get(0).getId()));
+    }
+
+    @Test
+    void archiveOrders() throws Exception {
+        saveOrders(OrderState.DELIVERED, LocalDate.now().minusYears(2));
+        // One chunk, plus the query that finds nothing left to move
+        expectStatements(6, post("/api/orders/archive"));
+    }
+
+    // Sales
+
+    @Test
+    void findDailySales() throws Exception {
+        saveOrders(OrderState.DELIVERED, LocalDate.now());
+        expectStatements(1, get("/api/sales/daily").param("from", LocalDate.now().minusDays(7).toString())
+                .param("to", LocalDate.now().toString()));
+    }
+
+    @Test
+    void rebuildSales() throws Exception {
+        saveOrders(OrderState.DELIVERED, LocalDate.now());
+        // The recomputed rows are inserted in one JDBC batch
+        expectStatements(6, post("/api/sales/rebuild"));
+    }
+
+    @Test
+    void analyzeSales() throws Exception {
+        saveOrders(OrderState.DELIVERED, LocalDate.now());
+        // Two streamed queries per partition of 31 days, however many orders they read
+        expectStatements(4, get("/api/analytics/sales").param("from", LocalDate.now().minusDays(61).toString())
+                .param("to", LocalDate.now().toString()));
+    }
+
+    // Products
+
+    @Test
+    void saveProduct() throws Exception {
+        expectStatements(9, post("/api/products").contentType(MediaType.APPLICATION_JSON).content(json(pizza())));
+    }
+
+    @Test
+    void findAllProducts() throws Exception {
+        expectStatements(0, get("/api/products"));
+    }
+
+    @Test
+    void findProductsWithoutAllergens() throws Exception {
+        expectStatements(0, get("/api/products").param("without", "gluten", "lactose"));
+    }
+
+    @Test
+    void searchProducts() throws Exception {
+        expectStatements(0, get("/api/products/search").param("q", "ma"));
+    }
+
+    @Test
+    void findProductById() throws Exception {
+        expectStatements(3, get("/api/products/{id}", menu.get(0).getId()));
+    }
+
+    @Test
+    void productCacheStats() throws Exception {
+        expectStatements(0, get("/api/products/cache/stats"));
+    }
+
+    @Test
+    void updateProduct() throws Exception {
+        Product product = menu.get(2);
+        product.setPrice(product.getPrice() + 1);
+        expectStatements(8, put("/api/products").contentType(MediaType.APPLICATION_JSON).content(json(product)));
+    }
+
+    @Test
+    void deleteProduct() throws Exception {
+        Product product = saveProduct(pizza());
+        expectStatements(12, delete("/api/products/{id}", product.getId()));
+    }
+
+    /**
+     * Sends the request and checks that it succeeded within the budget,
+     * listing the statements it sent when it did not.
+     */
+    private void expectStatements(int budget, MockHttpServletRequestBuilder request) throws Exception {
+        expectStatements(budget, true, request);
+    }
+
+    private void expectStatements(int budget, boolean evict, MockHttpServletRequestBuilder request) throws Exception {
+        if (evict) {
+            entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+        }
+        customerCache.invalidateAll();
+        statementCounter.reset();
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        List<String> statements = statementCounter.statements();
+        String call = result.getRequest().getMethod() + " " + result.getRequest().getRequestURI();
+        int status = result.getResponse().getStatus();
+        if (status >= 300) {
+            fail(call + " answered " + status + ": " + result.getResponse().getContentAsString());
+        }
+        assertTrue(statements.size() <= budget, () -> call + " sent " + statements.size() + " statements, its budget is "
+                + budget + ":\n  " + String.join("\n  ", statements));
+    }
+
+    private void saveOrders(OrderState state, LocalDate day) throws Exception {
+        for (int i = 0; i < ROWS; i++) {
+            Order order = new Order();
+            order.setCustomer(customer);
+            order.setOrderDate(Date.from(day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant()));
+            order.setState(state);
+            order.setPaymentMethod(PaymentMethod.CASH);
+            for (Product product : menu) {
+                OrderLine line = new OrderLine();
+                line.setProduct(product);
+                line.setAmount(1);
+                order.getOrderLines().add(line);
+            }
+            orderService.saveOrder(order);
+        }
+    }
+
+    private Customer createCustomer() {
+        Customer created = new Customer();
+        created.setDni(unique("dni"));
+        created.setMail(unique("mail"));
+        created.setCustomerName("Customer");
+        return customerRepository.save(created);
+    }
+
+    private Product saveProduct(Product product) throws Exception {
+        return productService.saveProduct(product);
+    }
+
+    private static Pizza pizza() {
+        Pizza pizza = new Pizza();
+        pizza.setName(unique("pizza"));
+        pizza.setPrice(9.5);
+        pizza.setIngredients(ingredients());
+        return pizza;
+    }
+
+    private static Pasta pasta() {
+        Pasta pasta = new Pasta();
+        pasta.setName(unique("pasta"));
+        pasta.setPrice(8);
+        pasta.setIngredients(ingredients());
+        return pasta;
+    }
+
+    private static Drink drink() {
+        Drink drink = new Drink();
+        drink.setName(unique("drink"));
+        drink.setPrice(2);
+        return drink;
+    }
+
+    private static List<Ingredient> ingredients() {
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            ingredients.add(new Ingredient(0, unique("ingredient"), new ArrayList<>(List.of("gluten", "lactose"))));
+        }
+        return ingredients;
+    }
+
+    private static String unique(String prefix) {
+        return prefix + names.incrementAndGet();
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+}
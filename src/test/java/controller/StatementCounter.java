@@ -0,0 +1,91 @@
+package controller;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records every SQL statement sent to the database, through a proxy around
+ * the {@link DataSource}. Statements issued by Hibernate and by JDBC
+ * templates are both seen. A JDBC batch counts once, as it is one round trip.
+ */
+public class StatementCounter {
+    private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+            "executeBatch", "executeLargeBatch");
+
+    private final List<String> statements = new ArrayList<>();
+
+    /**
+     * Wraps the application's data source in a counting proxy.
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    public static class Config {
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+
+        @Bean
+        static BeanPostProcessor countingDataSource(StatementCounter counter) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !Proxy.isProxyClass(bean.getClass())
+                            ? counter.wrap(dataSource, DataSource.class, null) : bean;
+                }
+            };
+        }
+    }
+
+    public synchronized void reset() {
+        statements.clear();
+    }
+
+    public synchronized List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    private synchronized void record(String sql) {
+        statements.add(sql);
+    }
+
+    private <T> T wrap(T target, Class<T> type, String sql) {
+        return type.cast(Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (target instanceof Statement && EXECUTE.contains(method.getName())) {
+                        record(args != null && args.length > 0 && args[0] instanceof String text ? text : sql);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    String text = args != null && args.length > 0 && args[0] instanceof String given ? given : null;
+                    if (result instanceof CallableStatement call) {
+                        return wrap(call, CallableStatement.class, text);
+                    }
+                    if (result instanceof PreparedStatement prepared) {
+                        return wrap(prepared, PreparedStatement.class, text);
+                    }
+                    if (result instanceof Statement statement) {
+                        return wrap(statement, Statement.class, null);
+                    }
+                    if (result instanceof Connection connection) {
+                        return wrap(connection, Connection.class, null);
+                    }
+                    return result;
+                }));
+    }
+}
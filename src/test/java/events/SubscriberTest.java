@@ -0,0 +1,138 @@
+package events;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Feeds the buffer of one subscriber whose client never reads and checks
+ * both overflow policies: the buffer never holds more than its capacity,
+ * {@link OverflowPolicy#DROP_OLDEST} keeps the newest events and
+ * {@link OverflowPolicy#DISCONNECT} closes the stream once.
+ */
+class SubscriberTest {
+    private static final int CAPACITY = 4;
+
+    @Test
+    void dropOldestKeepsTheNewestEvents() {
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        Subscriber subscriber = new Subscriber("topic", emitter, OverflowPolicy.DROP_OLDEST, CAPACITY, tasks::add,
+                closed -> { });
+
+        int dropped = 0;
+        for (int i = 1; i <= 10; i++) {
+            int lost = subscriber.offer(event(i));
+            assertEquals(i <= CAPACITY ? 0 : 1, lost, "Event " + i);
+            dropped += lost;
+        }
+        assertEquals(10 - CAPACITY, dropped);
+        assertEquals(1, tasks.size(), "One sending task per subscriber");
+
+        tasks.poll().run();
+        assertEquals(List.of("7", "8", "9", "10"), emitter.sent());
+    }
+
+    @Test
+    void disconnectClosesTheSlowSubscriberOnce() {
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        AtomicInteger closes = new AtomicInteger();
+        Subscriber subscriber = new Subscriber("topic", emitter, OverflowPolicy.DISCONNECT, CAPACITY, task -> { },
+                closed -> closes.incrementAndGet());
+
+        for (int i = 1; i <= CAPACITY; i++) {
+            assertEquals(0, subscriber.offer(event(i)), "Event " + i);
+        }
+        assertEquals(-1, subscriber.offer(event(CAPACITY + 1)));
+        assertEquals(0, subscriber.offer(event(CAPACITY + 2)), "A closed subscriber ignores events");
+
+        assertEquals(1, closes.get());
+        assertTrue(emitter.completed());
+    }
+
+    @Test
+    void aStuckWriteNeverLetsTheBufferGrowPastItsCapacity() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(release);
+        ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+        Subscriber subscriber = new Subscriber("topic", emitter, OverflowPolicy.DROP_OLDEST, CAPACITY, sender,
+                closed -> { });
+
+        subscriber.offer(event(1));
+        assertTrue(emitter.writing.await(5, TimeUnit.SECONDS));
+        int dropped = 0;
+        for (int i = 2; i <= 1000; i++) {
+            dropped += subscriber.offer(event(i));
+        }
+        release.countDown();
+        sender.shutdown();
+        assertTrue(sender.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Event 1 was being written, the buffer kept the last CAPACITY events
+        assertEquals(999 - CAPACITY, dropped);
+        assertEquals(List.of("1", "997", "998", "999", "1000"), emitter.sent());
+    }
+
+    private static SseEmitter.SseEventBuilder event(int id) {
+        return SseEmitter.event().id(Integer.toString(id)).name("order").data("event " + id);
+    }
+
+    /**
+     * Records the id of every event written. With a latch, the first write
+     * blocks until it is released, as a write to a client that stopped
+     * reading does once the socket buffer is full.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch release;
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final List<String> sent = new ArrayList<>();
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            writing.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String text = builder.build().iterator().next().getData().toString();
+            synchronized (sent) {
+                sent.add(text.substring("id:".length(), text.indexOf('\n')));
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<String> sent() {
+            synchronized (sent) {
+                return List.copyOf(sent);
+            }
+        }
+
+        boolean completed() {
+            return completed;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package files;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads CSV and XML files record by record: delimiters, quoting, empty
+ * fields, the line each record starts at, and the errors of malformed files.
+ */
+class RecordReaderTest {
+
+    @Test
+    void csvPicksTheDelimiterOfTheHeader() throws IOException {
+        for (String delimiter : List.of(";", ",", "|", "\t")) {
+            List<Map<String, String>> records = readAll(RecordFormat.CSV,
+                    "name" + delimiter + "allergens\nTomato" + delimiter + "\n");
+            assertEquals(List.of(record("name", "Tomato", "allergens", null)), records, "Delimiter " + delimiter);
+        }
+    }
+
+    @Test
+    void csvReadsQuotedFieldsAndKeepsTheLineOfEachRecord() throws IOException {
+        String file = "\uFEFFdni;customerName;direction\r\n"
+                + "1A;\"Ana; the first\";\"Main \"\"Street\"\"\"\r\n"
+                + "\r\n"
+                + "2B;\"Two\nlines\";\n"
+                + "3C;Carla;Square";
+        try (RecordReader reader = RecordFormat.CSV.reader(stream(file), "customer")) {
+            assertEquals(record("dni", "1A", "customerName", "Ana; the first", "direction", "Main \"Street\""), reader.next());
+            assertEquals(2, reader.line());
+            assertEquals(record("dni", "2B", "customerName", "Two\nlines", "direction", null), reader.next());
+            assertEquals(4, reader.line());
+            assertEquals(record("dni", "3C", "customerName", "Carla", "direction", "Square"), reader.next());
+            assertEquals(6, reader.line());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void csvRejectsAnUnterminatedQuote() throws IOException {
+        try (RecordReader reader = RecordFormat.CSV.reader(stream("name,allergens\nTomato,\"gluten\nBasil,\n"), "ingredient")) {
+            IOException error = assertThrows(IOException.class, reader::next);
+            assertTrue(error.getMessage().contains("line 2"), error.getMessage());
+        }
+        assertThrows(IOException.class, () -> RecordFormat.CSV.reader(stream(""), "ingredient"));
+    }
+
+    @Test
+    void xmlReadsEveryRecordElementAndItsFields() throws IOException {
+        String file = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <ingredients>
+                  <ingredient><name>Tomato</name><allergens></allergens></ingredient>
+                  <group>
+                    <ingredient>
+                      <name>Flour</name>
+                      <allergens>gluten|wheat</allergens>
+                    </ingredient>
+                  </group>
+                </ingredients>
+                """;
+        try (RecordReader reader = RecordFormat.XML.reader(stream(file), "ingredient")) {
+            assertEquals(record("name", "Tomato", "allergens", null), reader.next());
+            assertEquals(3, reader.line());
+            assertEquals(record("name", "Flour", "allergens", "gluten|wheat"), reader.next());
+            assertEquals(5, reader.line());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void xmlRejectsMalformedFilesAndDoctypes() throws IOException {
+        try (RecordReader reader = RecordFormat.XML.reader(stream("<ingredients><ingredient><name>Tomato</ingredient>"), "ingredient")) {
+            assertThrows(IOException.class, reader::next);
+        }
+        String entity = """
+                <?xml version="1.0"?>
+                <!DOCTYPE ingredients [<!ENTITY secret SYSTEM "file:///etc/hostname">]>
+                <ingredients><ingredient><name>&secret;</name></ingredient></ingredients>
+                """;
+        try (RecordReader reader = RecordFormat.XML.reader(stream(entity), "ingredient")) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+
+    private static List<Map<String, String>> readAll(RecordFormat format, String file) throws IOException {
+        List<Map<String, String>> records = new ArrayList<>();
+        try (RecordReader reader = format.reader(stream(file), "record")) {
+            Map<String, String> record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private static Map<String, String> record(String... fields) {
+        Map<String, String> record = new HashMap<>();
+        for (int i = 0; i < fields.length; i += 2) {
+            record.put(fields[i], fields[i + 1]);
+        }
+        return record;
+    }
+
+    private static InputStream stream(String file) {
+        return new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,221 @@
+package kitchen;
+
+import events.OrderEventBus;
+import model.Customer;
+import model.Drink;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.Pasta;
+import model.Pizza;
+import model.Product;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the {@link KitchenDispatcher} with a synthetic rush hour: several
+ * threads place orders as fast as they can, retrying the ones the kitchen
+ * refuses, while one cook per station slot takes and completes tickets.
+ * The peak logs the orders finished per minute and the queue latency of
+ * every station, and fails under a throughput floor or over a latency
+ * ceiling.
+ */
+class KitchenDispatcherSimulationTest {
+    private static final Logger log = LoggerFactory.getLogger(KitchenDispatcherSimulationTest.class);
+    private static final int ORDERS = 20_000;
+    private static final long COOK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+    // More than ten times below what a single core reaches, so only a kitchen that serializes or stalls fails
+    private static final double MIN_ORDERS_PER_MINUTE = 60_000;
+    private static final long MAX_WAIT_MS = 2_000;
+
+    private final OrderStateWriter writer = new OrderStateWriter();
+    private final OrderEventBus eventBus = new OrderEventBus(64, Duration.ofMinutes(1));
+    private final List<Product> menu = List.of(product(new Pizza(), 1), product(new Pizza(), 2),
+            product(new Pasta(), 3), product(new Drink(), 4), product(new Drink(), 5));
+
+    @Test
+    void finishesEveryOrderOfAPeak() throws InterruptedException {
+        KitchenDispatcher kitchen = new KitchenDispatcher(writer, eventBus, 8, 4, 4, 200, 1000);
+        Map<Station, LongAdder> tickets = new ConcurrentHashMap<>();
+        LongAdder refused = new LongAdder();
+        int producers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        List<Thread> cooks = new ArrayList<>();
+        Thread[] placing = new Thread[producers];
+        long start = System.nanoTime();
+        for (Station station : Station.values()) {
+            for (long i = 0; i < kitchen.stats().get(station.name()).get("slots"); i++) {
+                cooks.add(Thread.ofPlatform().daemon().start(() -> cook(kitchen, station)));
+            }
+        }
+        for (int p = 0; p < producers; p++) {
+            int first = p;
+            placing[p] = Thread.ofPlatform().start(() -> {
+                for (int id = first + 1; id <= ORDERS; id += producers) {
+                    Order order = order(id);
+                    while (!kitchen.reserve()) {
+                        refused.increment();
+                        LockSupport.parkNanos(COOK_NANOS);
+                    }
+                    kitchen.submitReserved(order);
+                    order.getOrderLines().stream().map(line -> Station.of(line.getProduct())).distinct()
+                            .forEach(station -> tickets.computeIfAbsent(station, key -> new LongAdder()).increment());
+                }
+            });
+        }
+        for (Thread thread : placing) {
+            thread.join();
+        }
+        Set<Integer> finished = new HashSet<>();
+        while (finished.size() < ORDERS && System.nanoTime() - start < TimeUnit.MINUTES.toNanos(2)) {
+            for (OrderStateWriter.Transition transition : writer.drain(1000)) {
+                assertEquals(OrderState.FINISHED, transition.state());
+                assertTrue(finished.add(transition.orderId()), "Order finished twice: " + transition.orderId());
+            }
+            Thread.sleep(5);
+        }
+        long elapsed = System.nanoTime() - start;
+        cooks.forEach(Thread::interrupt);
+
+        Map<String, Map<String, Long>> stats = kitchen.stats();
+        assertEquals(ORDERS, finished.size());
+        assertEquals(0L, stats.get("KITCHEN").get("openOrders"));
+        assertEquals(0L, stats.get("KITCHEN").get("waitingOrders"));
+        assertEquals(refused.sum(), stats.get("KITCHEN").get("rejectedOrders"));
+        for (Station station : Station.values()) {
+            Map<String, Long> counters = stats.get(station.name());
+            long sent = tickets.containsKey(station) ? tickets.get(station).sum() : 0;
+            assertEquals(sent, counters.get("completed"), station.name());
+            assertEquals(0L, counters.get("queued"), station.name());
+            assertEquals(0L, counters.get("cooking"), station.name());
+            assertTrue(counters.get("avgWaitMs") <= counters.get("maxWaitMs"), station.name());
+            log.info("{} queue latency: avg {} ms, max {} ms over {} tickets", station,
+                    counters.get("avgWaitMs"), counters.get("maxWaitMs"), counters.get("completed"));
+            assertTrue(counters.get("maxWaitMs") < MAX_WAIT_MS, station.name() + " waited " + counters.get("maxWaitMs") + " ms");
+        }
+        double ordersPerMinute = ORDERS * (double) TimeUnit.MINUTES.toNanos(1) / elapsed;
+        log.info("Throughput: {} orders/minute, {} orders in {} ms, {} refused and retried", Math.round(ordersPerMinute),
+                ORDERS, TimeUnit.NANOSECONDS.toMillis(elapsed), refused.sum());
+        assertTrue(ordersPerMinute > MIN_ORDERS_PER_MINUTE, String.format("%.0f orders/minute", ordersPerMinute));
+    }
+
+    @Test
+    void refusesOrdersWhileTooManyAreWaiting() {
+        KitchenDispatcher kitchen = new KitchenDispatcher(writer, eventBus, 1, 1, 1, 1, 2);
+        for (int id = 1; id <= 3; id++) {
+            assertTrue(kitchen.reserve());
+            kitchen.submitReserved(order(id, menu.get(0)));
+        }
+        assertFalse(kitchen.reserve());
+        assertEquals(2L, kitchen.stats().get("KITCHEN").get("waitingOrders"));
+        assertEquals(1L, kitchen.stats().get("KITCHEN").get("rejectedOrders"));
+
+        assertEquals(1, kitchen.next(Station.PIZZA_OVEN).orderId());
+        assertEquals(1L, kitchen.stats().get("KITCHEN").get("waitingOrders"));
+        assertTrue(kitchen.reserve(), "A place held for an order being placed");
+        assertFalse(kitchen.reserve());
+        kitchen.unreserve();
+        assertTrue(kitchen.reserve(), "The place of an order that was not placed is given back");
+        assertEquals(2L, kitchen.stats().get("KITCHEN").get("waitingOrders"));
+        assertEquals(2L, kitchen.stats().get("KITCHEN").get("rejectedOrders"));
+    }
+
+    @Test
+    void ordersAcceptedBeforeARestartAreNeverRefused() {
+        KitchenDispatcher kitchen = new KitchenDispatcher(writer, eventBus, 1, 1, 1, 1, 2);
+        for (int id = 1; id <= 4; id++) {
+            kitchen.submit(order(id, menu.get(0)));
+        }
+        assertEquals(3L, kitchen.stats().get("KITCHEN").get("waitingOrders"));
+        assertEquals(0L, kitchen.stats().get("KITCHEN").get("rejectedOrders"));
+        assertFalse(kitchen.reserve(), "New orders wait until the kitchen catches up");
+    }
+
+    @Test
+    void keepsOrdersWaitingWhileAStationIsFull() {
+        KitchenDispatcher kitchen = new KitchenDispatcher(writer, eventBus, 1, 1, 1, 3, 10);
+        for (int id = 1; id <= 5; id++) {
+            kitchen.submit(order(id, menu.get(0)));
+        }
+        assertEquals(3L, kitchen.stats().get(Station.PIZZA_OVEN.name()).get("queued"));
+        assertEquals(2L, kitchen.stats().get("KITCHEN").get("waitingOrders"));
+
+        Ticket ticket = kitchen.next(Station.PIZZA_OVEN);
+        assertEquals(1, ticket.orderId());
+        assertNull(kitchen.next(Station.PIZZA_OVEN), "The only slot is busy");
+        assertEquals(3L, kitchen.stats().get(Station.PIZZA_OVEN.name()).get("queued"));
+        assertEquals(1L, kitchen.stats().get("KITCHEN").get("waitingOrders"));
+
+        assertTrue(kitchen.complete(ticket.id()));
+        assertEquals(List.of(new OrderStateWriter.Transition(1, 1L, OrderState.FINISHED)), writer.drain(10));
+    }
+
+    @Test
+    void skipsTheTicketsOfACanceledOrder() {
+        KitchenDispatcher kitchen = new KitchenDispatcher(writer, eventBus, 1, 1, 1, 10, 10);
+        kitchen.submit(order(1, menu.get(0), menu.get(3)));
+        kitchen.submit(order(2, menu.get(0)));
+        Ticket drink = kitchen.next(Station.DRINKS);
+        kitchen.cancel(1);
+
+        assertEquals(2, kitchen.next(Station.PIZZA_OVEN).orderId());
+        assertTrue(kitchen.complete(drink.id()));
+        assertTrue(writer.drain(10).isEmpty());
+    }
+
+    private static void cook(KitchenDispatcher kitchen, Station station) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Ticket ticket = kitchen.next(station);
+            if (ticket == null) {
+                LockSupport.parkNanos(COOK_NANOS);
+                continue;
+            }
+            LockSupport.parkNanos(COOK_NANOS);
+            kitchen.complete(ticket.id());
+        }
+    }
+
+    private Order order(int id) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Product[] products = new Product[1 + random.nextInt(4)];
+        for (int i = 0; i < products.length; i++) {
+            products[i] = menu.get(random.nextInt(menu.size()));
+        }
+        return order(id, products);
+    }
+
+    private static Order order(int id, Product... products) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomer(new Customer());
+        order.getCustomer().setId(id);
+        order.setState(OrderState.PENDING);
+        for (Product product : products) {
+            order.getOrderLines().add(new OrderLine(0, 1, product.getPrice(), product, order));
+        }
+        return order;
+    }
+
+    private static Product product(Product product, int id) {
+        product.setId(id);
+        product.setName(product.getClass().getSimpleName() + " " + id);
+        return product;
+    }
+}
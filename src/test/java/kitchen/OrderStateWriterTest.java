@@ -0,0 +1,211 @@
+package kitchen;
+
+import main.MainApplication;
+import model.Customer;
+import model.DailyProductSales;
+import model.Drink;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.PaymentMethod;
+import model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import service.CustomerService;
+import service.OrderService;
+import service.ProductService;
+import service.SalesService;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Races customer cancellations against kitchen transitions flushed by the
+ * {@link OrderStateWriter}: a canceled order stays canceled, and the daily
+ * sales count every order once, as a rebuild from the orders does. Also
+ * checks that a transition that can not be written does not block the rest.
+ * The scheduled flush is pushed out of the way, so only the tests flush.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url = jdbc:h2:mem:state-writer;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "kitchen.flush.interval-ms = 3600000",
+        "kitchen.flush.max-attempts = 3"})
+class OrderStateWriterTest {
+    @Autowired
+    private OrderStateWriter stateWriter;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private SalesService salesService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static Customer customer;
+    private static Product product;
+
+    @BeforeEach
+    void seed() throws SQLException {
+        if (customer != null) {
+            return;
+        }
+        Customer created = new Customer();
+        created.setDni("state-writer");
+        created.setMail("state-writer@test");
+        customer = customerService.save(created);
+        Drink drink = new Drink();
+        drink.setName("Raced lemonade");
+        drink.setPrice(2.5);
+        product = productService.saveProduct(drink);
+    }
+
+    @Test
+    void aQueuedKitchenTransitionDoesNotReopenACanceledOrder() throws SQLException {
+        Order order = placeOrder();
+
+        cancel(order.getId());
+        stateWriter.record(order.getId(), customer.getId(), OrderState.FINISHED);
+        stateWriter.flush();
+
+        assertEquals(OrderState.CANCELED, orderService.findOrder(order.getId()).getState());
+        assertSalesMatchRebuild();
+    }
+
+    @Test
+    void aFlushWaitsForACancelInProgress() throws Exception {
+        Order order = placeOrder();
+        // Read outside the transaction, so the change is not flushed before the service reads the old state
+        Order canceled = orderService.findOrder(order.getId());
+        canceled.setState(OrderState.CANCELED);
+
+        CompletableFuture<Void> flushing = transactionTemplate.execute(status -> {
+            try {
+                orderService.updateOrder(canceled);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            stateWriter.record(order.getId(), customer.getId(), OrderState.FINISHED);
+            CompletableFuture<Void> flush = CompletableFuture.runAsync(stateWriter::flush);
+            try {
+                // The order row is locked by the cancellation until this transaction commits
+                Thread.sleep(300);
+                assertFalse(flush.isDone(), "The flush did not wait for the lock");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return flush;
+        });
+        flushing.get(10, TimeUnit.SECONDS);
+
+        assertEquals(OrderState.CANCELED, orderService.findOrder(order.getId()).getState());
+        assertSalesMatchRebuild();
+    }
+
+    @Test
+    void concurrentCancelsAndKitchenTransitionsCountEveryOrderOnce() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            orders.add(placeOrder());
+        }
+
+        CompletableFuture<Void> kitchen = CompletableFuture.runAsync(() -> {
+            for (Order order : orders) {
+                stateWriter.record(order.getId(), customer.getId(), OrderState.FINISHED);
+                stateWriter.flush();
+            }
+        });
+        CompletableFuture<Void> customers = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < orders.size(); i += 2) {
+                cancel(orders.get(i).getId());
+            }
+        });
+        CompletableFuture.allOf(kitchen, customers).get(60, TimeUnit.SECONDS);
+        stateWriter.flush();
+
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(i % 2 == 0 ? OrderState.CANCELED : OrderState.FINISHED,
+                    orderService.findOrder(orders.get(i).getId()).getState(), "Order " + i);
+        }
+        assertSalesMatchRebuild();
+    }
+
+    @Test
+    void aTransitionThatKeepsFailingIsDroppedWithoutHoldingBackTheOthers() throws SQLException {
+        Order poisoned = placeOrder();
+        Order other = placeOrder();
+        jdbcTemplate.execute("alter table customer_order add constraint poisoned_transition check (id <> "
+                + poisoned.getId() + " or state <> 'FINISHED')");
+        try {
+            stateWriter.record(poisoned.getId(), customer.getId(), OrderState.FINISHED);
+            stateWriter.record(other.getId(), customer.getId(), OrderState.FINISHED);
+            assertThrows(DataAccessException.class, stateWriter::flush);
+            assertThrows(DataAccessException.class, stateWriter::flush);
+            // The third attempt writes the batch one transition at a time
+            stateWriter.flush();
+        } finally {
+            jdbcTemplate.execute("alter table customer_order drop constraint poisoned_transition");
+        }
+
+        assertEquals(OrderState.PENDING, orderService.findOrder(poisoned.getId()).getState());
+        assertEquals(OrderState.FINISHED, orderService.findOrder(other.getId()).getState());
+        Order later = placeOrder();
+        stateWriter.record(later.getId(), customer.getId(), OrderState.FINISHED);
+        stateWriter.flush();
+        assertEquals(OrderState.FINISHED, orderService.findOrder(later.getId()).getState());
+        assertSalesMatchRebuild();
+    }
+
+    private Order placeOrder() throws SQLException {
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setOrderDate(new Date());
+        order.setState(OrderState.PENDING);
+        order.setPaymentMethod(PaymentMethod.CASH);
+        OrderLine line = new OrderLine();
+        line.setProduct(product);
+        line.setAmount(2);
+        order.getOrderLines().add(line);
+        orderService.saveOrder(order);
+        return order;
+    }
+
+    private void cancel(int orderId) {
+        try {
+            Order order = orderService.findOrder(orderId);
+            order.setState(OrderState.CANCELED);
+            orderService.updateOrder(order);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void assertSalesMatchRebuild() {
+        LocalDate today = LocalDate.now();
+        List<DailyProductSales> recorded = salesService.findDailySales(today, today);
+        salesService.rebuild();
+        assertEquals(salesService.findDailySales(today, today), recorded);
+    }
+}
@@ -0,0 +1,128 @@
+package limit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the {@link ConcurrencyLimitFilter} gives back the permit of a
+ * streamed response however the stream ends, and only once, without
+ * feeding the length of the stream to the limit.
+ */
+class ConcurrencyLimitFilterTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter();
+
+    ConcurrencyLimitFilterTest() {
+        ReflectionTestUtils.setField(filter, "limiter",
+                new ConcurrencyLimiter(meterRegistry, 2, 1.5, 0.2, 0.5, 4, 4, 2));
+    }
+
+    @Test
+    void aStreamKeepsItsPermitUntilItCompletes() throws Exception {
+        MockHttpServletRequest request = streamRequest();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new StartsAsync()));
+        assertEquals(1.0, inflight());
+
+        request.getAsyncContext().complete();
+        assertEquals(0.0, inflight());
+    }
+
+    @Test
+    void aStreamThatTimesOutReleasesItsPermitOnce() throws Exception {
+        MockHttpServletRequest request = streamRequest();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new StartsAsync()));
+
+        MockAsyncContext context = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onTimeout(new AsyncEvent(context));
+        }
+        assertEquals(0.0, inflight());
+        context.complete();
+        assertEquals(0.0, inflight());
+    }
+
+    @Test
+    void aStreamThatFailsReleasesItsPermit() throws Exception {
+        MockHttpServletRequest request = streamRequest();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new StartsAsync()));
+
+        MockAsyncContext context = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onError(new AsyncEvent(context, new IOException("Broken pipe")));
+        }
+        assertEquals(0.0, inflight());
+    }
+
+    @Test
+    void aStreamCompletedBeforeTheListenerIsAddedReleasesItsPermit() throws Exception {
+        // Completes the stream as the filter reads its context, as another thread could
+        HttpServletRequest request = new HttpServletRequestWrapper(streamRequest()) {
+            @Override
+            public AsyncContext getAsyncContext() {
+                AsyncContext context = super.getAsyncContext();
+                context.complete();
+                return context;
+            }
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new StartsAsync()));
+        assertEquals(0.0, inflight());
+    }
+
+    @Test
+    void aLongStreamDoesNotLowerTheLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new SimpleMeterRegistry(), 2, 1.5, 0.2, 0.5, 100, 100, 10);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter();
+        ReflectionTestUtils.setField(filter, "limiter", limiter);
+        // Streams left open keep half the limit in use, so every request after them moves the limit
+        for (int i = 0; i < 50; i++) {
+            filter.doFilter(streamRequest(), new MockHttpServletResponse(), new MockFilterChain(new StartsAsync()));
+        }
+        for (int i = 0; i < 20; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/customers/1"), new MockHttpServletResponse(), new MockFilterChain());
+        }
+        assertEquals(100, limiter.limit(EndpointGroup.CUSTOMER_READS));
+
+        MockHttpServletRequest export = streamRequest();
+        filter.doFilter(export, new MockHttpServletResponse(), new MockFilterChain(new StartsAsync()));
+        Thread.sleep(200);
+        export.getAsyncContext().complete();
+        for (int i = 0; i < 5; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/customers/1"), new MockHttpServletResponse(), new MockFilterChain());
+        }
+        assertEquals(100, limiter.limit(EndpointGroup.CUSTOMER_READS), "Lowered by a stream as long as its data");
+    }
+
+    private static MockHttpServletRequest streamRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    private double inflight() {
+        return meterRegistry.get("pizzeria.limit.inflight").tag("group", EndpointGroup.CUSTOMER_READS.tag()).gauge().value();
+    }
+
+    private static class StartsAsync extends HttpServlet {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            request.startAsync();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Feeds the {@link GradientLimit} synthetic latencies and checks the
+ * admission rules of the {@link ConcurrencyLimiter}.
+ */
+class ConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void limitFollowsLatency() {
+        GradientLimit limit = new GradientLimit(2, 100, 1.5, 0.2);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(FAST, limit.current(), false);
+        }
+        assertEquals(100, limit.current());
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(SLOW, limit.current(), false);
+        }
+        int congested = limit.current();
+        // Fifty samples ten times slower: smoothed shrinking steps take the limit from 100 down to 6
+        assertEquals(6, congested);
+        for (int i = 0; i < 2000; i++) {
+            limit.onSample(FAST, limit.current(), false);
+        }
+        assertEquals(100, limit.current());
+    }
+
+    @Test
+    void unusedLimitIsKept() {
+        GradientLimit limit = new GradientLimit(2, 100, 1.5, 0.2);
+        limit.onSample(FAST, 1, false);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(SLOW, 1, false);
+        }
+        assertEquals(100, limit.current());
+    }
+
+    @Test
+    void failuresCutTheLimit() {
+        GradientLimit limit = new GradientLimit(2, 100, 1.5, 0.2);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, 1, true);
+        }
+        assertEquals(2, limit.current());
+    }
+
+    @Test
+    void requestsAreGroupedByEndpoint() {
+        assertEquals(EndpointGroup.ORDER_PLACEMENT, EndpointGroup.of("POST", "/api/orders"));
+        assertEquals(EndpointGroup.CUSTOMER_READS, EndpointGroup.of("GET", "/api/orders/7"));
+        assertEquals(EndpointGroup.CUSTOMER_READS, EndpointGroup.of("GET", "/api/customers/7"));
+        assertEquals(EndpointGroup.ADMIN, EndpointGroup.of("DELETE", "/api/orders/7"));
+        assertEquals(EndpointGroup.ADMIN, EndpointGroup.of("POST", "/api/products"));
+        assertEquals(EndpointGroup.ADMIN, EndpointGroup.of("GET", "/api/files/imports/3"));
+        assertEquals(EndpointGroup.ADMIN, EndpointGroup.of("GET", "/api/analytics/sales"));
+        assertNull(EndpointGroup.of("GET", "/api/products/search"));
+        assertNull(EndpointGroup.of("GET", "/api/kitchen/tickets"));
+        // Event streams are never limited, whatever group their path is under
+        assertNull(EndpointGroup.of("GET", "/api/orders/events"));
+        assertNull(EndpointGroup.of("GET", "/api/kitchen/PIZZA_OVEN/events"));
+        assertNull(EndpointGroup.of("GET", "/api/files/imports/3/events"));
+    }
+
+    @Test
+    void lowerGroupsYieldToOrderPlacement() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new SimpleMeterRegistry(), 2, 1.5, 0.2, 0.5, 4, 4, 2);
+        List<ConcurrencyLimiter.Permit> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(limiter.tryAcquire(EndpointGroup.CUSTOMER_READS));
+        }
+        reads.forEach(permit -> assertNotNull(permit));
+        assertNull(limiter.tryAcquire(EndpointGroup.CUSTOMER_READS));
+        reads.forEach(permit -> permit.release(false));
+
+        ConcurrencyLimiter.Permit first = limiter.tryAcquire(EndpointGroup.ORDER_PLACEMENT);
+        ConcurrencyLimiter.Permit second = limiter.tryAcquire(EndpointGroup.ORDER_PLACEMENT);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotNull(limiter.tryAcquire(EndpointGroup.CUSTOMER_READS));
+        assertNotNull(limiter.tryAcquire(EndpointGroup.CUSTOMER_READS));
+        assertNull(limiter.tryAcquire(EndpointGroup.CUSTOMER_READS), "Customer reads did not yield to busy order placement");
+        assertNotNull(limiter.tryAcquire(EndpointGroup.ORDER_PLACEMENT));
+    }
+}
@@ -0,0 +1,187 @@
+package load;
+
+import cache.MenuCache;
+import jakarta.persistence.EntityManager;
+import model.Customer;
+import model.Drink;
+import model.Ingredient;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.Pasta;
+import model.PaymentMethod;
+import model.Pizza;
+import model.Product;
+import model.Size;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.CustomerRepository;
+import service.OrderService;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the embedded database with a catalog, customers and an order history
+ * of configurable size. The data is random but repeatable for a given seed.
+ * <p>
+ * The catalog is persisted in one transaction, customers go through the
+ * batched upsert and the history through {@link OrderService#saveOrders},
+ * so the daily sales aggregates are kept as in production. Historic orders
+ * are delivered and never reach the kitchen.
+ * </p>
+ */
+final class LoadDataSeeder {
+    private static final String[] ALLERGENS = {"gluten", "lactose", "egg", "nuts", "fish", "soy", "celery", "mustard"};
+    private static final int INGREDIENTS = 40;
+    private static final int ORDERS_PER_TRANSACTION = 1000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerRepository customerRepository;
+    private final OrderService orderService;
+    private final MenuCache menuCache;
+    private final Random random;
+
+    /**
+     * Identifiers of the seeded rows, for the requests of the load test.
+     *
+     * @param customerIds Ids of every customer.
+     * @param productIds  Ids of every product on the menu.
+     * @param firstDay    Day of the oldest order.
+     * @param lastDay     Day of the newest order.
+     */
+    record LoadData(long[] customerIds, int[] productIds, LocalDate firstDay, LocalDate lastDay) {
+    }
+
+    LoadDataSeeder(EntityManager entityManager, TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate,
+                   CustomerRepository customerRepository, OrderService orderService, MenuCache menuCache, long seed) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerRepository = customerRepository;
+        this.orderService = orderService;
+        this.menuCache = menuCache;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Seeds the database.
+     *
+     * @param customers   Number of customers.
+     * @param products    Number of products, half pizzas and the rest pastas and drinks.
+     * @param orders      Number of delivered orders.
+     * @param historyDays Number of days, up to today, the orders are spread over.
+     * @return The ids of the seeded customers and products.
+     * @throws SQLException If the orders cannot be saved.
+     */
+    LoadData seed(int customers, int products, int orders, int historyDays) throws SQLException {
+        List<Product> menu = seedCatalog(products);
+        seedCustomers(customers);
+        long[] customerIds = jdbcTemplate.queryForList("select id from customer order by id", Long.class).stream()
+                .mapToLong(Long::longValue).toArray();
+        LocalDate lastDay = LocalDate.now();
+        LocalDate firstDay = lastDay.minusDays(historyDays - 1);
+        List<Order> batch = new ArrayList<>(ORDERS_PER_TRANSACTION);
+        for (int i = 0; i < orders; i++) {
+            batch.add(order(customerIds[random.nextInt(customerIds.length)], menu, firstDay, historyDays));
+            if (batch.size() == ORDERS_PER_TRANSACTION || i == orders - 1) {
+                orderService.saveOrders(batch);
+                batch = new ArrayList<>(ORDERS_PER_TRANSACTION);
+            }
+        }
+        return new LoadData(customerIds, menu.stream().mapToInt(Product::getId).toArray(), firstDay, lastDay);
+    }
+
+    private List<Product> seedCatalog(int count) {
+        List<Product> menu = transactionTemplate.execute(status -> {
+            List<Ingredient> ingredients = new ArrayList<>();
+            for (int i = 0; i < INGREDIENTS; i++) {
+                List<String> allergens = new ArrayList<>();
+                for (int a = random.nextInt(3); a > 0; a--) {
+                    String allergen = ALLERGENS[random.nextInt(ALLERGENS.length)];
+                    if (!allergens.contains(allergen)) {
+                        allergens.add(allergen);
+                    }
+                }
+                Ingredient ingredient = new Ingredient(0, "Ingredient " + i, allergens);
+                entityManager.persist(ingredient);
+                ingredients.add(ingredient);
+            }
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Product product;
+                if (i % 2 == 0) {
+                    Pizza pizza = new Pizza();
+                    pizza.setIngredients(pick(ingredients, 3 + random.nextInt(4)));
+                    product = pizza;
+                } else if (i % 4 == 1) {
+                    Pasta pasta = new Pasta();
+                    pasta.setIngredients(pick(ingredients, 2 + random.nextInt(3)));
+                    product = pasta;
+                } else {
+                    product = new Drink();
+                }
+                product.setName(product.getClass().getSimpleName() + " " + i);
+                product.setPrice(2 + random.nextInt(15) + 0.5);
+                product.setSize(Size.values()[random.nextInt(Size.values().length)]);
+                entityManager.persist(product);
+                products.add(product);
+            }
+            return products;
+        });
+        menuCache.refresh();
+        return menu;
+    }
+
+    private void seedCustomers(int count) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Customer customer = new Customer();
+            customer.setDni(String.format("%08dL", i));
+            customer.setCustomerName("Customer " + i);
+            customer.setDirection("Street " + random.nextInt(500));
+            customer.setPhone(String.valueOf(600_000_000 + random.nextInt(100_000_000)));
+            customer.setMail("customer" + i + "@load.test");
+            customer.setPassword("secret");
+            customers.add(customer);
+        }
+        customerRepository.upsertAll(customers);
+    }
+
+    private Order order(long customerId, List<Product> menu, LocalDate firstDay, int historyDays) {
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        LocalDateTime placed = firstDay.plusDays(random.nextInt(historyDays)).atTime(11 + random.nextInt(12), random.nextInt(60));
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setOrderDate(Date.from(placed.atZone(ZoneId.systemDefault()).toInstant()));
+        order.setState(OrderState.DELIVERED);
+        order.setPaymentMethod(random.nextBoolean() ? PaymentMethod.CASH : PaymentMethod.CARD);
+        for (Product product : pick(menu, 1 + random.nextInt(5))) {
+            OrderLine line = new OrderLine();
+            line.setProduct(product);
+            line.setAmount(1 + random.nextInt(3));
+            order.getOrderLines().add(line);
+        }
+        return order;
+    }
+
+    private <T> List<T> pick(List<T> values, int count) {
+        List<T> picked = new ArrayList<>(count);
+        while (picked.size() < Math.min(count, values.size())) {
+            T value = values.get(random.nextInt(values.size()));
+            if (!picked.contains(value)) {
+                picked.add(value);
+            }
+        }
+        return picked;
+    }
+}
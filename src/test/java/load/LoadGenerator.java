@@ -0,0 +1,166 @@
+package load;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Closed-loop HTTP load generator. Each worker sends a request, waits for
+ * its response and sends the next one, choosing the scenario at random by
+ * weight, so the offered load follows the concurrency and the latency of
+ * the server. Requests completed during the warm-up are not recorded.
+ * <p>
+ * Every worker records into its own arrays and the results are merged when
+ * the run ends, so measuring adds no contention between workers.
+ * </p>
+ */
+final class LoadGenerator {
+    private final HttpClient client;
+    private final List<Scenario> scenarios;
+    private final int totalWeight;
+
+    /**
+     * One kind of request of the mix.
+     *
+     * @param name    Name of the scenario in the report.
+     * @param weight  Relative share of the requests.
+     * @param request Builds the next request from the worker's random source.
+     */
+    record Scenario(String name, int weight, Function<SplittableRandom, HttpRequest> request) {
+    }
+
+    LoadGenerator(HttpClient client, List<Scenario> scenarios) {
+        this.client = client;
+        this.scenarios = List.copyOf(scenarios);
+        this.totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+    }
+
+    /**
+     * Runs the mix and returns the latencies of the measured period.
+     *
+     * @param concurrency Number of workers sending requests.
+     * @param warmup      Time before measuring starts.
+     * @param duration    Time measured.
+     * @param seed        Seed of the scenario choice.
+     * @return The results of every scenario, in the order given, followed by the total.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    List<LoadReport.Result> run(int concurrency, Duration warmup, Duration duration, long seed) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        Recorder[][] recorders = new Recorder[concurrency][];
+        Thread[] workers = new Thread[concurrency];
+        for (int w = 0; w < concurrency; w++) {
+            Recorder[] own = new Recorder[scenarios.size()];
+            Arrays.setAll(own, i -> new Recorder());
+            recorders[w] = own;
+            SplittableRandom random = seeds.split();
+            workers[w] = Thread.ofPlatform().name("load-" + w).start(() -> work(random, own, measureFrom, end));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = duration.toNanos() / 1e9;
+        List<LoadReport.Result> results = new ArrayList<>();
+        Recorder total = new Recorder();
+        for (int s = 0; s < scenarios.size(); s++) {
+            Recorder merged = new Recorder();
+            for (Recorder[] own : recorders) {
+                merged.add(own[s]);
+            }
+            total.add(merged);
+            results.add(merged.result(scenarios.get(s).name(), seconds));
+        }
+        results.add(total.result("total", seconds));
+        return results;
+    }
+
+    private void work(SplittableRandom random, Recorder[] recorders, long measureFrom, long end) {
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            int scenario = choose(random);
+            HttpRequest request = scenarios.get(scenario).request().apply(random);
+            boolean ok;
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                ok = status >= 200 && status < 300;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long done = System.nanoTime();
+            if (now >= measureFrom && done <= end) {
+                recorders[scenario].record(done - now, ok);
+            }
+        }
+    }
+
+    private int choose(SplittableRandom random) {
+        int pick = random.nextInt(totalWeight);
+        for (int i = 0; i < scenarios.size(); i++) {
+            pick -= scenarios.get(i).weight();
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return scenarios.size() - 1;
+    }
+
+    /**
+     * Latencies of the successful requests of one scenario, and the count of the failed ones.
+     */
+    private static final class Recorder {
+        private long[] nanos = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long latency, boolean ok) {
+            if (!ok) {
+                errors++;
+                return;
+            }
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latency;
+        }
+
+        void add(Recorder other) {
+            if (count + other.count > nanos.length) {
+                nanos = Arrays.copyOf(nanos, count + other.count);
+            }
+            System.arraycopy(other.nanos, 0, nanos, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        LoadReport.Result result(String name, double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            double mean = Arrays.stream(sorted).average().orElse(0);
+            return new LoadReport.Result(name, count + errors, errors, (count + errors) / seconds, millis(mean),
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)), millis(percentile(sorted, 0.95)),
+                    millis(percentile(sorted, 0.99)), millis(percentile(sorted, 0.999)),
+                    millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            return sorted.length == 0 ? 0 : sorted[Math.max(0, (int) Math.ceil(quantile * sorted.length) - 1)];
+        }
+
+        private static double millis(double nanos) {
+            return Math.round(nanos / 1_000) / 1_000.0;
+        }
+    }
+}
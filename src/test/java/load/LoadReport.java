@@ -0,0 +1,76 @@
+package load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a load test run, written as JSON so runs on different commits
+ * can be compared.
+ *
+ * @param started  When the run started.
+ * @param commit   Commit the application was built from, or "unknown".
+ * @param settings Data volumes, concurrency and timings of the run.
+ * @param jvm      Java version and processors of the machine.
+ * @param results  Figures of every scenario, then of all the requests together.
+ */
+record LoadReport(Instant started, String commit, Map<String, Object> settings, Map<String, Object> jvm,
+                  List<Result> results) {
+
+    /**
+     * Figures of one scenario over the measured period. Latencies are in
+     * milliseconds and only count successful requests.
+     *
+     * @param name       Name of the scenario.
+     * @param requests   Requests completed, failed ones included.
+     * @param errors     Requests that failed or did not answer 2xx.
+     * @param throughput Requests per second.
+     * @param meanMs     Mean latency.
+     * @param p50Ms      Median latency.
+     * @param p90Ms      90th percentile latency.
+     * @param p95Ms      95th percentile latency.
+     * @param p99Ms      99th percentile latency.
+     * @param p999Ms     99.9th percentile latency.
+     * @param maxMs      Highest latency.
+     */
+    record Result(String name, long requests, long errors, double throughput, double meanMs, double p50Ms,
+                  double p90Ms, double p95Ms, double p99Ms, double p999Ms, double maxMs) {
+    }
+
+    /**
+     * Writes the report into a directory, in a file named after the commit and the start time.
+     *
+     * @param directory The directory of the reports, created if missing.
+     * @param mapper    The mapper to write JSON with.
+     * @return The written file.
+     * @throws IOException If the file cannot be written.
+     */
+    Path write(Path directory, ObjectMapper mapper) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("load-" + commit + "-" + started.toString().replace(":", "") + ".json");
+        mapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+        return file;
+    }
+
+    /**
+     * Returns the report as a table, one scenario per line.
+     *
+     * @return The table, with a header line.
+     */
+    String table() {
+        StringBuilder table = new StringBuilder(String.format("%-22s %9s %7s %9s %8s %8s %8s %8s %9s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Result result : results) {
+            table.append(String.format("%-22s %9d %7d %9.1f %8.2f %8.2f %8.2f %8.2f %9.2f%n", result.name(),
+                    result.requests(), result.errors(), result.throughput(), result.p50Ms(), result.p90Ms(),
+                    result.p99Ms(), result.p999Ms(), result.maxMs()));
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,193 @@
+package load;
+
+import cache.MenuCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.OrderRequest;
+import jakarta.persistence.EntityManager;
+import main.MainApplication;
+import model.PaymentMethod;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.CustomerRepository;
+import service.OrderService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end load test: seeds the embedded database, starts the application
+ * on a random port and drives its REST endpoints with a mix of reads and
+ * new orders from {@link LoadGenerator}. The throughput and latency
+ * percentiles are printed and written to a JSON file under
+ * {@code load.report-dir}.
+ * <p>
+ * It is tagged "load" and only runs with {@code mvn -Pload test}. Volumes,
+ * concurrency and timings are set in application-load.properties and can be
+ * overridden on the command line, e.g. {@code -Dload.concurrency=32}.
+ * </p>
+ */
+@Tag("load")
+@SpringBootTest(classes = MainApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "load"})
+class LoadTest {
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private MenuCache menuCache;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${load.seed}")
+    private long seed;
+    @Value("${load.customers}")
+    private int customers;
+    @Value("${load.products}")
+    private int products;
+    @Value("${load.orders}")
+    private int orders;
+    @Value("${load.history-days}")
+    private int historyDays;
+    @Value("${load.concurrency}")
+    private int concurrency;
+    @Value("${load.warmup}")
+    private Duration warmup;
+    @Value("${load.duration}")
+    private Duration duration;
+    @Value("${load.report-dir}")
+    private Path reportDir;
+    @Value("${load.commit:}")
+    private String commit;
+
+    @Test
+    void servesTheRequestMix() throws Exception {
+        Instant started = Instant.now();
+        long seeding = System.nanoTime();
+        LoadDataSeeder.LoadData data = new LoadDataSeeder(entityManager, transactionTemplate, jdbcTemplate,
+                customerRepository, orderService, menuCache, seed).seed(customers, products, orders, historyDays);
+        Duration seeded = Duration.ofNanos(System.nanoTime() - seeding);
+
+        List<LoadReport.Result> results;
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+            results = new LoadGenerator(client, scenarios(data)).run(concurrency, warmup, duration, seed);
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("customers", customers);
+        settings.put("products", products);
+        settings.put("orders", orders);
+        settings.put("historyDays", historyDays);
+        settings.put("seedingSeconds", seeded.toMillis() / 1000.0);
+        settings.put("concurrency", concurrency);
+        settings.put("warmupSeconds", warmup.toSeconds());
+        settings.put("durationSeconds", duration.toSeconds());
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("version", Runtime.version().toString());
+        jvm.put("processors", Runtime.getRuntime().availableProcessors());
+        jvm.put("maxHeapMb", Runtime.getRuntime().maxMemory() >> 20);
+        LoadReport report = new LoadReport(started, commit.isBlank() ? currentCommit() : commit, settings, jvm, results);
+        Path file = report.write(reportDir, objectMapper);
+        System.out.print(report.table());
+        System.out.println("Load report written to " + file.toAbsolutePath());
+
+        LoadReport.Result total = results.get(results.size() - 1);
+        assertEquals(0, total.errors(), "Failed requests");
+    }
+
+    private List<LoadGenerator.Scenario> scenarios(LoadDataSeeder.LoadData data) {
+        long[] customerIds = data.customerIds();
+        int[] productIds = data.productIds();
+        LocalDate lastDay = data.lastDay();
+        List<LoadGenerator.Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new LoadGenerator.Scenario("menu", 30, random -> get("/api/products")));
+        scenarios.add(new LoadGenerator.Scenario("menuWithoutAllergens", 10, random -> get("/api/products?without=gluten,lactose")));
+        scenarios.add(new LoadGenerator.Scenario("product", 10,
+                random -> get("/api/products/" + productIds[random.nextInt(productIds.length)])));
+        scenarios.add(new LoadGenerator.Scenario("customer", 15,
+                random -> get("/api/customers/" + customerIds[random.nextInt(customerIds.length)])));
+        scenarios.add(new LoadGenerator.Scenario("customerOrders", 15,
+                random -> get("/api/orders?customer=" + customerIds[random.nextInt(customerIds.length)])));
+        scenarios.add(new LoadGenerator.Scenario("placeOrder", 15, random -> post("/api/orders", newOrder(random, customerIds, productIds))));
+        scenarios.add(new LoadGenerator.Scenario("dailySales", 3, random -> {
+            LocalDate from = lastDay.minusDays(random.nextInt(historyDays));
+            return get("/api/sales/daily?from=" + from + "&to=" + from.plusDays(6));
+        }));
+        scenarios.add(new LoadGenerator.Scenario("salesAnalytics", 2,
+                random -> get("/api/analytics/sales?from=" + lastDay.minusDays(29) + "&to=" + lastDay)));
+        return scenarios;
+    }
+
+    private OrderRequest newOrder(SplittableRandom random, long[] customerIds, int[] productIds) {
+        List<OrderRequest.Line> lines = new ArrayList<>();
+        for (int i = 1 + random.nextInt(4); i > 0; i--) {
+            lines.add(new OrderRequest.Line(productIds[random.nextInt(productIds.length)], 1 + random.nextInt(3)));
+        }
+        return new OrderRequest(customerIds[random.nextInt(customerIds.length)], PaymentMethod.CARD, lines);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Accept", "application/json").GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    static String currentCommit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String output = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return git.waitFor() == 0 && !output.isEmpty() ? output : "unknown";
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package load;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Delays every SQL statement sent to the database, through a proxy around
+ * the {@link DataSource}, so the embedded database answers like one across
+ * the network. The delay is off until {@link #set(Duration)} is called, so
+ * seeding runs at full speed. A JDBC batch is delayed once, as it is one
+ * round trip.
+ */
+final class StatementLatency {
+    private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+            "executeBatch", "executeLargeBatch");
+
+    private volatile long nanos;
+
+    /**
+     * Wraps the application's data source in a delaying proxy.
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Config {
+        @Bean
+        static StatementLatency statementLatency() {
+            return new StatementLatency();
+        }
+
+        @Bean
+        static BeanPostProcessor delayingDataSource(StatementLatency latency) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !Proxy.isProxyClass(bean.getClass())
+                            ? latency.wrap(dataSource, DataSource.class) : bean;
+                }
+            };
+        }
+    }
+
+    void set(Duration latency) {
+        nanos = latency.toNanos();
+    }
+
+    private <T> T wrap(T target, Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(StatementLatency.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    long delay = nanos;
+                    if (delay > 0 && target instanceof Statement && EXECUTE.contains(method.getName())) {
+                        Thread.sleep(Duration.ofNanos(delay));
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof CallableStatement call) {
+                        return wrap(call, CallableStatement.class);
+                    }
+                    if (result instanceof PreparedStatement prepared) {
+                        return wrap(prepared, PreparedStatement.class);
+                    }
+                    if (result instanceof Statement statement) {
+                        return wrap(statement, Statement.class);
+                    }
+                    if (result instanceof Connection connection) {
+                        return wrap(connection, Connection.class);
+                    }
+                    return result;
+                }));
+    }
+}
@@ -0,0 +1,185 @@
+package load;
+
+import cache.MenuCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dto.OrderRequest;
+import jakarta.persistence.EntityManager;
+import main.MainApplication;
+import model.PaymentMethod;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.CustomerRepository;
+import service.OrderService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares the platform-thread and the virtual-thread modes on the
+ * endpoints that wait on the database: every statement is delayed by
+ * {@code load.thread-mode.statement-latency} and the connection pool is the
+ * one of the virtual profile (20 connections, 2s to get one) in both modes.
+ * The concurrency limiter is off, so requests queue on the threads and the
+ * pool instead of being shed.
+ * Each endpoint is driven alone at each concurrency level, and the figures
+ * are printed and written to a JSON report like the ones of {@link LoadTest}.
+ * <p>
+ * It is tagged "load". Run it once per mode and compare the two reports:
+ * {@code mvn -Pload test -Dtest=ThreadModeLoadTest -Dload.thread-mode.virtual=false}, then
+ * {@code =true}. Settings are in application-load.properties.
+ * </p>
+ */
+@Tag("load")
+@SpringBootTest(classes = MainApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "load"})
+@Import(StatementLatency.Config.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url = jdbc:h2:mem:thread-mode;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.threads.virtual.enabled = ${load.thread-mode.virtual}",
+        "spring.datasource.hikari.maximum-pool-size = 20",
+        "spring.datasource.hikari.connection-timeout = 2000",
+        "limit.enabled = false"})
+class ThreadModeLoadTest {
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private MenuCache menuCache;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private StatementLatency statementLatency;
+    @Value("${load.thread-mode.virtual}")
+    private boolean virtual;
+    @Value("${load.seed}")
+    private long seed;
+    @Value("${load.thread-mode.customers}")
+    private int customers;
+    @Value("${load.thread-mode.products}")
+    private int products;
+    @Value("${load.thread-mode.orders}")
+    private int orders;
+    @Value("${load.thread-mode.concurrency}")
+    private int[] concurrency;
+    @Value("${load.thread-mode.statement-latency}")
+    private Duration latency;
+    @Value("${load.thread-mode.warmup}")
+    private Duration warmup;
+    @Value("${load.thread-mode.duration}")
+    private Duration duration;
+    @Value("${load.report-dir}")
+    private Path reportDir;
+    @Value("${load.commit:}")
+    private String commit;
+
+    @Test
+    void servesTheDatabaseBoundEndpoints() throws Exception {
+        Instant started = Instant.now();
+        LoadDataSeeder.LoadData data = new LoadDataSeeder(entityManager, transactionTemplate, jdbcTemplate,
+                customerRepository, orderService, menuCache, seed).seed(customers, products, orders, 30);
+        long[] customerIds = data.customerIds();
+        int[] productIds = data.productIds();
+        List<LoadGenerator.Scenario> endpoints = List.of(
+                new LoadGenerator.Scenario("customer", 1,
+                        random -> get("/api/customers/" + customerIds[random.nextInt(customerIds.length)])),
+                new LoadGenerator.Scenario("customerOrders", 1,
+                        random -> get("/api/orders?customer=" + customerIds[random.nextInt(customerIds.length)])),
+                new LoadGenerator.Scenario("placeOrder", 1,
+                        random -> post("/api/orders", newOrder(random, customerIds, productIds))));
+
+        statementLatency.set(latency);
+        List<LoadReport.Result> results = new ArrayList<>();
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+            for (int workers : concurrency) {
+                for (LoadGenerator.Scenario endpoint : endpoints) {
+                    LoadReport.Result result = new LoadGenerator(client, List.of(endpoint))
+                            .run(workers, warmup, duration, seed).get(0);
+                    results.add(new LoadReport.Result(result.name() + "@" + workers, result.requests(), result.errors(),
+                            result.throughput(), result.meanMs(), result.p50Ms(), result.p90Ms(), result.p95Ms(),
+                            result.p99Ms(), result.p999Ms(), result.maxMs()));
+                }
+            }
+        } finally {
+            statementLatency.set(Duration.ZERO);
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("threads", virtual ? "virtual" : "platform");
+        settings.put("statementLatencyMs", latency.toMillis());
+        settings.put("connectionPool", 20);
+        settings.put("customers", customers);
+        settings.put("products", products);
+        settings.put("orders", orders);
+        settings.put("warmupSeconds", warmup.toSeconds());
+        settings.put("durationSeconds", duration.toSeconds());
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("version", Runtime.version().toString());
+        jvm.put("processors", Runtime.getRuntime().availableProcessors());
+        jvm.put("maxHeapMb", Runtime.getRuntime().maxMemory() >> 20);
+        LoadReport report = new LoadReport(started,
+                (commit.isBlank() ? LoadTest.currentCommit() : commit) + "-" + settings.get("threads"), settings, jvm, results);
+        Path file = report.write(reportDir, objectMapper);
+        System.out.print(report.table());
+        System.out.println("Load report written to " + file.toAbsolutePath());
+    }
+
+    private OrderRequest newOrder(SplittableRandom random, long[] customerIds, int[] productIds) {
+        List<OrderRequest.Line> lines = new ArrayList<>();
+        for (int i = 1 + random.nextInt(2); i > 0; i--) {
+            lines.add(new OrderRequest.Line(productIds[random.nextInt(productIds.length)], 1 + random.nextInt(3)));
+        }
+        return new OrderRequest(customerIds[random.nextInt(customerIds.length)], PaymentMethod.CARD, lines);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Accept", "application/json").GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,387 @@
+package payment;
+
+import kitchen.OrderStateWriter;
+import main.MainApplication;
+import model.Customer;
+import model.Drink;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.PaymentMethod;
+import model.PaymentStatus;
+import model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.OrderRepository;
+import service.CustomerService;
+import service.OrderService;
+import service.ProductService;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Settles card payments through a scripted gateway, calling
+ * {@link PaymentPipeline#settle()} from the test instead of its thread:
+ * batching, retries with a doubling backoff, outcomes that could not be
+ * stored, orders that could not be read, declined or failed payments
+ * canceling their order, and payments of canceled or deleted orders being
+ * voided or refunded.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@Import(PaymentPipelineTest.Config.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url = jdbc:h2:mem:payments;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=500",
+        "payment.gateway = scripted",
+        "payment.settle.interval-ms = 3600000",
+        "payment.settle.batch-size = 3",
+        "payment.retry.max-attempts = 3",
+        "payment.retry.initial-backoff = 100ms",
+        "payment.retry.max-backoff = 150ms"})
+class PaymentPipelineTest {
+    @Autowired
+    private PaymentPipeline pipeline;
+    @Autowired
+    private ScriptedGateway gateway;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderStateWriter stateWriter;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static final AtomicInteger failingLookups = new AtomicInteger();
+    private static Customer customer;
+    private static Product product;
+
+    /**
+     * Answers with the outcomes queued for each order, approving the rest,
+     * runs the action set for an order while charging it, and records every
+     * batch and refund it was sent.
+     */
+    static class ScriptedGateway implements PaymentGateway {
+        private final Map<Integer, Deque<Outcome>> script = new ConcurrentHashMap<>();
+        private final Map<Integer, Runnable> whileCharging = new ConcurrentHashMap<>();
+        private final List<Charge> charges = new ArrayList<>();
+        private final List<Integer> refunds = new ArrayList<>();
+
+        record Charge(List<Integer> orderIds, long nanos) {
+        }
+
+        void script(int orderId, Outcome... outcomes) {
+            script.put(orderId, new ArrayDeque<>(List.of(outcomes)));
+        }
+
+        void whileCharging(int orderId, Runnable action) {
+            whileCharging.put(orderId, action);
+        }
+
+        @Override
+        public synchronized List<Outcome> charge(List<Payment> payments) {
+            charges.add(new Charge(payments.stream().map(Payment::orderId).toList(), System.nanoTime()));
+            payments.forEach(payment -> {
+                Runnable action = whileCharging.remove(payment.orderId());
+                if (action != null) {
+                    action.run();
+                }
+            });
+            return payments.stream().map(payment -> {
+                Deque<Outcome> outcomes = script.get(payment.orderId());
+                return outcomes == null || outcomes.isEmpty() ? Outcome.APPROVED : outcomes.poll();
+            }).toList();
+        }
+
+        synchronized List<Charge> charges() {
+            return List.copyOf(charges);
+        }
+
+        synchronized List<Charge> chargesOf(int orderId) {
+            return charges.stream().filter(charge -> charge.orderIds().contains(orderId)).toList();
+        }
+
+        @Override
+        public synchronized void refund(List<Payment> payments) {
+            payments.forEach(payment -> refunds.add(payment.orderId()));
+        }
+
+        synchronized List<Integer> refunds() {
+            return List.copyOf(refunds);
+        }
+
+        synchronized void clear() {
+            charges.clear();
+            refunds.clear();
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Config {
+        @Bean
+        ScriptedGateway scriptedGateway() {
+            return new ScriptedGateway();
+        }
+
+        /**
+         * Wraps the order repository so the lookups of pending payments can
+         * be made to fail, as on a lost database connection.
+         */
+        @Bean
+        static BeanPostProcessor failingPendingLookups() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof OrderRepository)) {
+                        return bean;
+                    }
+                    return Proxy.newProxyInstance(OrderRepository.class.getClassLoader(), new Class<?>[]{OrderRepository.class},
+                            (proxy, method, args) -> {
+                                if (method.getName().equals("findPendingPaymentIds") && failingLookups.getAndUpdate(
+                                        left -> Math.max(0, left - 1)) > 0) {
+                                    throw new DataAccessResourceFailureException("Connection lost");
+                                }
+                                try {
+                                    return method.invoke(bean, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            });
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void seed() throws SQLException {
+        gateway.clear();
+        if (customer != null) {
+            return;
+        }
+        Customer created = new Customer();
+        created.setDni("payments");
+        created.setMail("payments@test");
+        customer = customerService.save(created);
+        Drink drink = new Drink();
+        drink.setName("Paid water");
+        drink.setPrice(1.5);
+        product = productService.saveProduct(drink);
+    }
+
+    @Test
+    void paymentsAreChargedInBatchesAndStored() throws SQLException {
+        List<Integer> orderIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            orderIds.add(placeCardOrder());
+        }
+
+        pipeline.settle();
+
+        assertEquals(List.of(orderIds.subList(0, 3), orderIds.subList(3, 6), orderIds.subList(6, 7)),
+                gateway.charges().stream().map(ScriptedGateway.Charge::orderIds).toList());
+        for (int orderId : orderIds) {
+            assertEquals(PaymentStatus.PAID, paymentStatus(orderId));
+        }
+    }
+
+    @Test
+    void aFailedPaymentIsRetriedAfterADoublingBackoff() throws Exception {
+        int orderId = placeCardOrder();
+        gateway.script(orderId, PaymentGateway.Outcome.FAILED, PaymentGateway.Outcome.FAILED);
+
+        pipeline.settle();
+        assertEquals(PaymentStatus.PENDING, paymentStatus(orderId));
+        pipeline.settle();
+        assertEquals(1, gateway.chargesOf(orderId).size(), "Retried before its backoff");
+        settleUntilCharged(orderId, 3);
+
+        List<ScriptedGateway.Charge> charges = gateway.chargesOf(orderId);
+        long firstBackoff = TimeUnit.NANOSECONDS.toMillis(charges.get(1).nanos() - charges.get(0).nanos());
+        long secondBackoff = TimeUnit.NANOSECONDS.toMillis(charges.get(2).nanos() - charges.get(1).nanos());
+        // Half to all of 100ms, then of 200ms capped at 150ms
+        assertTrue(firstBackoff >= 50, "First backoff " + firstBackoff + "ms");
+        assertTrue(secondBackoff >= 75, "Second backoff " + secondBackoff + "ms");
+        assertTrue(secondBackoff < 1000, "Second backoff " + secondBackoff + "ms is not capped");
+        assertEquals(PaymentStatus.PAID, paymentStatus(orderId));
+    }
+
+    @Test
+    void aPaymentThatKeepsFailingCancelsItsOrder() throws Exception {
+        int orderId = placeCardOrder();
+        gateway.script(orderId, PaymentGateway.Outcome.FAILED, PaymentGateway.Outcome.FAILED,
+                PaymentGateway.Outcome.FAILED, PaymentGateway.Outcome.APPROVED);
+
+        settleUntilCharged(orderId, 3);
+        pipeline.settle();
+
+        assertEquals(3, gateway.chargesOf(orderId).size(), "Charged after its last attempt");
+        assertEquals(PaymentStatus.FAILED, paymentStatus(orderId));
+        stateWriter.flush();
+        assertEquals(OrderState.CANCELED, orderService.findOrder(orderId).getState());
+    }
+
+    @Test
+    void aDeclinedPaymentCancelsItsOrderWithoutRetries() throws Exception {
+        int declined = placeCardOrder();
+        int paid = placeCardOrder();
+        gateway.script(declined, PaymentGateway.Outcome.DECLINED);
+
+        pipeline.settle();
+        Thread.sleep(200);
+        pipeline.settle();
+
+        assertEquals(1, gateway.chargesOf(declined).size());
+        assertEquals(PaymentStatus.DECLINED, paymentStatus(declined));
+        assertEquals(PaymentStatus.PAID, paymentStatus(paid));
+        stateWriter.flush();
+        assertEquals(OrderState.CANCELED, orderService.findOrder(declined).getState());
+        assertNotEquals(OrderState.CANCELED, orderService.findOrder(paid).getState());
+    }
+
+    @Test
+    void outcomesThatCouldNotBeStoredAreStoredOnTheNextRunWithoutChargingAgain() throws Exception {
+        int orderId = placeCardOrder();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofPlatform().start(() -> transactionTemplate.executeWithoutResult(status -> {
+            orderRepository.lockAll(List.of(orderId));
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // The order row is locked past the lock timeout, so the outcome can not be stored
+        AtomicReference<Throwable> reported = new AtomicReference<>();
+        Thread settler = Thread.ofPlatform().uncaughtExceptionHandler((thread, e) -> reported.set(e)).start(pipeline::settle);
+        settler.join();
+        release.countDown();
+        holder.join();
+        assertNotNull(reported.get(), "The failed write was not reported");
+        assertEquals(PaymentStatus.PENDING, paymentStatus(orderId));
+
+        pipeline.settle();
+
+        assertEquals(PaymentStatus.PAID, paymentStatus(orderId));
+        assertEquals(1, gateway.chargesOf(orderId).size(), "Charged again");
+    }
+
+    @Test
+    void aBatchWhoseOrdersCouldNotBeReadIsTriedAgain() throws Exception {
+        int orderId = placeCardOrder();
+        failingLookups.set(1);
+
+        AtomicReference<Throwable> reported = new AtomicReference<>();
+        Thread settler = Thread.ofPlatform().uncaughtExceptionHandler((thread, e) -> reported.set(e)).start(pipeline::settle);
+        settler.join();
+        assertNotNull(reported.get(), "The failed lookup was not reported");
+        assertTrue(gateway.chargesOf(orderId).isEmpty());
+        assertEquals(PaymentStatus.PENDING, paymentStatus(orderId));
+
+        pipeline.settle();
+        assertTrue(gateway.chargesOf(orderId).isEmpty(), "Tried again before its backoff");
+        settleUntilCharged(orderId, 1);
+        assertEquals(PaymentStatus.PAID, paymentStatus(orderId));
+    }
+
+    @Test
+    void aPaymentCanceledBeforeItIsSettledIsNeverCharged() throws Exception {
+        int canceled = placeCardOrder();
+        int deleted = placeCardOrder();
+        cancel(canceled);
+        orderService.deleteOrder(orderService.findOrder(deleted));
+
+        pipeline.settle();
+
+        assertTrue(gateway.chargesOf(canceled).isEmpty(), "Charged after its order was canceled");
+        assertTrue(gateway.chargesOf(deleted).isEmpty(), "Charged after its order was deleted");
+        assertEquals(PaymentStatus.VOIDED, paymentStatus(canceled));
+        assertEquals(OrderState.CANCELED, orderService.findOrder(canceled).getState());
+    }
+
+    @Test
+    void aPaymentChargedWhileItsOrderIsCanceledIsRefunded() throws Exception {
+        int orderId = placeCardOrder();
+        gateway.whileCharging(orderId, () -> {
+            try {
+                cancel(orderId);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        pipeline.settle();
+
+        assertEquals(1, gateway.chargesOf(orderId).size());
+        assertEquals(List.of(orderId), gateway.refunds());
+        assertEquals(PaymentStatus.VOIDED, paymentStatus(orderId));
+    }
+
+    private void cancel(int orderId) throws SQLException {
+        Order order = orderService.findOrder(orderId);
+        order.setState(OrderState.CANCELED);
+        orderService.updateOrder(order);
+    }
+
+    private void settleUntilCharged(int orderId, int charges) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gateway.chargesOf(orderId).size() < charges && System.nanoTime() < deadline) {
+            pipeline.settle();
+            Thread.sleep(5);
+        }
+        assertEquals(charges, gateway.chargesOf(orderId).size());
+    }
+
+    private int placeCardOrder() throws SQLException {
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setOrderDate(new Date());
+        order.setState(OrderState.PENDING);
+        order.setPaymentMethod(PaymentMethod.CARD);
+        OrderLine line = new OrderLine();
+        line.setProduct(product);
+        line.setAmount(2);
+        order.getOrderLines().add(line);
+        orderService.saveOrder(order);
+        return order.getId();
+    }
+
+    private PaymentStatus paymentStatus(int orderId) throws SQLException {
+        return orderService.findOrder(orderId).getPaymentStatus();
+    }
+}
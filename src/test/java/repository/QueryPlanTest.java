@@ -0,0 +1,239 @@
+package repository;
+
+import main.MainApplication;
+import model.Customer;
+import model.Order;
+import model.OrderState;
+import model.PaymentStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the lookups the application runs most are planned on the
+ * indexes of the migrations. Each repository method is called once, the
+ * statement it sent is recorded with its parameters and run again on the
+ * embedded database behind {@code EXPLAIN}.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url = jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@Import(QueryPlanTest.Config.class)
+class QueryPlanTest {
+    @Autowired
+    private StatementRecorder recorder;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    /**
+     * A prepared statement that was executed, with the parameters bound to it.
+     */
+    record Recorded(String sql, Map<Integer, Object> parameters) {
+    }
+
+    /**
+     * Records the prepared statements executed through the application's data source.
+     */
+    static class StatementRecorder {
+        private final List<Recorded> statements = new ArrayList<>();
+
+        synchronized void reset() {
+            statements.clear();
+        }
+
+        synchronized List<Recorded> statements() {
+            return List.copyOf(statements);
+        }
+
+        private synchronized void record(Recorded statement) {
+            statements.add(statement);
+        }
+
+        private DataSource wrap(DataSource dataSource) {
+            return proxy(dataSource, DataSource.class, (target, method, args) -> {
+                Object result = method.invoke(target, args);
+                return result instanceof Connection connection ? wrap(connection) : result;
+            });
+        }
+
+        private Connection wrap(Connection connection) {
+            return proxy(connection, Connection.class, (target, method, args) -> {
+                Object result = method.invoke(target, args);
+                return result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")
+                        ? wrap(statement, (String) args[0]) : result;
+            });
+        }
+
+        private PreparedStatement wrap(PreparedStatement statement, String sql) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return proxy(statement, PreparedStatement.class, (target, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    parameters.put(index, name.equals("setNull") ? null : args[1]);
+                } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                    record(new Recorded(sql, new TreeMap<>(parameters)));
+                }
+                return method.invoke(target, args);
+            });
+        }
+
+        private interface Handler<T> {
+            Object invoke(T target, java.lang.reflect.Method method, Object[] args) throws Throwable;
+        }
+
+        private static <T> T proxy(T target, Class<T> type, Handler<T> handler) {
+            return type.cast(Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        try {
+                            return handler.invoke(target, method, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }));
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Config {
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor recordingDataSource(StatementRecorder recorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !Proxy.isProxyClass(bean.getClass())
+                            ? recorder.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void reset() {
+        recorder.reset();
+    }
+
+    @Test
+    void customerByMailUsesItsUniqueIndex() throws SQLException {
+        customerRepository.findByMail("plan@test");
+        assertIndexLookup("customer", "mail");
+    }
+
+    @Test
+    void customerByDniUsesItsUniqueIndex() throws SQLException {
+        customerRepository.findByDni("00000000T");
+        assertIndexLookup("customer", "dni");
+        customerRepository.existsByDni("00000000T");
+        assertIndexLookup("customer", "dni");
+    }
+
+    @Test
+    void customerOrdersUseTheCustomerStateIndex() throws SQLException {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        orderRepository.findByCustomerOrderByIdAsc(customer);
+        assertIndexLookup("customer_order", "customer_id");
+        orderRepository.findByStateAndCustomerOrderByIdAsc(OrderState.PENDING, customer);
+        assertUses("customer_order", "idx_customer_order_customer_state");
+    }
+
+    @Test
+    void ordersInAStateUseTheStateDateIndex() throws SQLException {
+        orderRepository.findByStateOrderByIdAsc(OrderState.PENDING);
+        assertUses("customer_order", "idx_customer_order_state_date");
+        orderRepository.findArchivableIds(new Date(), 10);
+        assertUses("customer_order", "idx_customer_order_state_date");
+        orderRepository.streamSoldOrders(LocalDate.now().minusDays(30), LocalDate.now(), true, (date, total, items) -> {
+        });
+        assertUses("customer_order", "idx_customer_order_state_date");
+        assertUses("customer_order_archive", "idx_order_archive_state_date");
+    }
+
+    @Test
+    void pendingPaymentsUseThePaymentStatusIndex() throws SQLException {
+        orderRepository.findPaymentsByPaymentStatus(PaymentStatus.PENDING);
+        assertUses("customer_order", "idx_customer_order_payment_status");
+    }
+
+    @Test
+    void orderLinesUseTheOrderIndex() throws SQLException {
+        Order order = new Order();
+        order.setId(1);
+        orderLineRepository.findByOrderOrderByIdAsc(order);
+        assertUses("order_line", "idx_order_line_order");
+    }
+
+    /**
+     * Asserts that the last statement reads a table through an index on one of its columns.
+     */
+    private void assertIndexLookup(String table, String column) throws SQLException {
+        String plan = lastPlan();
+        assertFalse(plan.contains("public." + table + ".tableScan"), plan);
+        assertTrue(plan.matches("(?s).*/\\* public\\.\\w+: (\\w+\\.)?" + column + " = .*"), plan);
+    }
+
+    /**
+     * Asserts that the last statement reads a table through the given index.
+     */
+    private void assertUses(String table, String index) throws SQLException {
+        String plan = lastPlan();
+        assertFalse(plan.contains("public." + table + ".tableScan"), plan);
+        assertTrue(plan.contains("public." + index + ":"), plan);
+    }
+
+    private String lastPlan() throws SQLException {
+        List<Recorded> statements = recorder.statements().stream()
+                .filter(statement -> !statement.sql().startsWith("EXPLAIN "))
+                .toList();
+        assertFalse(statements.isEmpty(), "No statement was executed");
+        Recorded last = statements.get(statements.size() - 1);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + last.sql())) {
+            last.parameters().forEach((index, value) -> {
+                try {
+                    explain.setObject(index, value);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            try (ResultSet plan = explain.executeQuery()) {
+                assertTrue(plan.next());
+                return plan.getString(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package service;
+
+import dto.SalesAnalytics;
+import main.MainApplication;
+import model.Customer;
+import model.Drink;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.Pasta;
+import model.PaymentMethod;
+import model.Pizza;
+import model.Product;
+import model.Size;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the parallel analytics against plain SQL {@code GROUP BY} queries
+ * over the live and the archived orders. The range spans several
+ * partitions and the archive, and one of the products sold in it was
+ * deleted from the menu once its orders were archived.
+ * <p>
+ * The database is this class's own, and so are the names of its
+ * second-level cache regions: the JCache manager is shared by every
+ * context of the test run, which would otherwise find the products of
+ * other databases cached under the same ids.
+ * </p>
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url = jdbc:h2:mem:analytics;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.cache.region_prefix = analytics",
+        "analytics.partition-days = 3",
+        "order.archive.retention-days = 10",
+        "order.archive.chunk-pause-ms = 0"})
+class AnalyticsServiceTest {
+    private static final LocalDate FROM = LocalDate.now().minusDays(20);
+    private static final LocalDate TO = LocalDate.now().minusDays(1);
+    private static final String SOLD = "state IN ('FINISHED', 'DELIVERED') AND order_date >= ? AND order_date < ?";
+    private static final String ORDERS = "(SELECT order_date, total FROM customer_order WHERE " + SOLD
+            + " UNION ALL SELECT order_date, total FROM customer_order_archive WHERE " + SOLD + ") o";
+    private static final String LINES = "(SELECT l.product_id, l.amount, l.unit_price FROM order_line l "
+            + "JOIN customer_order o ON o.id = l.order_id WHERE " + SOLD
+            + " UNION ALL SELECT l.product_id, l.amount, l.unit_price FROM order_line_archive l "
+            + "JOIN customer_order_archive o ON o.id = l.order_id WHERE " + SOLD + ") l";
+
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void figuresMatchAPlainGroupByOverLiveAndArchivedOrders() throws SQLException {
+        Customer customer = new Customer();
+        customer.setDni("analytics");
+        customer.setMail("analytics@test");
+        customer = customerService.save(customer);
+        // Prices with exact binary fractions, so the sums do not depend on the order of the additions
+        List<Product> menu = List.of(product(new Pizza(), "Analytics pizza", 9.5, Size.BIG),
+                product(new Pizza(), "Analytics small pizza", 6.25, Size.SMALL),
+                product(new Pasta(), "Analytics pasta", 7.75, null),
+                product(new Drink(), "Analytics water", 1.5, null));
+        Product retired = product(new Drink(), "Retired soda", 2.0, null);
+
+        Random random = new Random(13);
+        OrderState[] states = {OrderState.FINISHED, OrderState.DELIVERED, OrderState.CANCELED};
+        List<Order> orders = new ArrayList<>();
+        // One day before and one after the range, which must not count
+        for (int day = 21; day >= 0; day--) {
+            for (int n = random.nextInt(5); n >= 0; n--) {
+                Order order = order(customer, LocalDate.now().minusDays(day), random.nextInt(24),
+                        states[random.nextInt(states.length)]);
+                for (int l = 1 + random.nextInt(3); l > 0; l--) {
+                    line(order, menu.get(random.nextInt(menu.size())), 1 + random.nextInt(4));
+                }
+                orders.add(order);
+            }
+        }
+        for (int day = 20; day > 12; day -= 2) {
+            orders.add(line(order(customer, LocalDate.now().minusDays(day), 20, OrderState.DELIVERED), retired, 50));
+        }
+        orderService.saveOrders(orders);
+        assertTrue(orderArchiveService.archiveOrders() > 0);
+        productService.deleteProduct(retired);
+
+        SalesAnalytics analytics = analyticsService.analyzeSales(FROM, TO, 100);
+
+        assertEquals(sql("SELECT COUNT(*) FROM " + ORDERS, Long.class), analytics.orders());
+        assertEquals(sql("SELECT SUM(amount) FROM " + LINES, Long.class), analytics.items());
+        assertEquals(sql("SELECT SUM(total) FROM " + ORDERS, Double.class), analytics.revenue());
+        Map<Integer, SalesAnalytics.ProductSales> expectedProducts = new HashMap<>();
+        query("SELECT l.product_id, p.name, SUM(l.amount), SUM(l.amount * l.unit_price) FROM " + LINES
+                        + " JOIN product p ON p.id = l.product_id GROUP BY l.product_id, p.name",
+                row -> expectedProducts.put((Integer) row[0], new SalesAnalytics.ProductSales((Integer) row[0],
+                        (String) row[1], ((Number) row[2]).longValue(), ((Number) row[3]).doubleValue())));
+        assertEquals(expectedProducts.size(), analytics.topProducts().size(), "The retired product is not listed");
+        for (int i = 0; i < analytics.topProducts().size(); i++) {
+            SalesAnalytics.ProductSales sales = analytics.topProducts().get(i);
+            assertEquals(expectedProducts.get(sales.productId()), sales);
+            assertTrue(i == 0 || analytics.topProducts().get(i - 1).units() >= sales.units(), "Ranked by units");
+        }
+        assertEquals(analytics.topProducts().subList(0, 2), analyticsService.analyzeSales(FROM, TO, 2).topProducts());
+
+        Map<String, Double> bySize = new LinkedHashMap<>(Map.of("BIG", 0.0, "MEDIUM", 0.0, "SMALL", 0.0, "NONE", 0.0));
+        query("SELECT COALESCE(CAST(p.size AS VARCHAR), 'NONE'), SUM(l.amount * l.unit_price) FROM " + LINES
+                        + " JOIN product p ON p.id = l.product_id GROUP BY COALESCE(CAST(p.size AS VARCHAR), 'NONE')",
+                row -> bySize.put((String) row[0], ((Number) row[1]).doubleValue()));
+        assertEquals(bySize, analytics.revenueBySize());
+        Map<String, Double> byType = new LinkedHashMap<>(Map.of("PIZZA", 0.0, "PASTA", 0.0, "DRINK", 0.0));
+        query("SELECT UPPER(p.dtype), SUM(l.amount * l.unit_price) FROM " + LINES
+                        + " JOIN product p ON p.id = l.product_id GROUP BY UPPER(p.dtype)",
+                row -> byType.put((String) row[0], ((Number) row[1]).doubleValue()));
+        assertEquals(byType, analytics.revenueByType());
+
+        Map<LocalDate, Double> byDay = new LinkedHashMap<>();
+        for (LocalDate day = FROM; !day.isAfter(TO); day = day.plusDays(1)) {
+            byDay.put(day, 0.0);
+        }
+        query("SELECT CAST(order_date AS DATE), SUM(total) FROM " + ORDERS + " GROUP BY CAST(order_date AS DATE)",
+                row -> byDay.put(((java.sql.Date) row[0]).toLocalDate(), ((Number) row[1]).doubleValue()));
+        assertEquals(byDay, analytics.revenueByDay());
+        long[] byHour = new long[24];
+        query("SELECT HOUR(order_date), COUNT(*) FROM " + ORDERS + " GROUP BY HOUR(order_date)",
+                row -> byHour[(Integer) row[0]] = ((Number) row[1]).longValue());
+        assertArrayEquals(byHour, analytics.ordersByHour());
+        long[] byWeekday = new long[7];
+        query("SELECT ISO_DAY_OF_WEEK(order_date), COUNT(*) FROM " + ORDERS + " GROUP BY ISO_DAY_OF_WEEK(order_date)",
+                row -> byWeekday[(Integer) row[0] - 1] = ((Number) row[1]).longValue());
+        assertArrayEquals(byWeekday, analytics.ordersByWeekday());
+    }
+
+    private <T> T sql(String query, Class<T> type) {
+        return jdbcTemplate.queryForObject(query, type, FROM, TO.plusDays(1), FROM, TO.plusDays(1));
+    }
+
+    /**
+     * Runs a grouping query over the sold orders or lines of the range,
+     * handing every row to the consumer as an array of its columns.
+     */
+    private void query(String query, Consumer<Object[]> consumer) {
+        jdbcTemplate.query(query, rs -> {
+            Object[] row = new Object[rs.getMetaData().getColumnCount()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            consumer.accept(row);
+        }, FROM, TO.plusDays(1), FROM, TO.plusDays(1));
+    }
+
+    private Product product(Product product, String name, double price, Size size) throws SQLException {
+        product.setName(name);
+        product.setPrice(price);
+        product.setSize(size);
+        return productService.saveProduct(product);
+    }
+
+    private static Order order(Customer customer, LocalDate day, int hour, OrderState state) {
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setOrderDate(Date.from(day.atTime(hour, 15).atZone(ZoneId.systemDefault()).toInstant()));
+        order.setState(state);
+        order.setPaymentMethod(PaymentMethod.CASH);
+        return order;
+    }
+
+    private static Order line(Order order, Product product, int amount) {
+        OrderLine line = new OrderLine();
+        line.setProduct(product);
+        line.setAmount(amount);
+        order.getOrderLines().add(line);
+        return order;
+    }
+}
@@ -0,0 +1,81 @@
+package service;
+
+import main.MainApplication;
+import model.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the customer cache drops a customer only once its deletion
+ * is committed, so a read racing the deletion can not leave it cached.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url = jdbc:h2:mem:customer-cache;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+class CustomerCacheTest {
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void aReadDuringTheDeletionDoesNotKeepTheCustomerCached() throws Exception {
+        long id = createCustomer("racing-delete").getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                customerService.delete(id);
+                // Another request reads the customer before the deletion commits, and caches it
+                assertEquals(id, CompletableFuture.supplyAsync(() -> find(id)).get(10, TimeUnit.SECONDS).getId());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThrows(ResponseStatusException.class, () -> customerService.findById(id));
+    }
+
+    @Test
+    void aRolledBackDeletionKeepsTheCustomer() throws SQLException {
+        long id = createCustomer("rolled-back-delete").getId();
+        customerService.findById(id);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                customerService.delete(id);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        assertEquals(id, customerService.findById(id).getId());
+    }
+
+    private Customer createCustomer(String name) throws SQLException {
+        Customer customer = new Customer();
+        customer.setDni(name);
+        customer.setMail(name + "@test");
+        return customerService.save(customer);
+    }
+
+    private Customer find(long id) {
+        try {
+            return customerService.findById(id);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
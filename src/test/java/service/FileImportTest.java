@@ -0,0 +1,164 @@
+package service;
+
+import dto.ImportProgress;
+import files.RecordFormat;
+import main.MainApplication;
+import model.Customer;
+import model.Ingredient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import repository.IngredientRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Imports files that mix new rows, rows of stored records, rows repeated in
+ * the same file, rows missing required fields and rows the database refuses,
+ * in batches of three, and checks what was written and the error report.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url = jdbc:h2:mem:files;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "files.import.batch-size = 3"})
+class FileImportTest {
+    @Autowired
+    private FileManagementService fileManagementService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private IngredientRepository ingredientRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void customersAreUpsertedAndBadRowsRejectedOnTheirOwn() throws Exception {
+        Customer stored = new Customer();
+        stored.setDni("90000000Z");
+        stored.setCustomerName("Stored");
+        stored.setMail("stored@import.test");
+        stored.setPassword("stored-password");
+        customerService.save(stored);
+        String storedPassword = password("90000000Z");
+
+        String file = "dni,customerName,direction,phone,mail,password\n"
+                + "10000001A,Ana,Main Street 1,600000001,ana@import.test,secret\n"
+                + "10000002B,Bruno,,,bruno@import.test,\n"
+                + "90000000Z,Stored Renamed,New Street,,stored@import.test,\n"
+                + ",No Dni,,,nodni@import.test,\n"
+                + "10000003C,\"Carla, \"\"the third\"\"\",,,carla@import.test,\n"
+                + "10000001A,Ana Updated,Main Street 2,,ana@import.test,\n"
+                + "10000004D," + "x".repeat(300) + ",,,long@import.test,\n"
+                + "10000005E,Eva,,,,\n";
+
+        ImportProgress progress = finished(fileManagementService.importCustomers(stream(file), RecordFormat.CSV));
+
+        assertEquals(ImportProgress.Status.DONE, progress.status());
+        assertNull(progress.failure());
+        assertEquals(5, progress.imported());
+        assertEquals(3, progress.rejected());
+        assertEquals(progress.totalBytes(), progress.bytesRead());
+        assertEquals(3, progress.errors().size(), progress.errors().toString());
+        assertEquals("Line 5: dni and mail are required", progress.errors().get(0));
+        assertTrue(progress.errors().get(1).startsWith("Line 8: "), progress.errors().get(1));
+        assertEquals("Line 9: dni and mail are required", progress.errors().get(2));
+
+        assertEquals(List.of("10000001A", "10000002B", "10000003C", "90000000Z"), jdbcTemplate.queryForList(
+                "SELECT dni FROM customer WHERE mail LIKE '%@import.test' ORDER BY dni", String.class));
+        Map<String, Object> ana = jdbcTemplate.queryForMap("SELECT * FROM customer WHERE dni = '10000001A'");
+        assertEquals("Ana Updated", ana.get("customer_name"));
+        assertEquals("Main Street 2", ana.get("direction"));
+        assertEquals("secret", ana.get("password"), "A row without password keeps the stored one");
+        assertEquals("Carla, \"the third\"", jdbcTemplate.queryForObject(
+                "SELECT customer_name FROM customer WHERE dni = '10000003C'", String.class));
+        Map<String, Object> renamed = jdbcTemplate.queryForMap("SELECT * FROM customer WHERE dni = '90000000Z'");
+        assertEquals("Stored Renamed", renamed.get("customer_name"));
+        assertEquals("New Street", renamed.get("direction"));
+        assertEquals(storedPassword, renamed.get("password"));
+    }
+
+    @Test
+    void ingredientsAreMatchedByNameAndReplaceTheirAllergens() throws Exception {
+        ingredientRepository.save(new Ingredient(0, "Imported cheese", new ArrayList<>(List.of("milk"))));
+
+        String file = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <ingredients>
+                  <ingredient><name>Imported flour</name><allergens>gluten | wheat|gluten</allergens></ingredient>
+                  <ingredient><allergens>egg</allergens></ingredient>
+                  <ingredient><name>Imported cheese</name><allergens>milk|lactose</allergens></ingredient>
+                  <ingredient><name>Imported basil</name></ingredient>
+                  <ingredient><name>Imported flour</name><allergens>gluten</allergens></ingredient>
+                </ingredients>
+                """;
+
+        ImportProgress progress = finished(fileManagementService.importIngredients(stream(file), RecordFormat.XML));
+
+        assertEquals(ImportProgress.Status.DONE, progress.status());
+        assertEquals(4, progress.imported());
+        assertEquals(1, progress.rejected());
+        assertEquals(List.of("Line 4: name is required"), progress.errors());
+
+        assertEquals(List.of("Imported basil", "Imported cheese", "Imported flour"), jdbcTemplate.queryForList(
+                "SELECT name FROM ingredient WHERE name LIKE 'Imported %' ORDER BY name", String.class));
+        assertEquals(List.of(), allergens("Imported basil"));
+        assertEquals(List.of("lactose", "milk"), allergens("Imported cheese"));
+        assertEquals(List.of("gluten"), allergens("Imported flour"), "The last row of a name wins");
+    }
+
+    @Test
+    void aMalformedFileStopsTheImportAfterTheBatchesWritten() throws Exception {
+        String file = "name;allergens\n"
+                + "Stopped one;\n"
+                + "Stopped two;\n"
+                + "Stopped three;\n"
+                + "Stopped four;\n"
+                + "\"Stopped five;gluten\n"
+                + "Stopped six;\n";
+
+        ImportProgress progress = finished(fileManagementService.importIngredients(stream(file), RecordFormat.CSV));
+
+        assertEquals(ImportProgress.Status.FAILED, progress.status());
+        assertTrue(progress.failure().contains("line 6"), progress.failure());
+        assertEquals(3, progress.imported(), "Only full batches are written before the error");
+        assertEquals(List.of("Stopped one", "Stopped three", "Stopped two"), jdbcTemplate.queryForList(
+                "SELECT name FROM ingredient WHERE name LIKE 'Stopped %' ORDER BY name", String.class));
+    }
+
+    private ImportProgress finished(ImportProgress started) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            ImportProgress progress = fileManagementService.findImport(started.id());
+            if (progress.status() != ImportProgress.Status.RUNNING) {
+                return progress;
+            }
+            Thread.sleep(50);
+        }
+        return fail("The import did not finish");
+    }
+
+    private String password(String dni) {
+        return jdbcTemplate.queryForObject("SELECT password FROM customer WHERE dni = ?", String.class, dni);
+    }
+
+    private List<String> allergens(String ingredient) {
+        return jdbcTemplate.queryForList("SELECT a.allergens FROM ingredient_allergen a JOIN ingredient i "
+                + "ON i.id = a.ingredient_id WHERE i.name = ? ORDER BY a.allergens", String.class, ingredient);
+    }
+
+    private static ByteArrayInputStream stream(String file) {
+        return new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,113 @@
+package service;
+
+import dto.OrderView;
+import dto.SalesAnalytics;
+import main.MainApplication;
+import model.Customer;
+import model.DailyProductSales;
+import model.Drink;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.PaymentMethod;
+import model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archives an order history in chunks of two and checks that nothing is
+ * lost: the history, the daily sales and the analytics read the same
+ * figures after the move as before it.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url = jdbc:h2:mem:archive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "order.archive.retention-days = 365",
+        "order.archive.chunk-size = 2",
+        "order.archive.chunk-pause-ms = 0"})
+class OrderArchiveTest {
+    private static final LocalDate OLD_DAY = LocalDate.now().minusYears(3);
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private SalesService salesService;
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Test
+    void movesOldFinishedOrdersToTheArchive() throws Exception {
+        Customer customer = new Customer();
+        customer.setDni("00000001A");
+        customer.setMail("archive@test");
+        customer = customerService.save(customer);
+        Drink drink = new Drink();
+        drink.setName("Archived lemonade");
+        drink.setPrice(2.5);
+        Product product = productService.saveProduct(drink);
+
+        List<Order> orders = new ArrayList<>();
+        for (OrderState state : List.of(OrderState.DELIVERED, OrderState.DELIVERED, OrderState.DELIVERED,
+                OrderState.CANCELED, OrderState.FINISHED)) {
+            orders.add(order(customer, product, OLD_DAY, state));
+        }
+        orders.add(order(customer, product, LocalDate.now().minusDays(1), OrderState.DELIVERED));
+        orderService.saveOrders(orders);
+        List<DailyProductSales> sales = salesService.findDailySales(OLD_DAY, OLD_DAY);
+        SalesAnalytics analytics = analyticsService.analyzeSales(OLD_DAY, OLD_DAY, 5);
+
+        assertEquals(4, orderArchiveService.archiveOrders());
+        assertEquals(0, orderArchiveService.archiveOrders());
+
+        List<Order> hot = orderService.findOrdersByCustomer(customer);
+        assertEquals(List.of(OrderState.FINISHED, OrderState.DELIVERED), hot.stream().map(Order::getState).toList());
+        List<OrderView> archived = orderArchiveService.findArchivedOrders(customer.getId(), null);
+        assertEquals(4, archived.size());
+        assertEquals(1, orderArchiveService.findArchivedOrders(customer.getId(), OrderState.CANCELED).size());
+        for (OrderView view : archived) {
+            assertEquals(product.getName(), view.lines().get(0).productName());
+            assertEquals(13, view.orderDate().toInstant().atZone(ZoneId.systemDefault()).getHour());
+        }
+
+        SalesAnalytics after = analyticsService.analyzeSales(OLD_DAY, OLD_DAY, 5);
+        assertEquals(analytics.orders(), after.orders());
+        assertEquals(analytics.revenue(), after.revenue());
+        assertEquals(4, after.ordersByHour()[13]);
+
+        salesService.rebuild();
+        assertEquals(sales, salesService.findDailySales(OLD_DAY, OLD_DAY));
+        assertTrue(sales.get(0).getUnitsCanceled() > 0);
+    }
+
+    private static Order order(Customer customer, Product product, LocalDate day, OrderState state) {
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setOrderDate(Date.from(day.atTime(13, 45).atZone(ZoneId.systemDefault()).toInstant()));
+        order.setState(state);
+        order.setPaymentMethod(PaymentMethod.CASH);
+        OrderLine line = new OrderLine();
+        line.setProduct(product);
+        line.setAmount(2);
+        order.getOrderLines().add(line);
+        return order;
+    }
+}
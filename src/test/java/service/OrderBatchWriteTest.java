@@ -0,0 +1,152 @@
+package service;
+
+import controller.StatementCounter;
+import main.MainApplication;
+import model.Customer;
+import model.Drink;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.PaymentMethod;
+import model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the round trips taken to write orders, through the counting data
+ * source, and checks the ids handed out by the pooled-lo sequences: one
+ * sequence call reserves a block of 50 ids, and a block reserved by another
+ * instance is never reused.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@Import(StatementCounter.Config.class)
+@TestPropertySource(properties = "spring.datasource.url = jdbc:h2:mem:batch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+class OrderBatchWriteTest {
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static Customer customer;
+    private static List<Product> products;
+
+    @BeforeEach
+    void seed() throws SQLException {
+        if (customer != null) {
+            return;
+        }
+        Customer created = new Customer();
+        created.setDni("batch");
+        created.setMail("batch@test");
+        customer = customerService.save(created);
+        products = new ArrayList<>();
+        for (int p = 0; p < 5; p++) {
+            Drink drink = new Drink();
+            drink.setName("Batch drink " + p);
+            drink.setPrice(2 + p);
+            products.add(productService.saveProduct(drink));
+        }
+        // Reserves the first block of ids of each sequence, so the counts below are the steady state
+        orderService.saveOrder(order());
+    }
+
+    @Test
+    void writesAnOrderInTwoRoundTrips() throws SQLException {
+        statementCounter.reset();
+        orderService.saveOrder(order());
+
+        List<String> statements = statementCounter.statements();
+        assertEquals(1, count(statements, "insert into customer_order"), statements.toString());
+        assertEquals(1, count(statements, "insert into order_line"), statements.toString());
+        // Plus a sequence call when the order or the lines start a new block of ids
+        assertEquals(2, statements.size() - count(statements, "next value for"), statements.toString());
+    }
+
+    @Test
+    void writesABatchOfOrdersInJdbcBatches() throws SQLException {
+        List<Order> orders = new ArrayList<>();
+        for (int o = 0; o < 100; o++) {
+            orders.add(order());
+        }
+
+        statementCounter.reset();
+        orderService.saveOrders(orders);
+
+        List<String> statements = statementCounter.statements();
+        // 100 order ids and 500 line ids, one call per block of 50 plus a block started by an earlier test
+        assertTrue(count(statements, "next value for customer_order_seq") <= 100 / ALLOCATION_SIZE + 1, statements.toString());
+        assertTrue(count(statements, "next value for order_line_seq") <= 500 / ALLOCATION_SIZE + 1, statements.toString());
+        assertEquals(2, count(statements, "insert into customer_order"), statements.toString());
+        assertEquals(10, count(statements, "insert into order_line"), statements.toString());
+        // 24 in the steady state, up to two more when a block runs out on the way
+        assertTrue(statements.size() <= 26, statements.size() + " round trips: " + statements);
+    }
+
+    @Test
+    void neverReusesIdsReservedElsewhere() throws SQLException {
+        int existing = jdbcTemplate.queryForObject("select max(id) from customer_order", Integer.class);
+        // Another instance reserves the next block of order ids
+        long reserved = jdbcTemplate.queryForObject("select next value for customer_order_seq", Long.class);
+
+        List<Order> orders = new ArrayList<>();
+        for (int o = 0; o < 2 * ALLOCATION_SIZE; o++) {
+            orders.add(order());
+        }
+        orderService.saveOrders(orders);
+
+        Set<Integer> ids = new HashSet<>();
+        for (Order order : orders) {
+            assertTrue(order.getId() > existing, "Id " + order.getId() + " was already taken");
+            assertFalse(order.getId() >= reserved && order.getId() < reserved + ALLOCATION_SIZE,
+                    "Id " + order.getId() + " belongs to the block reserved at " + reserved);
+            assertTrue(ids.add(order.getId()));
+        }
+        Order first = orderService.findOrder(orders.get(0).getId());
+        assertEquals(products.size(), orderService.findOrderLinesByOrder(first).size());
+    }
+
+    private Order order() {
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setOrderDate(new Date());
+        order.setState(OrderState.PENDING);
+        order.setPaymentMethod(PaymentMethod.CASH);
+        for (Product product : products) {
+            OrderLine line = new OrderLine();
+            line.setProduct(product);
+            line.setAmount(1);
+            order.getOrderLines().add(line);
+        }
+        return order;
+    }
+
+    private static long count(List<String> statements, String prefix) {
+        return statements.stream().filter(sql -> sql.contains(prefix)).count();
+    }
+}
@@ -0,0 +1,210 @@
+package service;
+
+import jakarta.persistence.EntityManagerFactory;
+import main.MainApplication;
+import model.Customer;
+import model.Drink;
+import model.Ingredient;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.Pasta;
+import model.PaymentMethod;
+import model.Pizza;
+import model.Product;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import repository.CustomerRepository;
+import repository.OrderRepository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loads order histories through the entity graphs and checks that the
+ * number of statements does not grow with the number of orders, lines,
+ * ingredients or allergens. The second-level cache is emptied first, so
+ * every product, ingredient and allergen comes from the database.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url = jdbc:h2:mem:history;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+class OrderHistoryTest {
+    // The orders or lines with their products, then a batch of ingredients and one of allergens for pizzas and for pastas
+    private static final long HISTORY_BUDGET = 5;
+    private static final long LINES_BUDGET = 5;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private static List<Product> menu;
+
+    @BeforeEach
+    void seedMenu() throws SQLException {
+        if (menu != null) {
+            return;
+        }
+        menu = new ArrayList<>();
+        for (int p = 0; p < 30; p++) {
+            Product product;
+            if (p % 3 == 0) {
+                Pizza pizza = new Pizza();
+                pizza.setIngredients(ingredients("history pizza " + p, 3));
+                product = pizza;
+            } else if (p % 3 == 1) {
+                Pasta pasta = new Pasta();
+                pasta.setIngredients(ingredients("history pasta " + p, 2));
+                product = pasta;
+            } else {
+                product = new Drink();
+            }
+            product.setName("History product " + p);
+            product.setPrice(5 + p);
+            menu.add(productService.saveProduct(product));
+        }
+    }
+
+    @Test
+    void historyLoadsInAConstantNumberOfStatements() throws SQLException {
+        Customer few = customerWithOrders("history-few", 10);
+        Customer many = customerWithOrders("history-many", 40);
+
+        long fewStatements = statements(() -> walk(orderService.findOrdersByCustomer(few)));
+        long manyStatements = statements(() -> walk(orderService.findOrdersByCustomer(many)));
+
+        assertEquals(fewStatements, manyStatements, "Statements grow with the history");
+        assertTrue(manyStatements <= HISTORY_BUDGET, "History of 40 orders took " + manyStatements + " statements");
+    }
+
+    @Test
+    void orderLinesLoadInAConstantNumberOfStatements() throws SQLException {
+        Customer customer = customerWithOrders("history-lines", 1);
+        Order order = orderService.findOrdersByCustomer(customer).get(0);
+
+        long statements = statements(() -> walkLines(orderService.findOrderLinesByOrder(order)));
+
+        assertTrue(statements <= LINES_BUDGET, "Lines of an order took " + statements + " statements");
+    }
+
+    @Test
+    void deletingAnOrderKeepsItsCustomer() throws SQLException {
+        Customer customer = customerWithOrders("history-delete-order", 2);
+        List<Order> orders = orderService.findOrdersByCustomer(customer);
+
+        orderService.deleteOrder(orders.get(0));
+
+        assertTrue(customerRepository.existsById(customer.getId()));
+        assertEquals(1, orderService.findOrdersByCustomer(customer).size());
+    }
+
+    @Test
+    void deletingALineKeepsItsOrder() throws SQLException {
+        Customer customer = customerWithOrders("history-delete-line", 1);
+        Order order = orderService.findOrdersByCustomer(customer).get(0);
+        List<OrderLine> lines = orderService.findOrderLinesByOrder(order);
+
+        orderService.deleteOrderLine(lines.get(0));
+
+        assertTrue(orderRepository.existsById(order.getId()));
+        assertTrue(customerRepository.existsById(customer.getId()));
+        assertEquals(lines.size() - 1, orderService.findOrderLinesByOrder(order).size());
+    }
+
+    private List<Ingredient> ingredients(String prefix, int count) {
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName(prefix + " ingredient " + i);
+            ingredient.setAllergens(new ArrayList<>(List.of("gluten", "allergen " + i)));
+            ingredients.add(ingredient);
+        }
+        return ingredients;
+    }
+
+    private Customer customerWithOrders(String name, int orderCount) throws SQLException {
+        Customer customer = new Customer();
+        customer.setDni(name);
+        customer.setMail(name + "@test");
+        customer = customerService.save(customer);
+        List<Order> orders = new ArrayList<>();
+        for (int o = 0; o < orderCount; o++) {
+            Order order = new Order();
+            order.setCustomer(customer);
+            order.setOrderDate(new Date());
+            order.setState(OrderState.DELIVERED);
+            order.setPaymentMethod(PaymentMethod.CASH);
+            for (int l = 0; l < 3; l++) {
+                OrderLine line = new OrderLine();
+                line.setProduct(menu.get((o * 3 + l) % menu.size()));
+                line.setAmount(1 + l);
+                order.getOrderLines().add(line);
+            }
+            orders.add(order);
+        }
+        orderService.saveOrders(orders);
+        return customer;
+    }
+
+    /**
+     * Counts the statements prepared while loading and walking a history from an empty second-level cache.
+     */
+    private long statements(SqlRunnable load) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                load.run();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static void walk(List<Order> orders) {
+        orders.forEach(order -> {
+            order.getCustomer().getMail();
+            walkLines(order.getOrderLines());
+        });
+    }
+
+    private static void walkLines(List<OrderLine> lines) {
+        for (OrderLine line : lines) {
+            line.getOrder().getCustomer().getMail();
+            List<Ingredient> ingredients = line.getProduct() instanceof Pizza pizza ? pizza.getIngredients()
+                    : line.getProduct() instanceof Pasta pasta ? pasta.getIngredients() : List.of();
+            ingredients.forEach(ingredient -> ingredient.getAllergens().size());
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlRunnable {
+        void run() throws SQLException;
+    }
+}
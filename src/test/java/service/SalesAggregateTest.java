@@ -0,0 +1,214 @@
+package service;
+
+import dto.SalesLine;
+import kitchen.OrderStateWriter;
+import main.MainApplication;
+import model.Customer;
+import model.DailyProductSales;
+import model.DailyProductSalesId;
+import model.Drink;
+import model.Order;
+import model.OrderLine;
+import model.OrderState;
+import model.PaymentMethod;
+import model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Applies random sequences of order creations, state changes, line edits,
+ * cancellations and deletions over a few days, and checks after each step
+ * that the incrementally kept daily sales equal a rebuild from the orders.
+ * Rows left at zero by a deletion are not compared, as a rebuild does not
+ * create them. Also adds the first sales of a day and product from two
+ * transactions at once.
+ */
+@SpringBootTest(classes = MainApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.datasource.url = jdbc:h2:mem:sales;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+class SalesAggregateTest {
+    private static final LocalDate FIRST_DAY = LocalDate.now().minusDays(2);
+    private static final LocalDate LAST_DAY = LocalDate.now();
+    private static final OrderState[] STATES = OrderState.values();
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private SalesService salesService;
+    @Autowired
+    private OrderStateWriter stateWriter;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Customer customer;
+    private final List<Product> products = new ArrayList<>();
+    private final List<Integer> orderIds = new ArrayList<>();
+
+    @Test
+    void everySequenceOfChangesMatchesARebuild() throws SQLException {
+        Customer created = new Customer();
+        created.setDni("sales");
+        created.setMail("sales@test");
+        customer = customerService.save(created);
+        // Prices with exact binary fractions, so the sums do not depend on the order of the additions
+        double[] prices = {2.5, 4.75, 9.0, 12.25};
+        for (int p = 0; p < prices.length; p++) {
+            Drink drink = new Drink();
+            drink.setName("Sales drink " + p);
+            drink.setPrice(prices[p]);
+            products.add(productService.saveProduct(drink));
+        }
+
+        Random random = new Random(7);
+        for (int step = 0; step < 300; step++) {
+            String change = apply(random);
+            assertMatchesRebuild("Step " + step + ": " + change);
+        }
+    }
+
+    @Test
+    void concurrentFirstSalesOfADayAndProductAddUp() throws Exception {
+        Drink drink = new Drink();
+        drink.setName("Sales race");
+        drink.setPrice(3.5);
+        int productId = productService.saveProduct(drink).getId();
+        LocalDate day = FIRST_DAY.minusDays(30);
+        Date orderDate = Date.from(day.atTime(13, 0).atZone(ZoneId.systemDefault()).toInstant());
+        SalesLine line = new SalesLine(0, orderDate, OrderState.FINISHED, productId, 2, 3.5);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        CountDownLatch written = new CountDownLatch(1);
+
+        // The first transaction holds its new row until the second one has tried to write it too
+        Thread first = Thread.ofPlatform().uncaughtExceptionHandler((thread, e) -> errors.add(e)).start(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    salesService.recordChange(List.of(), List.of(line));
+                    written.countDown();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(300));
+                }));
+        Thread second = Thread.ofPlatform().uncaughtExceptionHandler((thread, e) -> errors.add(e)).start(() -> {
+            try {
+                written.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            transactionTemplate.executeWithoutResult(status -> salesService.recordChange(List.of(), List.of(line)));
+        });
+        first.join();
+        second.join();
+
+        assertEquals(List.of(), errors);
+        assertEquals(List.of(new DailyProductSales(new DailyProductSalesId(day, productId), 4, 14.0, 0, 0)),
+                salesService.findDailySales(day, day));
+    }
+
+    private String apply(Random random) throws SQLException {
+        if (orderIds.isEmpty() || random.nextInt(5) == 0) {
+            Order order = newOrder(random, STATES[random.nextInt(STATES.length)]);
+            orderService.saveOrder(order);
+            orderIds.add(order.getId());
+            return "create " + order.getState();
+        }
+        int orderId = orderIds.get(random.nextInt(orderIds.size()));
+        Order order = orderService.findOrder(orderId);
+        List<OrderLine> lines = orderService.findOrderLinesByOrder(order);
+        switch (random.nextInt(7)) {
+            case 0 -> {
+                order.setState(STATES[random.nextInt(STATES.length)]);
+                orderService.updateOrder(order);
+                return "state of " + orderId + " to " + order.getState();
+            }
+            case 1 -> {
+                order.setState(OrderState.CANCELED);
+                orderService.updateOrder(order);
+                return "cancel " + orderId;
+            }
+            case 2 -> {
+                stateWriter.record(orderId, customer.getId(), OrderState.FINISHED);
+                stateWriter.flush();
+                return "kitchen finishes " + orderId;
+            }
+            case 3 -> {
+                orderService.saveOrderLine(List.of(newLine(random)), order);
+                return "add a line to " + orderId;
+            }
+            case 4 -> {
+                if (lines.isEmpty()) {
+                    return "nothing";
+                }
+                OrderLine line = lines.get(random.nextInt(lines.size()));
+                line.setAmount(1 + random.nextInt(5));
+                orderService.updateOrderLine(line);
+                return "edit line " + line.getId() + " of " + orderId;
+            }
+            case 5 -> {
+                if (lines.isEmpty()) {
+                    return "nothing";
+                }
+                OrderLine line = lines.get(random.nextInt(lines.size()));
+                orderService.deleteOrderLine(line);
+                return "delete line " + line.getId() + " of " + orderId;
+            }
+            default -> {
+                orderService.deleteOrder(order);
+                orderIds.remove((Integer) orderId);
+                return "delete " + orderId;
+            }
+        }
+    }
+
+    private Order newOrder(Random random, OrderState state) {
+        Order order = new Order();
+        order.setCustomer(customer);
+        LocalDate day = FIRST_DAY.plusDays(random.nextInt(3));
+        order.setOrderDate(Date.from(day.atTime(12 + random.nextInt(10), 0).atZone(ZoneId.systemDefault()).toInstant()));
+        order.setState(state);
+        order.setPaymentMethod(PaymentMethod.CASH);
+        for (int l = 1 + random.nextInt(3); l > 0; l--) {
+            order.getOrderLines().add(newLine(random));
+        }
+        return order;
+    }
+
+    private OrderLine newLine(Random random) {
+        OrderLine line = new OrderLine();
+        line.setProduct(products.get(random.nextInt(products.size())));
+        line.setAmount(1 + random.nextInt(4));
+        return line;
+    }
+
+    private void assertMatchesRebuild(String step) {
+        List<DailyProductSales> recorded = nonZero(salesService.findDailySales(FIRST_DAY, LAST_DAY));
+        salesService.rebuild();
+        List<DailyProductSales> rebuilt = nonZero(salesService.findDailySales(FIRST_DAY, LAST_DAY));
+        assertEquals(rebuilt, recorded, step);
+        assertFalse(rebuilt.stream().anyMatch(row -> row.getUnitsSold() < 0 || row.getUnitsCanceled() < 0), step);
+    }
+
+    private static List<DailyProductSales> nonZero(List<DailyProductSales> rows) {
+        return rows.stream().filter(row -> row.getUnitsSold() != 0 || row.getUnitsCanceled() != 0
+                || row.getRevenue() != 0 || row.getCanceledRevenue() != 0).toList();
+    }
+}